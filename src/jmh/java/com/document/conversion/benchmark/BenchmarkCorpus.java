@@ -0,0 +1,117 @@
+package com.document.conversion.benchmark;
+
+import com.document.conversion.service.storage.StorageBackend;
+import com.document.conversion.service.storage.StorageWrite;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.PDPageContentStream;
+import org.apache.pdfbox.pdmodel.common.PDRectangle;
+import org.apache.pdfbox.pdmodel.font.PDType1Font;
+import org.apache.pdfbox.pdmodel.graphics.image.LosslessFactory;
+import org.apache.pdfbox.pdmodel.graphics.image.PDImageXObject;
+
+import java.awt.image.BufferedImage;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Random;
+
+/**
+ * Generated benchmark inputs. Every document is built from a fixed seed, so the page content is
+ * the same on every run and across machines.
+ */
+public enum BenchmarkCorpus {
+
+    TEXT_ONLY {
+        @Override
+        void build(PDDocument document, Random random) throws IOException {
+            for (int page = 0; page < 20; page++) {
+                addTextPage(document, PDRectangle.LETTER, random, 50);
+            }
+        }
+    },
+    IMAGE_HEAVY {
+        @Override
+        void build(PDDocument document, Random random) throws IOException {
+            for (int page = 0; page < 5; page++) {
+                PDPage pdPage = new PDPage(PDRectangle.LETTER);
+                document.addPage(pdPage);
+                PDImageXObject image = LosslessFactory.createFromImage(document, noiseImage(random, 1200, 1600));
+                try (PDPageContentStream content = new PDPageContentStream(document, pdPage)) {
+                    content.drawImage(image, 36, 36, 540, 720);
+                }
+            }
+        }
+    },
+    MANY_PAGES {
+        @Override
+        void build(PDDocument document, Random random) throws IOException {
+            for (int page = 0; page < 200; page++) {
+                addTextPage(document, PDRectangle.LETTER, random, 10);
+            }
+        }
+    },
+    HUGE_PAGE {
+        @Override
+        void build(PDDocument document, Random random) throws IOException {
+            // A2 renders to roughly 5000x7000 pixels at 300 DPI
+            addTextPage(document, PDRectangle.A2, random, 120);
+        }
+    };
+
+    private static final long SEED = 20240101L;
+    private static final String[] WORDS = {
+            "contract", "party", "agreement", "shall", "payment", "invoice", "term", "notice",
+            "liability", "clause", "schedule", "delivery", "services", "effective", "date", "the"
+    };
+
+    abstract void build(PDDocument document, Random random) throws IOException;
+
+    public String storeIn(StorageBackend storageBackend) throws IOException {
+        String key = name().toLowerCase() + ".pdf";
+        try (PDDocument document = new PDDocument();
+             StorageWrite write = storageBackend.create(key)) {
+            build(document, new Random(SEED));
+            OutputStream out = new BufferedOutputStream(write.outputStream());
+            document.save(out);
+            out.flush();
+            write.commit();
+        }
+        return key;
+    }
+
+    private static void addTextPage(PDDocument document, PDRectangle size, Random random, int lines)
+            throws IOException {
+        PDPage page = new PDPage(size);
+        document.addPage(page);
+        try (PDPageContentStream content = new PDPageContentStream(document, page)) {
+            content.beginText();
+            content.setFont(PDType1Font.HELVETICA, 10);
+            content.setLeading(14);
+            content.newLineAtOffset(40, size.getHeight() - 50);
+            for (int line = 0; line < lines; line++) {
+                content.showText(sentence(random));
+                content.newLine();
+            }
+            content.endText();
+        }
+    }
+
+    private static String sentence(Random random) {
+        StringBuilder sentence = new StringBuilder();
+        for (int word = 0; word < 12; word++) {
+            sentence.append(WORDS[random.nextInt(WORDS.length)]).append(' ');
+        }
+        return sentence.toString().trim();
+    }
+
+    private static BufferedImage noiseImage(Random random, int width, int height) {
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                image.setRGB(x, y, random.nextInt(0xFFFFFF));
+            }
+        }
+        return image;
+    }
+}
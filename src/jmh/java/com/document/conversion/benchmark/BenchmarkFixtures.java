@@ -0,0 +1,35 @@
+package com.document.conversion.benchmark;
+
+import com.document.conversion.service.converter.PdfDocumentLoader;
+import com.document.conversion.service.converter.PngEncoder;
+import com.document.conversion.service.storage.InMemoryStorageBackend;
+import com.document.conversion.service.storage.ShardedFileSystemStorageBackend;
+import com.document.conversion.service.storage.StorageBackend;
+
+import java.nio.file.Path;
+import java.util.concurrent.ThreadPoolExecutor;
+
+/**
+ * Production defaults from application.properties for components the benchmarks build by hand.
+ */
+final class BenchmarkFixtures {
+
+    private BenchmarkFixtures() {
+    }
+
+    static PdfDocumentLoader pdfDocumentLoader() {
+        return new PdfDocumentLoader(PdfDocumentLoader.Strategy.AUTO, 4L << 20, 256L << 20, 64L << 20, "");
+    }
+
+    static StorageBackend storageBackend(String backend, Path directory) {
+        return switch (backend) {
+            case "filesystem" -> new ShardedFileSystemStorageBackend(directory.toString(), 2);
+            case "memory" -> new InMemoryStorageBackend();
+            default -> throw new IllegalArgumentException("Unknown storage backend: " + backend);
+        };
+    }
+
+    static PngEncoder pngEncoder(ThreadPoolExecutor pngEncodeExecutor) {
+        return new PngEncoder(6, PngEncoder.Filter.NONE, 256 * 1024, pngEncodeExecutor);
+    }
+}
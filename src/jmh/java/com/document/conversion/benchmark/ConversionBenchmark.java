@@ -0,0 +1,96 @@
+package com.document.conversion.benchmark;
+
+import com.document.conversion.model.Document;
+import com.document.conversion.model.RenderOptions;
+import com.document.conversion.service.FileStorageService;
+import com.document.conversion.service.converter.PdfDocumentLoader;
+import com.document.conversion.service.converter.PdfToPngConverter;
+import com.document.conversion.service.converter.PdfToWordConverter;
+import com.document.conversion.service.converter.PngEncoder;
+import com.document.conversion.service.storage.StorageBackend;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.util.FileSystemUtils;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 10)
+@Measurement(iterations = 3, time = 20)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class ConversionBenchmark {
+
+    @Param({"TEXT_ONLY", "IMAGE_HEAVY", "MANY_PAGES", "HUGE_PAGE"})
+    public BenchmarkCorpus corpus;
+
+    private Path storageDirectory;
+    private ThreadPoolExecutor pageRenderExecutor;
+    private ThreadPoolExecutor pngEncodeExecutor;
+    private FileStorageService fileStorageService;
+    private PdfToPngConverter pdfToPngConverter;
+    private PdfToWordConverter pdfToWordConverter;
+    private Document document;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        storageDirectory = Files.createTempDirectory("conversion-benchmark");
+        StorageBackend storageBackend = BenchmarkFixtures.storageBackend("filesystem", storageDirectory);
+        fileStorageService = new FileStorageService(storageBackend);
+        int threads = Runtime.getRuntime().availableProcessors();
+        pageRenderExecutor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>());
+        PdfDocumentLoader pdfDocumentLoader = BenchmarkFixtures.pdfDocumentLoader();
+        pngEncodeExecutor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>());
+        PngEncoder pngEncoder = BenchmarkFixtures.pngEncoder(pngEncodeExecutor);
+        pdfToPngConverter = new PdfToPngConverter(storageBackend, pdfDocumentLoader, pageRenderExecutor, pngEncoder,
+                300, RenderOptions.ImageType.RGB, 50_000_000L);
+        pdfToWordConverter = new PdfToWordConverter(storageBackend, pdfDocumentLoader, pageRenderExecutor);
+        String source = corpus.storeIn(storageBackend);
+        document = Document.builder()
+                .originalFileName(source)
+                .originalFilePath(source)
+                .originalFormat("pdf")
+                .build();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        pageRenderExecutor.shutdownNow();
+        pngEncodeExecutor.shutdownNow();
+        FileSystemUtils.deleteRecursively(storageDirectory);
+    }
+
+    @Benchmark
+    public String pdfToPng() throws IOException {
+        return discard(pdfToPngConverter.convert(document));
+    }
+
+    @Benchmark
+    public String pdfToWord() throws IOException {
+        return discard(pdfToWordConverter.convert(document));
+    }
+
+    private String discard(String convertedFileName) {
+        fileStorageService.deleteFile(convertedFileName);
+        return convertedFileName;
+    }
+}
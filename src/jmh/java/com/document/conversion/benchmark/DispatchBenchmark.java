@@ -0,0 +1,169 @@
+package com.document.conversion.benchmark;
+
+import com.document.conversion.aspect.RateLimitingAspect;
+import com.document.conversion.model.RenderOptions;
+import com.document.conversion.service.DocumentConversionService;
+import com.document.conversion.service.converter.DocumentConvertFactory;
+import com.document.conversion.service.converter.DocumentConverter;
+import com.document.conversion.service.converter.PdfToPngConverter;
+import com.document.conversion.service.converter.PdfToWordConverter;
+import com.document.conversion.service.queue.ConversionJournal;
+import com.document.conversion.service.ratelimit.LocalBucketStore;
+import io.github.bucket4j.Bandwidth;
+import io.github.bucket4j.BucketConfiguration;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.Signature;
+import org.aspectj.lang.reflect.SourceLocation;
+import org.aspectj.runtime.internal.AroundClosure;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.util.FileSystemUtils;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-request overhead on the submit path: converter lookup, the rate limiting aspect and the
+ * journal round trip of a message through the embedded conversion queue.
+ */
+@State(Scope.Thread)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DispatchBenchmark {
+
+    private DocumentConvertFactory documentConvertFactory;
+    private RateLimitingAspect rateLimitingAspect;
+    private final ProceedingJoinPoint joinPoint = new ProceedingJoinPointStub();
+    private Path journalDirectory;
+    private ConversionJournal journal;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        documentConvertFactory = new DocumentConvertFactory(
+                new PdfToPngConverter(null, null, null, null, 300, RenderOptions.ImageType.RGB, 50_000_000L), new PdfToWordConverter(null, null, null));
+        // Never runs dry, so the benchmark measures the allowed path
+        BucketConfiguration configuration = BucketConfiguration.builder()
+                .addLimit(Bandwidth.builder()
+                        .capacity(1_000_000_000_000L)
+                        .refillIntervally(1_000_000_000_000L, Duration.ofHours(1))
+                        .build())
+                .build();
+        rateLimitingAspect = new RateLimitingAspect(
+                new LocalBucketStore(100_000, Duration.ofMinutes(10)), configuration, 1 << 20);
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/documents/convert");
+        request.setRemoteAddr("10.0.0.1");
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(request));
+        journalDirectory = Files.createTempDirectory("dispatch-benchmark");
+        journal = new ConversionJournal(journalDirectory.resolve("conversion.journal"), 16 << 20, false);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        RequestContextHolder.resetRequestAttributes();
+        journal.close();
+        FileSystemUtils.deleteRecursively(journalDirectory);
+    }
+
+    @Benchmark
+    public DocumentConverter getConverter() {
+        return documentConvertFactory.getConverter(DocumentConversionService.SupportedSourceFormat.pdf,
+                DocumentConversionService.SupportedTargetFormat.png);
+    }
+
+    @Benchmark
+    public Object rateLimit() throws Throwable {
+        return rateLimitingAspect.rateLimit(joinPoint);
+    }
+
+    @Benchmark
+    public void embeddedQueueJournal() throws IOException {
+        UUID documentId = UUID.randomUUID();
+        journal.appendEnqueued(List.of(new ConversionJournal.Entry(documentId, false)));
+        journal.appendAcked(documentId);
+    }
+
+    private static final class ProceedingJoinPointStub implements ProceedingJoinPoint {
+
+        private static final Object RESULT = new Object();
+
+        @Override
+        public void set$AroundClosure(AroundClosure arc) {
+        }
+
+        @Override
+        public Object proceed() {
+            return RESULT;
+        }
+
+        @Override
+        public Object proceed(Object[] args) {
+            return RESULT;
+        }
+
+        @Override
+        public String toShortString() {
+            return "submitConversion";
+        }
+
+        @Override
+        public String toLongString() {
+            return toShortString();
+        }
+
+        @Override
+        public Object getThis() {
+            return null;
+        }
+
+        @Override
+        public Object getTarget() {
+            return null;
+        }
+
+        @Override
+        public Object[] getArgs() {
+            return new Object[0];
+        }
+
+        @Override
+        public Signature getSignature() {
+            return null;
+        }
+
+        @Override
+        public SourceLocation getSourceLocation() {
+            return null;
+        }
+
+        @Override
+        public String getKind() {
+            return METHOD_EXECUTION;
+        }
+
+        @Override
+        public StaticPart getStaticPart() {
+            return null;
+        }
+    }
+}
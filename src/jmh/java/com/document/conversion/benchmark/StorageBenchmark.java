@@ -0,0 +1,89 @@
+package com.document.conversion.benchmark;
+
+import com.document.conversion.model.StoredFile;
+import com.document.conversion.service.FileStorageService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.util.FileSystemUtils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class StorageBenchmark {
+
+    @Param({"102400", "10485760"})
+    public int fileSize;
+
+    @Param({"filesystem", "memory"})
+    public String backend;
+
+    private Path storageDirectory;
+    private FileStorageService fileStorageService;
+    private MockMultipartFile upload;
+    private String storedFileName;
+    private String lastStoredFileName;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        try {
+            storageDirectory = Files.createTempDirectory("storage-benchmark");
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+        fileStorageService = new FileStorageService(BenchmarkFixtures.storageBackend(backend, storageDirectory));
+        byte[] content = new byte[fileSize];
+        new Random(fileSize).nextBytes(content);
+        upload = new MockMultipartFile("file", "benchmark.pdf", "application/pdf", content);
+        storedFileName = fileStorageService.storeFile(upload, "original").getFileName();
+    }
+
+    @TearDown(Level.Invocation)
+    public void deleteStoredCopy() {
+        if (lastStoredFileName != null) {
+            fileStorageService.deleteFile(lastStoredFileName);
+            lastStoredFileName = null;
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        FileSystemUtils.deleteRecursively(storageDirectory.toFile());
+    }
+
+    @Benchmark
+    public StoredFile storeFile() {
+        StoredFile storedFile = fileStorageService.storeFile(upload, "original");
+        lastStoredFileName = storedFile.getFileName();
+        return storedFile;
+    }
+
+    @Benchmark
+    public long readFile() throws IOException {
+        try (InputStream in = fileStorageService.loadFileAsResource(storedFileName).getInputStream()) {
+            return in.transferTo(OutputStream.nullOutputStream());
+        }
+    }
+}
@@ -1,14 +1,19 @@
 package com.document.conversion;
 
+import com.document.conversion.config.PdfBoxFontCacheInitializer;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
 @EnableCaching
+@EnableScheduling
 public class DocumentConversionApplication {
     
     public static void main(String[] args) {
-        SpringApplication.run(DocumentConversionApplication.class, args);
+        SpringApplication application = new SpringApplication(DocumentConversionApplication.class);
+        application.addListeners(new PdfBoxFontCacheInitializer());
+        application.run(args);
     }
 }
@@ -0,0 +1,26 @@
+package com.document.conversion.aspect;
+
+import com.document.conversion.service.AdmissionControlService;
+import lombok.RequiredArgsConstructor;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+// Runs before the rate limit, so a shed request does not cost the client any tokens
+@Aspect
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+@RequiredArgsConstructor
+public class AdmissionControlAspect {
+
+    private final AdmissionControlService admissionControlService;
+
+    @Around("@annotation(com.document.conversion.annotation.AdmissionControl)")
+    public Object admit(ProceedingJoinPoint joinPoint) throws Throwable {
+        admissionControlService.checkAdmission();
+        return joinPoint.proceed();
+    }
+}
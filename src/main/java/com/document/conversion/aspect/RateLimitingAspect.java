@@ -1,27 +1,43 @@
 package com.document.conversion.aspect;
 
 import com.document.conversion.exception.RateLimitExceededException;
+import com.document.conversion.service.ratelimit.BucketStore;
 import io.github.bucket4j.Bandwidth;
 import io.github.bucket4j.Bucket;
+import io.github.bucket4j.BucketConfiguration;
 import jakarta.servlet.http.HttpServletRequest;
 
-import java.util.Map;
+import java.util.Arrays;
 
-import lombok.RequiredArgsConstructor;
 import org.aspectj.lang.ProceedingJoinPoint;
 import org.aspectj.lang.annotation.Around;
 import org.aspectj.lang.annotation.Aspect;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 import org.springframework.web.context.request.RequestContextHolder;
 import org.springframework.web.context.request.ServletRequestAttributes;
 
 @Aspect
 @Component
-@RequiredArgsConstructor
 public class RateLimitingAspect {
 
-    private final Map<String, Bucket> buckets;
-    private final Bandwidth limit;
+    private final BucketStore bucketStore;
+    private final BucketConfiguration configuration;
+    private final long bytesPerToken;
+    private final long maxCost;
+
+    public RateLimitingAspect(BucketStore bucketStore,
+                              BucketConfiguration configuration,
+                              @Value("${app.ratelimiting.bytes-per-token}") long bytesPerToken) {
+        this.bucketStore = bucketStore;
+        this.configuration = configuration;
+        this.bytesPerToken = bytesPerToken;
+        // A request costing more than the smallest bucket could never be served
+        this.maxCost = Arrays.stream(configuration.getBandwidths())
+                .mapToLong(Bandwidth::getCapacity)
+                .min()
+                .orElse(1);
+    }
 
     @Around("@annotation(com.document.conversion.annotation.RateLimit)")
     public Object rateLimit(ProceedingJoinPoint joinPoint) throws Throwable {
@@ -29,16 +45,32 @@ public class RateLimitingAspect {
                 .currentRequestAttributes()).getRequest();
 
         String clientId = getClientId(request);
-        Bucket bucket = buckets.computeIfAbsent(clientId,
-                k -> Bucket.builder().addLimit(limit).build());
+        Bucket bucket = bucketStore.getBucket(clientId, configuration);
 
-        if (bucket.tryConsume(1)) {
+        if (bucket.tryConsume(getCost(request))) {
             return joinPoint.proceed();
         } else {
             throw new RateLimitExceededException("Rate limit exceeded for client: " + clientId);
         }
     }
 
+    /**
+     * Conversion cost grows with the upload, so a request costs one token per started
+     * {@code bytes-per-token} of body. A chunked upload declares no length, so it is
+     * charged the largest cost rather than slipping through at the price of an empty one.
+     */
+    long getCost(HttpServletRequest request) {
+        long contentLength = request.getContentLengthLong();
+        if (contentLength < 0) {
+            return maxCost;
+        }
+        if (contentLength == 0) {
+            return 1;
+        }
+        long cost = (contentLength + bytesPerToken - 1) / bytesPerToken;
+        return Math.min(cost, maxCost);
+    }
+
     private String getClientId(HttpServletRequest request) {
         // In a production environment, this should be replaced with a more robust
         // client identification mechanism (e.g., API key, JWT token)
@@ -1,9 +1,10 @@
 package com.document.conversion.config;
 
 import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.cache.CacheManager;
 import org.springframework.cache.caffeine.CaffeineCacheManager;
-import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.cache.transaction.TransactionAwareCacheManagerProxy;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
@@ -12,11 +13,30 @@ import java.util.concurrent.TimeUnit;
 @Configuration
 public class CacheConfig {
 
+    public static final String DOCUMENT_STATUS_CACHE = "documentStatusManager";
+
+    private final long documentStatusMaximumSize;
+    private final long documentStatusExpireAfterWrite;
+
+    public CacheConfig(
+            @Value("${app.cache.document-status.maximum-size}") long documentStatusMaximumSize,
+            @Value("${app.cache.document-status.expire-after-write-mins}") long documentStatusExpireAfterWrite) {
+        this.documentStatusMaximumSize = documentStatusMaximumSize;
+        this.documentStatusExpireAfterWrite = documentStatusExpireAfterWrite;
+    }
+
     @Bean
     public CacheManager cacheManager() {
-        CaffeineCacheManager cacheManager = new CaffeineCacheManager("documentStatusManager");
+        // Entries are written through on every status transition. A status read from the database
+        // can still be cached just after a newer transition was written through, so entries expire
+        // a fixed time after their last write rather than living on while they are polled. Stats
+        // are exported by the actuator cache metrics.
+        CaffeineCacheManager cacheManager = new CaffeineCacheManager(DOCUMENT_STATUS_CACHE);
         cacheManager.setCaffeine(Caffeine.newBuilder()
-                .expireAfterWrite(1, TimeUnit.MINUTES));
-        return cacheManager;
+                .maximumSize(documentStatusMaximumSize)
+                .expireAfterWrite(documentStatusExpireAfterWrite, TimeUnit.MINUTES)
+                .recordStats());
+        // Writes made inside a transaction only reach the cache once it commits
+        return new TransactionAwareCacheManagerProxy(cacheManager);
     }
 }
@@ -0,0 +1,49 @@
+package com.document.conversion.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+@Configuration
+public class ConversionExecutorConfig {
+
+    private final int renderThreads;
+    private final int encodeThreads;
+    private final int previewThreads;
+
+    public ConversionExecutorConfig(@Value("${app.conversion.render-threads}") int renderThreads,
+                                    @Value("${app.png.encode-threads}") int encodeThreads,
+                                    @Value("${app.preview.threads}") int previewThreads) {
+        // 0 means one worker per available core
+        this.renderThreads = renderThreads > 0 ? renderThreads : Runtime.getRuntime().availableProcessors();
+        this.encodeThreads = encodeThreads > 0 ? encodeThreads : Runtime.getRuntime().availableProcessors();
+        this.previewThreads = previewThreads;
+    }
+
+    @Bean(destroyMethod = "shutdownNow")
+    public ThreadPoolExecutor pageRenderExecutor() {
+        return new ThreadPoolExecutor(renderThreads, renderThreads, 0L, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(), new CustomizableThreadFactory("page-render-"));
+    }
+
+    // Separate from the render pool, whose workers block on the chunks they hand out here
+    @Bean(destroyMethod = "shutdownNow")
+    public ThreadPoolExecutor pngEncodeExecutor() {
+        return new ThreadPoolExecutor(encodeThreads, encodeThreads, 0L, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(), new CustomizableThreadFactory("png-encode-"));
+    }
+
+    // No queue: when every preview worker is busy the submission is rejected and the upload
+    // goes ahead without a preview instead of waiting behind other requests
+    @Bean(destroyMethod = "shutdownNow")
+    public ThreadPoolExecutor previewExecutor() {
+        return new ThreadPoolExecutor(previewThreads, previewThreads, 0L, TimeUnit.MILLISECONDS,
+                new SynchronousQueue<>(), new CustomizableThreadFactory("preview-"));
+    }
+}
@@ -0,0 +1,39 @@
+package com.document.conversion.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationEnvironmentPreparedEvent;
+import org.springframework.context.ApplicationListener;
+import org.springframework.util.StringUtils;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * PDFBox scans the system fonts on the first render that needs a font mapping and keeps the result
+ * in a cache file, in the user's home directory by default. Pointing it at a configured directory
+ * lets the cache built into the image, or by an earlier process, be reused instead of rebuilt.
+ * <p>
+ * PDFBox reads the location once, when its font mapper is first used, so it is set as soon as the
+ * environment is prepared, before the context creates any bean that could touch PDFBox.
+ */
+@Slf4j
+public class PdfBoxFontCacheInitializer implements ApplicationListener<ApplicationEnvironmentPreparedEvent> {
+
+    private static final String FONT_CACHE_PROPERTY = "pdfbox.fontcache";
+
+    @Override
+    public void onApplicationEvent(ApplicationEnvironmentPreparedEvent event) {
+        String fontCacheDir = event.getEnvironment().getProperty("app.pdf.font-cache-dir");
+        // An explicit -Dpdfbox.fontcache wins
+        if (!StringUtils.hasText(fontCacheDir) || System.getProperty(FONT_CACHE_PROPERTY) != null) {
+            return;
+        }
+        try {
+            Files.createDirectories(Path.of(fontCacheDir));
+            System.setProperty(FONT_CACHE_PROPERTY, fontCacheDir);
+        } catch (IOException e) {
+            log.warn("Could not create the PDFBox font cache directory {}, using the default location", fontCacheDir, e);
+        }
+    }
+}
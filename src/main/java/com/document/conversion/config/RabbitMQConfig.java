@@ -1,18 +1,31 @@
 package com.document.conversion.config;
 
 import org.springframework.amqp.core.*;
+import com.document.conversion.service.queue.InFlightDeliveryCounter;
+import com.document.conversion.service.queue.RabbitConversionQueue;
+import org.springframework.amqp.rabbit.config.SimpleRabbitListenerContainerFactory;
 import org.springframework.amqp.rabbit.connection.ConnectionFactory;
 import org.springframework.amqp.rabbit.core.RabbitTemplate;
 import org.springframework.amqp.support.converter.Jackson2JsonMessageConverter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.amqp.RabbitProperties;
+import org.springframework.boot.autoconfigure.amqp.SimpleRabbitListenerContainerFactoryConfigurer;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 
 @Configuration
+@ConditionalOnProperty(value = "app.messaging.queue", havingValue = "rabbit", matchIfMissing = true)
 public class RabbitMQConfig {
 
     public static final String QUEUE_DOCUMENT_CONVERSION = "document-conversion-queue";
     public static final String EXCHANGE_DOCUMENT_CONVERSION = "document-conversion-exchange";
     public static final String ROUTING_KEY_DOCUMENT_CONVERSION = "document.conversion";
+    // Large documents get their own lane so they cannot hold up small ones
+    public static final String QUEUE_DOCUMENT_CONVERSION_LARGE = "document-conversion-queue.large";
+    public static final String ROUTING_KEY_DOCUMENT_CONVERSION_LARGE = "document.conversion.large";
+    public static final String LARGE_LANE_CONTAINER_FACTORY = "largeLaneContainerFactory";
 
     @Bean
     public Queue documentConversionQueue() {
@@ -22,6 +35,14 @@ public class RabbitMQConfig {
                 .build();
     }
 
+    @Bean
+    public Queue largeDocumentConversionQueue() {
+        return QueueBuilder.durable(QUEUE_DOCUMENT_CONVERSION_LARGE)
+                .deadLetterExchange(EXCHANGE_DOCUMENT_CONVERSION + ".dlx")
+                .deadLetterRoutingKey(ROUTING_KEY_DOCUMENT_CONVERSION + ".dlq")
+                .build();
+    }
+
     @Bean
     public Queue deadLetterQueue() {
         return QueueBuilder.durable(QUEUE_DOCUMENT_CONVERSION + ".dlq").build();
@@ -44,6 +65,13 @@ public class RabbitMQConfig {
                 .with(ROUTING_KEY_DOCUMENT_CONVERSION);
     }
 
+    @Bean
+    public Binding bindingLargeDocumentConversion() {
+        return BindingBuilder.bind(largeDocumentConversionQueue())
+                .to(documentConversionExchange())
+                .with(ROUTING_KEY_DOCUMENT_CONVERSION_LARGE);
+    }
+
     @Bean
     public Binding deadLetterBinding() {
         return BindingBuilder.bind(deadLetterQueue())
@@ -56,6 +84,73 @@ public class RabbitMQConfig {
         return new Jackson2JsonMessageConverter();
     }
 
+    @Bean
+    public ThreadPoolTaskExecutor conversionListenerExecutor(RabbitProperties rabbitProperties) {
+        RabbitProperties.SimpleContainer container = rabbitProperties.getListener().getSimple();
+        return listenerExecutor(container.getConcurrency(), container.getMaxConcurrency(), "conversion-listener-");
+    }
+
+    @Bean
+    public InFlightDeliveryCounter smallLaneDeliveries() {
+        return new InFlightDeliveryCounter();
+    }
+
+    @Bean
+    public SimpleRabbitListenerContainerFactory rabbitListenerContainerFactory(
+            SimpleRabbitListenerContainerFactoryConfigurer configurer,
+            ConnectionFactory connectionFactory,
+            ThreadPoolTaskExecutor conversionListenerExecutor,
+            InFlightDeliveryCounter smallLaneDeliveries) {
+        // Small lane: concurrency and prefetch come from spring.rabbitmq.listener.simple.*
+        SimpleRabbitListenerContainerFactory factory = new SimpleRabbitListenerContainerFactory();
+        configurer.configure(factory, connectionFactory);
+        factory.setTaskExecutor(conversionListenerExecutor);
+        // Only the lane's own container is counted, not the consumer stealing from the large lane.
+        // No retry is configured, so there is no other advice to keep
+        factory.setContainerCustomizer(container -> {
+            if (RabbitConversionQueue.CONVERSION_LISTENER_ID.equals(container.getListenerId())) {
+                container.setAdviceChain(smallLaneDeliveries);
+            }
+        });
+        return factory;
+    }
+
+    @Bean
+    public ThreadPoolTaskExecutor largeLaneListenerExecutor(
+            @Value("${app.conversion.lanes.large.concurrency}") int concurrency,
+            @Value("${app.conversion.lanes.large.max-concurrency}") int maxConcurrency) {
+        return listenerExecutor(concurrency, maxConcurrency, "conversion-listener-large-");
+    }
+
+    @Bean(LARGE_LANE_CONTAINER_FACTORY)
+    public SimpleRabbitListenerContainerFactory largeLaneContainerFactory(
+            SimpleRabbitListenerContainerFactoryConfigurer configurer,
+            ConnectionFactory connectionFactory,
+            ThreadPoolTaskExecutor largeLaneListenerExecutor,
+            @Value("${app.conversion.lanes.large.concurrency}") int concurrency,
+            @Value("${app.conversion.lanes.large.max-concurrency}") int maxConcurrency,
+            @Value("${app.conversion.lanes.large.prefetch}") int prefetch) {
+        SimpleRabbitListenerContainerFactory factory = new SimpleRabbitListenerContainerFactory();
+        configurer.configure(factory, connectionFactory);
+        factory.setConcurrentConsumers(concurrency);
+        factory.setMaxConcurrentConsumers(Math.max(concurrency, maxConcurrency));
+        factory.setPrefetchCount(prefetch);
+        factory.setTaskExecutor(largeLaneListenerExecutor);
+        return factory;
+    }
+
+    private static ThreadPoolTaskExecutor listenerExecutor(int concurrency, Integer maxConcurrency, String threadNamePrefix) {
+        // Every consumer holds one thread for its whole life; the extra thread is for the
+        // lane's consumer that steals from the other lane
+        int threads = Math.max(concurrency, maxConcurrency != null ? maxConcurrency : 0) + 1;
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(threads);
+        executor.setMaxPoolSize(threads);
+        executor.setQueueCapacity(0);
+        executor.setThreadNamePrefix(threadNamePrefix);
+        return executor;
+    }
+
     @Bean
     public RabbitTemplate rabbitTemplate(ConnectionFactory connectionFactory,
                                          Jackson2JsonMessageConverter messageConverter) {
@@ -1,42 +1,67 @@
 package com.document.conversion.config;
 
+import com.document.conversion.service.ratelimit.BucketStore;
+import com.document.conversion.service.ratelimit.LocalBucketStore;
+import com.document.conversion.service.ratelimit.ProxyManagerBucketStore;
 import io.github.bucket4j.Bandwidth;
-import io.github.bucket4j.Bucket;
+import io.github.bucket4j.BucketConfiguration;
+import io.github.bucket4j.distributed.proxy.ProxyManager;
 
 import java.time.Duration;
-import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
 
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
 @Configuration
+@Slf4j
 public class RateLimitConfig {
 
     private final long bucketCapacity;
     private final long refillTokens;
     private final long refillDuration;
+    private final long localMaximumSize;
+    private final long localExpireAfterAccess;
 
     public RateLimitConfig(
             @Value("${app.ratelimiting.bucket-capacity}") long bucketCapacity,
             @Value("${app.ratelimiting.refill-tokens}") long refillTokens,
-            @Value("${app.ratelimiting.refill-duration-mins}") long refillDuration) {
+            @Value("${app.ratelimiting.refill-duration-mins}") long refillDuration,
+            @Value("${app.ratelimiting.local.maximum-size}") long localMaximumSize,
+            @Value("${app.ratelimiting.local.expire-after-access-mins}") long localExpireAfterAccess) {
         this.bucketCapacity = bucketCapacity;
         this.refillTokens = refillTokens;
         this.refillDuration = refillDuration;
+        this.localMaximumSize = localMaximumSize;
+        this.localExpireAfterAccess = localExpireAfterAccess;
     }
 
+    /**
+     * Uses the shared store when a {@code ProxyManager<String>} bean for a distributed backend is
+     * present, and bounded in-process buckets otherwise.
+     */
     @Bean
-    public Map<String, Bucket> buckets() {
-        return new ConcurrentHashMap<>();
+    public BucketStore bucketStore(ObjectProvider<ProxyManager<String>> proxyManager) {
+        ProxyManager<String> shared = proxyManager.getIfAvailable();
+        if (shared != null) {
+            log.info("Rate limit buckets are shared through {}", shared.getClass().getSimpleName());
+            return new ProxyManagerBucketStore(shared);
+        }
+        // Evicting a bucket before it could have refilled would reset the client's limit
+        long refillMins = refillDuration * ((bucketCapacity + refillTokens - 1) / refillTokens);
+        Duration expireAfterAccess = Duration.ofMinutes(Math.max(localExpireAfterAccess, refillMins));
+        return new LocalBucketStore(localMaximumSize, expireAfterAccess);
     }
 
     @Bean
-    public Bandwidth limit() {
-        return Bandwidth.builder()
-                .capacity(bucketCapacity)
-                .refillIntervally(refillTokens, Duration.ofMinutes(refillDuration))
+    public BucketConfiguration rateLimitConfiguration() {
+        return BucketConfiguration.builder()
+                .addLimit(Bandwidth.builder()
+                        .capacity(bucketCapacity)
+                        .refillIntervally(refillTokens, Duration.ofMinutes(refillDuration))
+                        .build())
                 .build();
     }
 }
@@ -1,19 +1,28 @@
 package com.document.conversion.controller;
 
+import com.document.conversion.annotation.AdmissionControl;
 import com.document.conversion.annotation.RateLimit;
+import com.document.conversion.model.BatchConversionRequest;
+import com.document.conversion.model.BatchConversionResponse;
 import com.document.conversion.model.ConversionRequest;
 import com.document.conversion.model.ConversionResponse;
+import com.document.conversion.model.StoredFile;
+import com.document.conversion.model.StreamingConversionRequest;
 import com.document.conversion.service.DocumentService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.core.io.Resource;
 import org.springframework.http.*;
 import org.springframework.web.bind.annotation.*;
 
+import java.io.IOException;
+import java.time.Duration;
 import java.util.UUID;
 
 @RestController
@@ -23,23 +32,67 @@ import java.util.UUID;
 public class DocumentConversionController {
 
     private final DocumentService documentService;
+    private final DownloadResponseBuilder downloadResponseBuilder;
 
     @Operation(
             summary = "Submit document for conversion",
-            description = "Upload a document and initiate the conversion process to the specified format"
+            description = "Upload a document and initiate the conversion process to the specified format. "
+                    + "With preview=true a first-page thumbnail is rendered before responding, when it fits the preview budget"
     )
     @ApiResponses({
             @ApiResponse(responseCode = "202", description = "Conversion request accepted"),
             @ApiResponse(responseCode = "400", description = "Invalid request parameters"),
-            @ApiResponse(responseCode = "429", description = "Rate limit exceeded")
+            @ApiResponse(responseCode = "429", description = "Rate limit exceeded"),
+            @ApiResponse(responseCode = "503", description = "Conversion backlog is full, retry after the Retry-After delay")
     })
     @PostMapping(value = "/convert", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    @AdmissionControl
     @RateLimit
     public ResponseEntity<ConversionResponse> submitConversion(@Valid @ModelAttribute ConversionRequest request) {
         ConversionResponse response = documentService.submitConversion(request);
         return ResponseEntity.accepted().body(response);
     }
 
+    @Operation(
+            summary = "Submit a document as the raw request body",
+            description = "Stream a PDF as the request body, with the file name and options as query parameters. "
+                    + "The body is written straight into storage instead of being buffered as a multipart part first"
+    )
+    @ApiResponses({
+            @ApiResponse(responseCode = "202", description = "Conversion request accepted"),
+            @ApiResponse(responseCode = "400", description = "Invalid request parameters or document"),
+            @ApiResponse(responseCode = "429", description = "Rate limit exceeded"),
+            @ApiResponse(responseCode = "503", description = "Conversion backlog is full, retry after the Retry-After delay")
+    })
+    @PostMapping(value = "/convert/stream", consumes = {MediaType.APPLICATION_PDF_VALUE, MediaType.APPLICATION_OCTET_STREAM_VALUE})
+    @AdmissionControl
+    @RateLimit
+    public ResponseEntity<ConversionResponse> submitStreamingConversion(@Valid @ModelAttribute StreamingConversionRequest request,
+                                                                        HttpServletRequest httpRequest) throws IOException {
+        StoredFile storedFile = documentService.storeUpload(request.getFileName(), httpRequest.getInputStream(),
+                httpRequest.getContentLengthLong());
+        ConversionResponse response = documentService.submitStoredConversion(request, storedFile);
+        return ResponseEntity.accepted().body(response);
+    }
+
+    @Operation(
+            summary = "Submit documents for conversion in one batch",
+            description = "Upload several documents at once and initiate their conversion to the specified format"
+    )
+    @ApiResponses({
+            @ApiResponse(responseCode = "202", description = "Conversion requests accepted"),
+            @ApiResponse(responseCode = "400", description = "Invalid request parameters"),
+            @ApiResponse(responseCode = "429", description = "Rate limit exceeded"),
+            @ApiResponse(responseCode = "503", description = "Conversion backlog is full, retry after the Retry-After delay")
+    })
+    @PostMapping(value = "/convert/batch", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    @AdmissionControl
+    @RateLimit
+    public ResponseEntity<BatchConversionResponse> submitBatchConversion(@Valid @ModelAttribute BatchConversionRequest request) {
+        BatchConversionResponse response = documentService.submitBatchConversion(request);
+        return ResponseEntity.accepted().body(response);
+    }
+
     @Operation(
             summary = "Get conversion status",
             description = "Check the current status of a document conversion request"
@@ -55,24 +108,59 @@ public class DocumentConversionController {
         return ResponseEntity.ok(documentService.getStatus(documentId));
     }
 
+    @Operation(
+            summary = "Cancel conversion",
+            description = "Cancel a pending or running conversion. A running conversion stops at its next page. "
+                    + "Documents that reuse the conversion are not affected; it carries on for them"
+    )
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "Conversion cancelled"),
+            @ApiResponse(responseCode = "404", description = "Document not found"),
+            @ApiResponse(responseCode = "409", description = "Conversion already finished")
+    })
+    @DeleteMapping("/{documentId}")
+    public ResponseEntity<ConversionResponse> cancelConversion(
+            @Parameter(description = "Document ID", required = true)
+            @PathVariable UUID documentId) {
+        return ResponseEntity.ok(documentService.cancelConversion(documentId));
+    }
+
     @Operation(
             summary = "Download converted document",
-            description = "Download the converted document if the conversion is complete"
+            description = "Download the converted document if the conversion is complete. Supports HTTP Range requests"
     )
     @ApiResponses({
             @ApiResponse(responseCode = "200", description = "Document downloaded successfully"),
+            @ApiResponse(responseCode = "206", description = "Requested range of the document"),
             @ApiResponse(responseCode = "404", description = "Document not found"),
-            @ApiResponse(responseCode = "409", description = "Conversion not yet complete")
+            @ApiResponse(responseCode = "409", description = "Conversion not yet complete"),
+            @ApiResponse(responseCode = "416", description = "Requested range not satisfiable")
     })
     @GetMapping("/{documentId}/download")
-    public ResponseEntity<byte[]> downloadDocument(
+    public ResponseEntity<Resource> downloadDocument(
             @Parameter(description = "Document ID", required = true)
-            @PathVariable UUID documentId) {
-        byte[] document = documentService.getConvertedDocument(documentId);
+            @PathVariable UUID documentId,
+            HttpServletRequest request) throws IOException {
+        Resource document = documentService.getConvertedDocument(documentId);
+        return downloadResponseBuilder.build(document, "converted-document", request);
+    }
 
-        HttpHeaders headers = new HttpHeaders();
-        headers.setContentType(MediaType.APPLICATION_OCTET_STREAM);
-        headers.setContentDisposition(ContentDisposition.attachment().filename("converted-document").build());
-        return new ResponseEntity<>(document, headers, HttpStatus.OK);
+    @Operation(
+            summary = "Get document preview",
+            description = "Download the first-page PNG thumbnail rendered when the document was submitted with preview=true"
+    )
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "Preview downloaded successfully"),
+            @ApiResponse(responseCode = "404", description = "Document or preview not found")
+    })
+    @GetMapping("/{documentId}/preview")
+    public ResponseEntity<Resource> getPreview(
+            @Parameter(description = "Document ID", required = true)
+            @PathVariable UUID documentId) {
+        Resource preview = documentService.getPreview(documentId);
+        return ResponseEntity.ok()
+                .contentType(MediaType.IMAGE_PNG)
+                .cacheControl(CacheControl.maxAge(Duration.ofHours(1)).cachePrivate())
+                .body(preview);
     }
 }
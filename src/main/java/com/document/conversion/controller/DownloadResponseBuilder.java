@@ -0,0 +1,91 @@
+package com.document.conversion.controller;
+
+import jakarta.servlet.http.HttpServletRequest;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.Resource;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRange;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.MediaTypeFactory;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Builds streaming download responses. Large files are handed to the container's sendfile
+ * support when it is available; everything else is streamed by Spring's resource converters,
+ * which also take care of multi-range and unsatisfiable range requests.
+ */
+@Component
+@Slf4j
+public class DownloadResponseBuilder {
+
+    private static final String SENDFILE_SUPPORT_ATTR = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_FILENAME_ATTR = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_START_ATTR = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_END_ATTR = "org.apache.tomcat.sendfile.end";
+
+    private final long sendfileThreshold;
+
+    public DownloadResponseBuilder(@Value("${app.download.sendfile-threshold-bytes}") long sendfileThreshold) {
+        this.sendfileThreshold = sendfileThreshold;
+    }
+
+    public ResponseEntity<Resource> build(Resource resource, String downloadName, HttpServletRequest request)
+            throws IOException {
+        long length = resource.contentLength();
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaTypeFactory.getMediaType(resource).orElse(MediaType.APPLICATION_OCTET_STREAM));
+        headers.setContentDisposition(ContentDisposition.attachment().filename(downloadName).build());
+        headers.set(HttpHeaders.ACCEPT_RANGES, "bytes");
+
+        if (canSendfile(resource, length, request)) {
+            List<HttpRange> ranges = parseRanges(request);
+            if (ranges != null && ranges.isEmpty()) {
+                return sendfile(resource, 0, length - 1, length, headers, HttpStatus.OK, request);
+            }
+            if (ranges != null && ranges.size() == 1) {
+                HttpRange range = ranges.get(0);
+                long start = range.getRangeStart(length);
+                long end = range.getRangeEnd(length);
+                if (start <= end) {
+                    headers.set(HttpHeaders.CONTENT_RANGE, "bytes " + start + "-" + end + "/" + length);
+                    return sendfile(resource, start, end, length, headers, HttpStatus.PARTIAL_CONTENT, request);
+                }
+            }
+        }
+        return ResponseEntity.ok().headers(headers).body(resource);
+    }
+
+    private boolean canSendfile(Resource resource, long length, HttpServletRequest request) {
+        return Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORT_ATTR))
+                && resource.isFile()
+                && length >= sendfileThreshold;
+    }
+
+    private List<HttpRange> parseRanges(HttpServletRequest request) {
+        try {
+            return HttpRange.parseRanges(request.getHeader(HttpHeaders.RANGE));
+        } catch (IllegalArgumentException e) {
+            // Let the regular resource path answer with 416
+            return null;
+        }
+    }
+
+    private ResponseEntity<Resource> sendfile(Resource resource, long start, long end, long length,
+                                              HttpHeaders headers, HttpStatus status,
+                                              HttpServletRequest request) throws IOException {
+        request.setAttribute(SENDFILE_FILENAME_ATTR, resource.getFile().getCanonicalPath());
+        request.setAttribute(SENDFILE_START_ATTR, start);
+        // The container treats the end offset as exclusive
+        request.setAttribute(SENDFILE_END_ATTR, end + 1);
+        headers.setContentLength(end - start + 1);
+        log.debug("Serving {} bytes of {} ({} total) via sendfile", end - start + 1, resource.getFilename(), length);
+        return ResponseEntity.status(status).headers(headers).build();
+    }
+}
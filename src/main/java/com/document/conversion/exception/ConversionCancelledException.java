@@ -0,0 +1,7 @@
+package com.document.conversion.exception;
+
+public class ConversionCancelledException extends ConversionException {
+    public ConversionCancelledException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,7 @@
+package com.document.conversion.exception;
+
+public class ConversionNotCancellableException extends RuntimeException {
+    public ConversionNotCancellableException(String message) {
+        super(message);
+    }
+}
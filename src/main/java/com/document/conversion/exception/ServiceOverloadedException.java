@@ -0,0 +1,13 @@
+package com.document.conversion.exception;
+
+import lombok.Getter;
+
+@Getter
+public class ServiceOverloadedException extends RuntimeException {
+    private final long retryAfterSeconds;
+
+    public ServiceOverloadedException(String message, long retryAfterSeconds) {
+        super(message);
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+}
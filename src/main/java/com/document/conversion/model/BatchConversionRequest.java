@@ -0,0 +1,23 @@
+package com.document.conversion.model;
+
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.util.List;
+
+@Data
+@EqualsAndHashCode(callSuper = true)
+public class BatchConversionRequest extends RenderOptionsRequest {
+    public static final int MAX_FILES = 500;
+
+    @NotEmpty(message = "At least one file is required")
+    @Size(max = MAX_FILES, message = "At most " + MAX_FILES + " files can be submitted in one batch")
+    private List<MultipartFile> files;
+
+    @NotBlank(message = "Target format is required")
+    private String targetFormat;
+}
@@ -0,0 +1,14 @@
+package com.document.conversion.model;
+
+import java.util.List;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class BatchConversionResponse {
+    private List<ConversionResponse> documents;
+}
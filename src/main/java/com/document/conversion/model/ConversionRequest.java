@@ -3,13 +3,18 @@ package com.document.conversion.model;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
 import org.springframework.web.multipart.MultipartFile;
 
 @Data
-public class ConversionRequest {
+@EqualsAndHashCode(callSuper = true)
+public class ConversionRequest extends RenderOptionsRequest {
     @NotNull(message = "File is required")
     private MultipartFile file;
 
     @NotBlank(message = "Target format is required")
     private String targetFormat;
+
+    // Render a first-page thumbnail before responding, served from the preview endpoint
+    private boolean preview;
 }
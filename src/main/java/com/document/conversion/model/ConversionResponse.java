@@ -18,4 +18,27 @@ public class ConversionResponse {
     private LocalDateTime createdAt;
     private LocalDateTime updatedAt;
     private String errorMessage;
+    private boolean previewAvailable;
+
+    public static ConversionResponse fromDocument(Document document) {
+        return ConversionResponse.builder()
+                .documentId(document.getId())
+                .errorMessage(document.getErrorMessage())
+                .status(document.getStatus().name())
+                .createdAt(document.getCreatedAt())
+                .updatedAt(document.getUpdatedAt())
+                .previewAvailable(document.getPreviewFilePath() != null)
+                .build();
+    }
+
+    public static ConversionResponse fromView(DocumentStatusView view) {
+        return ConversionResponse.builder()
+                .documentId(view.getId())
+                .errorMessage(view.getErrorMessage())
+                .status(view.getStatus().name())
+                .createdAt(view.getCreatedAt())
+                .updatedAt(view.getUpdatedAt())
+                .previewAvailable(view.getPreviewFilePath() != null)
+                .build();
+    }
 }
@@ -1,13 +1,16 @@
 package com.document.conversion.model;
 
 import jakarta.persistence.Column;
+import jakarta.persistence.Embedded;
 import jakarta.persistence.Entity;
 import jakarta.persistence.EnumType;
 import jakarta.persistence.Enumerated;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
 import jakarta.persistence.Table;
+import jakarta.persistence.Version;
 
 import java.time.LocalDateTime;
 import java.util.UUID;
@@ -24,12 +27,25 @@ import org.hibernate.annotations.UpdateTimestamp;
 @NoArgsConstructor
 @AllArgsConstructor
 @Builder
-@Table(name = "documents")
+@Table(name = "documents", indexes = {
+        @Index(name = "idx_documents_conversion_key", columnList = "conversionKey"),
+        @Index(name = "idx_documents_duplicate_of", columnList = "duplicateOf"),
+        @Index(name = "idx_documents_status", columnList = "status"),
+        @Index(name = "idx_documents_created_at", columnList = "createdAt"),
+        @Index(name = "idx_documents_lease", columnList = "status, leaseExpiresAt"),
+        @Index(name = "idx_documents_last_accessed", columnList = "status, lastAccessedAt"),
+        @Index(name = "idx_documents_original_file", columnList = "originalFilePath"),
+        @Index(name = "idx_documents_converted_file", columnList = "convertedFilePath"),
+        @Index(name = "idx_documents_preview_file", columnList = "previewFilePath")
+})
 public class Document {
     @Id
     @GeneratedValue(strategy = GenerationType.UUID)
     private UUID id;
 
+    @Version
+    private Long version;
+
     @Column(nullable = false)
     private String originalFileName;
     private String convertedFileName;
@@ -41,11 +57,34 @@ public class Document {
 
     private String originalFilePath;
     private String convertedFilePath;
+    // First-page thumbnail rendered at submission, when one was requested and fit the budget
+    private String previewFilePath;
+    private Long originalFileSize;
+    private Long convertedFileSize;
+    // Last download of the converted file, or its completion before the first download
+    private LocalDateTime lastAccessedAt;
+    // Upload of the original, or the last identical upload that reused it; the original TTL runs from here
+    private LocalDateTime originalUsedAt;
+
+    @Embedded
+    private RenderOptions renderOptions;
+
+    // SHA-256 of the uploaded bytes; together with the target format it forms the conversion key
+    private String contentHash;
+    private String conversionKey;
+    // Set when this document reuses the conversion of an identical upload
+    private UUID duplicateOf;
 
     @Enumerated(EnumType.STRING)
     private ConversionStatus status = ConversionStatus.PENDING;
     private String errorMessage;
 
+    // Held by the worker converting the document and renewed while it runs; an expired lease
+    // means the worker died and the document can be handed to another one
+    private String leaseOwner;
+    private LocalDateTime leaseExpiresAt;
+    private int attempts;
+
     @CreationTimestamp
     private LocalDateTime createdAt;
     @UpdateTimestamp
@@ -55,7 +94,15 @@ public class Document {
         PENDING,
         IN_PROGRESS,
         COMPLETED,
-        FAILED
+        FAILED,
+        // Converted file removed by the retention sweeper, converted again when downloaded
+        EVICTED,
+        // Converted file removed after the original, so it cannot be converted again
+        EXPIRED,
+        // Stopped on request before it finished
+        CANCELLED,
+        // Stopped by the watchdog for running past the deadline of its target format
+        TIMED_OUT
     }
 }
 
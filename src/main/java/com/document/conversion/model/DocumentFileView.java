@@ -0,0 +1,18 @@
+package com.document.conversion.model;
+
+import java.util.UUID;
+
+/**
+ * Columns needed to serve a document's converted file or preview.
+ */
+public interface DocumentFileView {
+    UUID getId();
+
+    UUID getDuplicateOf();
+
+    Document.ConversionStatus getStatus();
+
+    String getConvertedFilePath();
+
+    String getPreviewFilePath();
+}
@@ -0,0 +1,21 @@
+package com.document.conversion.model;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Columns needed to answer a status request, fetched without loading the whole document.
+ */
+public interface DocumentStatusView {
+    UUID getId();
+
+    Document.ConversionStatus getStatus();
+
+    String getErrorMessage();
+
+    String getPreviewFilePath();
+
+    LocalDateTime getCreatedAt();
+
+    LocalDateTime getUpdatedAt();
+}
@@ -0,0 +1,48 @@
+package com.document.conversion.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.CreationTimestamp;
+
+/**
+ * Conversion message waiting to be relayed to the broker. Written in the same transaction as the
+ * document it queues, so a message exists exactly when its document was committed.
+ */
+@Entity
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Table(name = "outbox_messages", indexes = {
+        @Index(name = "idx_outbox_messages_created_at", columnList = "createdAt")
+})
+public class OutboxMessage {
+    @Id
+    @GeneratedValue(strategy = GenerationType.UUID)
+    private UUID id;
+
+    @Column(nullable = false)
+    private UUID documentId;
+    @Column(nullable = false)
+    private String routingKey;
+
+    // Set while a relay publishes the message; an expired claim belongs to a relay that died
+    private UUID claimToken;
+    private LocalDateTime claimedUntil;
+
+    @CreationTimestamp
+    private LocalDateTime createdAt;
+}
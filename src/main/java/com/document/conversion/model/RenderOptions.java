@@ -0,0 +1,59 @@
+package com.document.conversion.model;
+
+import jakarta.persistence.Embeddable;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+
+import java.util.StringJoiner;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Optional per-request render settings. Unset values fall back to the converter defaults.
+ */
+@Embeddable
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class RenderOptions {
+    private Integer dpi;
+    // 1-based and inclusive: "3", "2-5" or "4-" for everything from page 4
+    private String pageRange;
+    @Enumerated(EnumType.STRING)
+    private ImageType imageType;
+    // Pages that would render to more pixels are rendered at a lower DPI
+    private Long maxPixels;
+
+    public enum ImageType {
+        RGB,
+        GRAY,
+        BINARY
+    }
+
+    /**
+     * Canonical form of the settings that affect the output, empty when everything is default.
+     * Text extraction only depends on the page range.
+     */
+    public String conversionKey(boolean rendered) {
+        StringJoiner key = new StringJoiner(";");
+        if (pageRange != null) {
+            key.add("pages=" + pageRange);
+        }
+        if (rendered) {
+            if (dpi != null) {
+                key.add("dpi=" + dpi);
+            }
+            if (imageType != null) {
+                key.add("type=" + imageType);
+            }
+            if (maxPixels != null) {
+                key.add("maxPixels=" + maxPixels);
+            }
+        }
+        return key.toString();
+    }
+}
@@ -0,0 +1,68 @@
+package com.document.conversion.model;
+
+import com.document.conversion.exception.ConversionException;
+import com.document.conversion.service.converter.PageRange;
+import jakarta.validation.constraints.AssertTrue;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.Positive;
+import lombok.Data;
+import org.springframework.util.StringUtils;
+
+import java.util.Locale;
+
+/**
+ * Render options shared by the single and batch submission forms.
+ */
+@Data
+public abstract class RenderOptionsRequest {
+    @Min(value = 36, message = "DPI must be at least 36")
+    @Max(value = 600, message = "DPI must be at most 600")
+    private Integer dpi;
+
+    private String pageRange;
+
+    private String imageType;
+
+    @Positive(message = "Max pixels must be positive")
+    private Long maxPixels;
+
+    @AssertTrue(message = "Page range must look like 3, 2-5 or 4-")
+    public boolean isPageRangeValid() {
+        if (!StringUtils.hasText(pageRange)) {
+            return true;
+        }
+        try {
+            PageRange.parse(pageRange);
+            return true;
+        } catch (ConversionException e) {
+            return false;
+        }
+    }
+
+    @AssertTrue(message = "Image type must be one of rgb, gray or binary")
+    public boolean isImageTypeValid() {
+        if (!StringUtils.hasText(imageType)) {
+            return true;
+        }
+        try {
+            parseImageType();
+            return true;
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+    }
+
+    public RenderOptions toRenderOptions() {
+        return RenderOptions.builder()
+                .dpi(dpi)
+                .pageRange(StringUtils.hasText(pageRange) ? PageRange.parse(pageRange).toString() : null)
+                .imageType(StringUtils.hasText(imageType) ? parseImageType() : null)
+                .maxPixels(maxPixels)
+                .build();
+    }
+
+    private RenderOptions.ImageType parseImageType() {
+        return RenderOptions.ImageType.valueOf(imageType.trim().toUpperCase(Locale.ROOT));
+    }
+}
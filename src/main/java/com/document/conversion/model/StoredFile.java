@@ -0,0 +1,12 @@
+package com.document.conversion.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+@Data
+@AllArgsConstructor
+public class StoredFile {
+    private String fileName;
+    private String contentHash;
+    private long size;
+}
@@ -0,0 +1,18 @@
+package com.document.conversion.model;
+
+import jakarta.validation.constraints.NotBlank;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+
+@Data
+@EqualsAndHashCode(callSuper = true)
+public class StreamingConversionRequest extends RenderOptionsRequest {
+    // The body carries only the document bytes, so the name comes as a parameter
+    @NotBlank(message = "File name is required")
+    private String fileName;
+
+    @NotBlank(message = "Target format is required")
+    private String targetFormat;
+
+    private boolean preview;
+}
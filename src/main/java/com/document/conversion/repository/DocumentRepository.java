@@ -1,12 +1,194 @@
 package com.document.conversion.repository;
 
 import com.document.conversion.model.Document;
+import com.document.conversion.model.DocumentFileView;
+import com.document.conversion.model.DocumentStatusView;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
 import java.util.UUID;
 
+import jakarta.persistence.LockModeType;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 @Repository
 public interface DocumentRepository extends JpaRepository<Document, UUID> {
+
+    // Only conversions that still have their original, so a duplicate never outlives the file it shares
+    Optional<Document> findFirstByConversionKeyAndDuplicateOfIsNullAndStatusAndOriginalFilePathIsNotNullOrderByCreatedAtDesc(
+            String conversionKey, Document.ConversionStatus status);
+
+    Optional<Document> findFirstByConversionKeyAndDuplicateOfIsNullAndStatusIn(String conversionKey,
+                                                                               Collection<Document.ConversionStatus> statuses);
+
+    Optional<DocumentStatusView> findStatusViewById(UUID id);
+
+    Optional<DocumentFileView> findFileViewById(UUID id);
+
+    @Query("select d.id from Document d where d.duplicateOf = :duplicateOf")
+    List<UUID> findIdsByDuplicateOf(UUID duplicateOf);
+
+    Optional<Document> findFirstByDuplicateOfAndStatusInOrderByCreatedAt(UUID duplicateOf,
+                                                                          Collection<Document.ConversionStatus> statuses);
+
+    @Query("select d.id from Document d where d.status = :status and d.leaseExpiresAt < :now "
+            + "order by d.leaseExpiresAt")
+    List<UUID> findIdsWithExpiredLease(Document.ConversionStatus status, LocalDateTime now, Limit limit);
+
+    // Retention candidates are primaries only, duplicates share the files of their primary
+
+    @Query("select d from Document d where d.duplicateOf is null and d.status = :status "
+            + "and d.lastAccessedAt < :accessedBefore order by d.lastAccessedAt")
+    List<Document> findLeastRecentlyAccessed(Document.ConversionStatus status, LocalDateTime accessedBefore,
+                                             Limit limit);
+
+    // Documents stored before originalUsedAt was recorded count from their upload
+    @Query("select d from Document d where d.duplicateOf is null and d.originalFilePath is not null "
+            + "and d.status not in :excluded and coalesce(d.originalUsedAt, d.createdAt) < :usedBefore "
+            + "order by d.createdAt")
+    List<Document> findWithOriginalUnusedSince(Collection<Document.ConversionStatus> excluded,
+                                               LocalDateTime usedBefore, Limit limit);
+
+    // The stored files among the keys that a document still points at
+    @Query("select d.originalFilePath from Document d where d.originalFilePath in :keys "
+            + "union select d.convertedFilePath from Document d where d.convertedFilePath in :keys "
+            + "union select d.previewFilePath from Document d where d.previewFilePath in :keys")
+    List<String> findReferencedFilePaths(Collection<String> keys);
+
+    @Query("select d.previewFilePath from Document d where (d.id = :id or d.duplicateOf = :id) "
+            + "and d.previewFilePath is not null")
+    List<String> findPreviewFilePaths(UUID id);
+
+    @Query("select coalesce(sum(d.originalFileSize), 0) from Document d "
+            + "where d.duplicateOf is null and d.originalFilePath is not null")
+    long sumOriginalFileSize();
+
+    @Query("select coalesce(sum(d.convertedFileSize), 0) from Document d "
+            + "where d.duplicateOf is null and d.status = :status")
+    long sumConvertedFileSize(Document.ConversionStatus status);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select d from Document d where d.id = :id")
+    Optional<Document> findByIdForUpdate(UUID id);
+
+    // The narrow updates below only touch the row when it is still in the expected status, and
+    // bump the version so that concurrent whole-entity saves fail instead of overwriting them.
+    // They clear the persistence context, so documents loaded earlier become detached
+
+    @Transactional
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("update Document d set d.status = :to, d.leaseOwner = :owner, d.leaseExpiresAt = :leaseExpiresAt, "
+            + "d.attempts = d.attempts + 1, d.updatedAt = :now, d.version = d.version + 1 "
+            + "where d.id = :id and d.status = :from")
+    int claim(UUID id, Document.ConversionStatus from, Document.ConversionStatus to, String owner,
+              LocalDateTime leaseExpiresAt, LocalDateTime now);
+
+    @Transactional
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("update Document d set d.leaseExpiresAt = :leaseExpiresAt, d.version = d.version + 1 "
+            + "where d.id = :id and d.status = :status and d.leaseOwner = :owner")
+    int renewLease(UUID id, Document.ConversionStatus status, String owner, LocalDateTime leaseExpiresAt);
+
+    @Transactional
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("update Document d set d.status = :to, d.convertedFilePath = :convertedFilePath, "
+            + "d.convertedFileSize = :convertedFileSize, d.errorMessage = :errorMessage, d.leaseOwner = null, "
+            + "d.leaseExpiresAt = null, d.lastAccessedAt = :now, d.updatedAt = :now, d.version = d.version + 1 "
+            + "where d.id = :id and d.status = :from and d.leaseOwner = :owner")
+    int updateResult(UUID id, Document.ConversionStatus from, Document.ConversionStatus to, String owner,
+                     String convertedFilePath, Long convertedFileSize, String errorMessage, LocalDateTime now);
+
+    @Transactional
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("update Document d set d.status = :to, d.errorMessage = :errorMessage, d.leaseOwner = null, "
+            + "d.leaseExpiresAt = null, d.updatedAt = :now, d.version = d.version + 1 "
+            + "where d.id = :id and d.status = :from and d.leaseExpiresAt < :now")
+    int releaseExpiredLease(UUID id, Document.ConversionStatus from, Document.ConversionStatus to,
+                            String errorMessage, LocalDateTime now);
+
+    @Transactional
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("update Document d set d.status = :to, d.errorMessage = :errorMessage, d.leaseOwner = null, "
+            + "d.leaseExpiresAt = null, d.updatedAt = :now, d.version = d.version + 1 "
+            + "where d.id = :id and d.status in :from")
+    int cancel(UUID id, Collection<Document.ConversionStatus> from, Document.ConversionStatus to,
+               String errorMessage, LocalDateTime now);
+
+    @Transactional
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("update Document d set d.originalFilePath = null, d.originalFileSize = null, d.previewFilePath = null, "
+            + "d.version = d.version + 1 where d.id = :id")
+    int releaseFiles(UUID id);
+
+    @Transactional
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("update Document d set d.duplicateOf = :to, d.version = d.version + 1 where d.duplicateOf = :from")
+    int moveDuplicates(UUID from, UUID to);
+
+    @Transactional
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("update Document d set d.duplicateOf = null, d.status = :to, d.updatedAt = :now, "
+            + "d.version = d.version + 1 where d.id = :id and d.status in :from")
+    int promote(UUID id, Collection<Document.ConversionStatus> from, Document.ConversionStatus to,
+                LocalDateTime now);
+
+    @Transactional
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("update Document d set d.status = :status, d.convertedFilePath = :convertedFilePath, "
+            + "d.errorMessage = :errorMessage, d.updatedAt = :now, d.version = d.version + 1 "
+            + "where d.duplicateOf = :duplicateOf and d.status <> :cancelled")
+    int updateDuplicates(UUID duplicateOf, Document.ConversionStatus status, String convertedFilePath,
+                         String errorMessage, LocalDateTime now, Document.ConversionStatus cancelled);
+
+    @Transactional
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("update Document d set d.lastAccessedAt = :now, d.version = d.version + 1 "
+            + "where d.id = :id and d.lastAccessedAt < :accessedBefore")
+    int updateLastAccessed(UUID id, LocalDateTime accessedBefore, LocalDateTime now);
+
+    @Transactional
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("update Document d set d.originalUsedAt = :now, d.lastAccessedAt = :now, d.version = d.version + 1 "
+            + "where d.id = :id and d.status = :status and d.originalFilePath = :originalFilePath")
+    int retainForDuplicate(UUID id, Document.ConversionStatus status, String originalFilePath, LocalDateTime now);
+
+    @Transactional
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("update Document d set d.status = :to, d.convertedFilePath = null, d.convertedFileSize = null, "
+            + "d.errorMessage = :errorMessage, d.updatedAt = :now, d.version = d.version + 1 "
+            + "where d.id = :id and d.status = :from and d.convertedFilePath = :convertedFilePath "
+            + "and d.lastAccessedAt < :accessedBefore")
+    int evictConvertedFile(UUID id, String convertedFilePath, LocalDateTime accessedBefore,
+                           Document.ConversionStatus from, Document.ConversionStatus to, String errorMessage,
+                           LocalDateTime now);
+
+    @Transactional
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("update Document d set d.status = :to, d.originalFilePath = null, d.previewFilePath = null, "
+            + "d.errorMessage = :errorMessage, d.updatedAt = :now, d.version = d.version + 1 "
+            + "where d.id = :id and d.status = :from and d.originalFilePath = :originalFilePath "
+            + "and coalesce(d.originalUsedAt, d.createdAt) < :usedBefore")
+    int releaseOriginalFile(UUID id, String originalFilePath, LocalDateTime usedBefore,
+                            Document.ConversionStatus from, Document.ConversionStatus to, String errorMessage,
+                            LocalDateTime now);
+
+    @Transactional
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("update Document d set d.originalFilePath = null, d.previewFilePath = null, d.version = d.version + 1 "
+            + "where d.duplicateOf = :duplicateOf")
+    int releaseDuplicateFiles(UUID duplicateOf);
+
+    @Transactional
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("update Document d set d.status = :to, d.errorMessage = null, d.attempts = 0, d.updatedAt = :now, "
+            + "d.version = d.version + 1 where d.id = :id and d.status = :from and d.originalFilePath is not null")
+    int requeue(UUID id, Document.ConversionStatus from, Document.ConversionStatus to, LocalDateTime now);
 }
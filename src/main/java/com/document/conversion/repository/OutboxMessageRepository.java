@@ -0,0 +1,44 @@
+package com.document.conversion.repository;
+
+import com.document.conversion.model.OutboxMessage;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+@Repository
+public interface OutboxMessageRepository extends JpaRepository<OutboxMessage, UUID> {
+
+    @Query("select m.id from OutboxMessage m where m.claimedUntil is null or m.claimedUntil < :now "
+            + "order by m.createdAt")
+    List<UUID> findIdsReadyForRelay(LocalDateTime now, Limit limit);
+
+    List<OutboxMessage> findByClaimTokenOrderByCreatedAt(UUID claimToken);
+
+    // Each update is its own short transaction. A row claimed by a relay on another replica in
+    // the meantime is skipped, so it is not published twice
+
+    @Transactional
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("update OutboxMessage m set m.claimToken = :claimToken, m.claimedUntil = :claimedUntil "
+            + "where m.id in :ids and (m.claimedUntil is null or m.claimedUntil < :now)")
+    int claim(Collection<UUID> ids, UUID claimToken, LocalDateTime claimedUntil, LocalDateTime now);
+
+    @Transactional
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("update OutboxMessage m set m.claimToken = null, m.claimedUntil = null where m.claimToken = :claimToken")
+    int releaseClaim(UUID claimToken);
+
+    @Transactional
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("delete from OutboxMessage m where m.claimToken = :claimToken")
+    int deleteClaimed(UUID claimToken);
+}
@@ -0,0 +1,133 @@
+package com.document.conversion.service;
+
+import com.document.conversion.exception.ServiceOverloadedException;
+import com.document.conversion.repository.OutboxMessageRepository;
+import com.document.conversion.service.queue.ConversionQueue;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Decides whether new submissions are accepted, from a periodically refreshed backlog: the
+ * messages waiting in the conversion queue, the conversions already running on this replica and
+ * the submissions whose messages the outbox has not relayed yet. The queue count comes from the
+ * queue itself, so with RabbitMQ every replica sees the same one. Running and unrelayed work no
+ * longer shows in the queue, but is just as much ahead of a new submission; without it a stalled
+ * relay or a slow batch would look like an empty backlog. Submissions are shed once that backlog
+ * reaches the high watermark and accepted again once it has drained to the low one, so the state
+ * does not flap around a single threshold.
+ */
+@Service
+@Slf4j
+public class AdmissionControlService {
+
+    public enum State {
+        ACCEPTING, SHEDDING
+    }
+
+    private final ConversionQueue conversionQueue;
+    private final OutboxMessageRepository outboxMessageRepository;
+    private final MetricsService metricsService;
+    private final boolean enabled;
+    private final long highWatermark;
+    private final long lowWatermark;
+    private final long minRetryAfterSeconds;
+    private final long maxRetryAfterSeconds;
+    private volatile State state = State.ACCEPTING;
+    private volatile long backlog;
+    private volatile double drainPerSecond;
+    private long sheddingSinceNanos;
+    private long sheddingSinceBacklog;
+
+    public AdmissionControlService(ConversionQueue conversionQueue,
+                                   OutboxMessageRepository outboxMessageRepository,
+                                   MetricsService metricsService,
+                                   @Value("${app.admission.enabled}") boolean enabled,
+                                   @Value("${app.admission.high-watermark}") long highWatermark,
+                                   @Value("${app.admission.low-watermark}") long lowWatermark,
+                                   @Value("${app.admission.retry-after-min}") Duration minRetryAfter,
+                                   @Value("${app.admission.retry-after-max}") Duration maxRetryAfter) {
+        if (lowWatermark > highWatermark) {
+            throw new IllegalArgumentException("app.admission.low-watermark must not exceed the high watermark");
+        }
+        this.conversionQueue = conversionQueue;
+        this.outboxMessageRepository = outboxMessageRepository;
+        this.metricsService = metricsService;
+        this.enabled = enabled;
+        this.highWatermark = highWatermark;
+        this.lowWatermark = lowWatermark;
+        this.minRetryAfterSeconds = minRetryAfter.toSeconds();
+        this.maxRetryAfterSeconds = maxRetryAfter.toSeconds();
+    }
+
+    @Scheduled(fixedDelayString = "${app.admission.refresh-interval-ms}")
+    public void refresh() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            update(currentBacklog(), System.nanoTime());
+        } catch (RuntimeException e) {
+            // Keep the last known state, a missed refresh only makes it a little older
+            log.warn("Could not refresh the conversion backlog", e);
+        }
+    }
+
+    // Relayed messages are deleted from the outbox, so every row is a submission still to be published
+    private long currentBacklog() {
+        return conversionQueue.pendingCount()
+                + metricsService.getActiveConversions().get()
+                + outboxMessageRepository.count();
+    }
+
+    synchronized void update(long currentBacklog, long nowNanos) {
+        backlog = currentBacklog;
+        if (state == State.ACCEPTING && currentBacklog >= highWatermark) {
+            log.warn("Conversion backlog is {}, shedding submissions", currentBacklog);
+            state = State.SHEDDING;
+            sheddingSinceNanos = nowNanos;
+            sheddingSinceBacklog = currentBacklog;
+        } else if (state == State.SHEDDING) {
+            // Nothing new is admitted while shedding, so the backlog shrinks at the rate the workers
+            // drain it. Without any progress yet, the rate of the previous episode is kept
+            long drained = sheddingSinceBacklog - currentBacklog;
+            if (drained > 0) {
+                drainPerSecond = drained * 1e9 / Math.max(nowNanos - sheddingSinceNanos, 1);
+            }
+            if (currentBacklog <= lowWatermark) {
+                log.info("Conversion backlog is {}, accepting submissions again", currentBacklog);
+                state = State.ACCEPTING;
+            }
+        }
+        metricsService.recordAdmission(state, currentBacklog);
+    }
+
+    /**
+     * @throws ServiceOverloadedException when submissions are being shed
+     */
+    public void checkAdmission() {
+        if (state == State.SHEDDING) {
+            metricsService.recordAdmissionRejected();
+            throw new ServiceOverloadedException("Conversion backlog is full, retry later", retryAfterSeconds());
+        }
+    }
+
+    /**
+     * Estimated time until the backlog has drained to the low watermark, with up to a quarter
+     * added at random so that rejected clients do not all come back at once.
+     */
+    long retryAfterSeconds() {
+        double rate = drainPerSecond;
+        long seconds = rate > 0 ? (long) Math.ceil((backlog - lowWatermark) / rate) : maxRetryAfterSeconds;
+        seconds += ThreadLocalRandom.current().nextLong(seconds / 4 + 1);
+        return Math.max(minRetryAfterSeconds, Math.min(seconds, maxRetryAfterSeconds));
+    }
+
+    public State getState() {
+        return state;
+    }
+}
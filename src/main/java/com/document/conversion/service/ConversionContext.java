@@ -0,0 +1,150 @@
+package com.document.conversion.service;
+
+import com.document.conversion.exception.ConversionCancelledException;
+import com.document.conversion.model.Document;
+import lombok.AccessLevel;
+import lombok.Getter;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Collects stage timings and sizes for a single conversion. Stages may be timed from several
+ * render workers at once; their times are summed and published when the context is closed.
+ * A context can also be cancelled from another thread, which converters notice between pages.
+ */
+public class ConversionContext implements AutoCloseable {
+
+    public enum Stage {
+        LOAD, RENDER, ENCODE, STORE, DB_UPDATE
+    }
+
+    @FunctionalInterface
+    public interface StageCallable<T, E extends Exception> {
+        T call() throws E;
+    }
+
+    @FunctionalInterface
+    public interface StageRunnable<E extends Exception> {
+        void run() throws E;
+    }
+
+    private static final ConversionContext UNTRACKED = new ConversionContext(null, "none", "none");
+
+    private final MetricsService metricsService;
+    @Getter(AccessLevel.PACKAGE)
+    private final String sourceFormat;
+    @Getter(AccessLevel.PACKAGE)
+    private final String targetFormat;
+    private final long startNanos = System.nanoTime();
+    private final Map<Stage, LongAdder> stageNanos = new EnumMap<>(Stage.class);
+    private final LongAdder pages = new LongAdder();
+    private final AtomicBoolean closed = new AtomicBoolean();
+    private final AtomicReference<Document.ConversionStatus> cancelledAs = new AtomicReference<>();
+    @Getter(AccessLevel.PACKAGE)
+    private volatile String cancelReason;
+    @Getter(AccessLevel.PACKAGE)
+    private volatile long inputBytes;
+    @Getter(AccessLevel.PACKAGE)
+    private volatile long outputBytes;
+    @Getter(AccessLevel.PACKAGE)
+    private volatile boolean succeeded;
+
+    ConversionContext(MetricsService metricsService, String sourceFormat, String targetFormat) {
+        this.metricsService = metricsService;
+        this.sourceFormat = sourceFormat;
+        this.targetFormat = targetFormat;
+        for (Stage stage : Stage.values()) {
+            stageNanos.put(stage, new LongAdder());
+        }
+    }
+
+    /**
+     * A context that records nothing, for converters invoked outside the conversion pipeline.
+     */
+    public static ConversionContext untracked() {
+        return UNTRACKED;
+    }
+
+    public <T, E extends Exception> T time(Stage stage, StageCallable<T, E> callable) throws E {
+        long start = System.nanoTime();
+        try {
+            return callable.call();
+        } finally {
+            stageNanos.get(stage).add(System.nanoTime() - start);
+        }
+    }
+
+    public <E extends Exception> void run(Stage stage, StageRunnable<E> runnable) throws E {
+        long start = System.nanoTime();
+        try {
+            runnable.run();
+        } finally {
+            stageNanos.get(stage).add(System.nanoTime() - start);
+        }
+    }
+
+    public void addPages(int count) {
+        pages.add(count);
+    }
+
+    public void setInputBytes(long inputBytes) {
+        this.inputBytes = inputBytes;
+    }
+
+    public void setOutputBytes(long outputBytes) {
+        this.outputBytes = outputBytes;
+    }
+
+    public void markSucceeded() {
+        this.succeeded = true;
+    }
+
+    /**
+     * Asks the conversion to stop, with CANCELLED or TIMED_OUT as the status it ends in. The
+     * first request wins.
+     *
+     * @return whether this call cancelled the conversion
+     */
+    public boolean cancel(Document.ConversionStatus status, String reason) {
+        if (this == UNTRACKED || !cancelledAs.compareAndSet(null, status)) {
+            return false;
+        }
+        cancelReason = reason;
+        return true;
+    }
+
+    /**
+     * Called by converters between pages, so a cancelled conversion stops at the next page.
+     */
+    public void checkCancelled() {
+        if (cancelledAs.get() != null) {
+            throw new ConversionCancelledException(cancelReason);
+        }
+    }
+
+    Document.ConversionStatus getCancelledAs() {
+        return cancelledAs.get();
+    }
+
+    long getStageNanos(Stage stage) {
+        return stageNanos.get(stage).sum();
+    }
+
+    long getPageCount() {
+        return pages.sum();
+    }
+
+    /**
+     * Publishes the collected metrics exactly once, whichever way the conversion ended.
+     */
+    @Override
+    public void close() {
+        if (metricsService != null && closed.compareAndSet(false, true)) {
+            metricsService.recordConversionEnd(this, System.nanoTime() - startNanos);
+        }
+    }
+}
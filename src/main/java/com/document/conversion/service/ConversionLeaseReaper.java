@@ -0,0 +1,40 @@
+package com.document.conversion.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Hands documents whose worker stopped renewing its lease back to the queue. Every replica runs
+ * the reaper; the release is a conditional update, so each expired lease is requeued once. That
+ * only holds across replicas that share one database.
+ */
+@Component
+@Slf4j
+public class ConversionLeaseReaper {
+
+    private final ConversionLeaseService conversionLeaseService;
+    private final int batchSize;
+
+    public ConversionLeaseReaper(ConversionLeaseService conversionLeaseService,
+                                 @Value("${app.conversion.lease.reaper-batch-size}") int batchSize) {
+        this.conversionLeaseService = conversionLeaseService;
+        this.batchSize = batchSize;
+    }
+
+    @Scheduled(fixedDelayString = "${app.conversion.lease.reaper-interval-ms}")
+    public void requeueExpiredLeases() {
+        List<UUID> expired = conversionLeaseService.findExpiredLeases(batchSize);
+        for (UUID documentId : expired) {
+            try {
+                conversionLeaseService.releaseExpiredLease(documentId);
+            } catch (RuntimeException e) {
+                log.error("Could not requeue document: {}", documentId, e);
+            }
+        }
+    }
+}
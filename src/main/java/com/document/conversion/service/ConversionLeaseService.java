@@ -0,0 +1,242 @@
+package com.document.conversion.service;
+
+import com.document.conversion.model.Document;
+import com.document.conversion.repository.DocumentRepository;
+import com.document.conversion.service.outbox.OutboxService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.lang.management.ManagementFactory;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ScheduledFuture;
+
+/**
+ * Owns the conversion state transitions of a document. Each transition is its own short
+ * transaction, so no connection is held while a document is being converted. A worker claims a
+ * document with a lease that it keeps renewing; leases that run out belong to dead workers and
+ * are released again by {@link ConversionLeaseReaper}.
+ */
+@Service
+@Slf4j
+public class ConversionLeaseService {
+
+    private static final List<Document.ConversionStatus> IN_FLIGHT_STATUSES =
+            List.of(Document.ConversionStatus.PENDING, Document.ConversionStatus.IN_PROGRESS);
+
+    private final DocumentRepository documentRepository;
+    private final DocumentStatusCache documentStatusCache;
+    private final OutboxService outboxService;
+    private final TaskScheduler taskScheduler;
+    private final Duration leaseDuration;
+    private final Duration heartbeatInterval;
+    private final int maxAttempts;
+    private final String owner;
+
+    public ConversionLeaseService(DocumentRepository documentRepository,
+                                  DocumentStatusCache documentStatusCache,
+                                  OutboxService outboxService,
+                                  TaskScheduler taskScheduler,
+                                  @Value("${app.conversion.lease.duration-ms}") long leaseDurationMs,
+                                  @Value("${app.conversion.lease.heartbeat-interval-ms}") long heartbeatIntervalMs,
+                                  @Value("${app.conversion.lease.max-attempts}") int maxAttempts) {
+        this.documentRepository = documentRepository;
+        this.documentStatusCache = documentStatusCache;
+        this.outboxService = outboxService;
+        this.taskScheduler = taskScheduler;
+        this.leaseDuration = Duration.ofMillis(leaseDurationMs);
+        this.heartbeatInterval = Duration.ofMillis(heartbeatIntervalMs);
+        this.maxAttempts = maxAttempts;
+        // pid@host, unique per worker process across replicas
+        this.owner = ManagementFactory.getRuntimeMXBean().getName();
+    }
+
+    /**
+     * Moves the document from PENDING to IN_PROGRESS under this worker's lease. Only one worker
+     * can win, so redelivered messages and concurrent replicas do not convert a document twice.
+     */
+    @Transactional
+    public boolean claim(Document document) {
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime leaseExpiresAt = now.plus(leaseDuration);
+        if (documentRepository.claim(document.getId(), Document.ConversionStatus.PENDING,
+                Document.ConversionStatus.IN_PROGRESS, owner, leaseExpiresAt, now) == 0) {
+            return false;
+        }
+        document.setStatus(Document.ConversionStatus.IN_PROGRESS);
+        document.setLeaseOwner(owner);
+        document.setLeaseExpiresAt(leaseExpiresAt);
+        document.setAttempts(document.getAttempts() + 1);
+        document.setUpdatedAt(now);
+        publishTransition(document);
+        return true;
+    }
+
+    /**
+     * Renews the lease every heartbeat interval until the returned future is cancelled. A lease
+     * that cannot be renewed was released or cancelled elsewhere, which is reported to
+     * onLeaseLost so the conversion can stop early.
+     */
+    public ScheduledFuture<?> startHeartbeat(UUID documentId, Runnable onLeaseLost) {
+        return taskScheduler.scheduleAtFixedRate(() -> renew(documentId, onLeaseLost),
+                Instant.now().plus(heartbeatInterval), heartbeatInterval);
+    }
+
+    private void renew(UUID documentId, Runnable onLeaseLost) {
+        try {
+            if (documentRepository.renewLease(documentId, Document.ConversionStatus.IN_PROGRESS, owner,
+                    LocalDateTime.now().plus(leaseDuration)) == 0) {
+                log.warn("document: {} lease was lost, its result will be discarded", documentId);
+                onLeaseLost.run();
+            }
+        } catch (RuntimeException e) {
+            // Keep beating, a missed renewal only matters once the whole lease has run out
+            log.warn("Could not renew lease of document: {}", documentId, e);
+        }
+    }
+
+    /**
+     * Stores the outcome set on the document, provided this worker still holds the lease.
+     */
+    @Transactional
+    public boolean complete(Document document) {
+        LocalDateTime now = LocalDateTime.now();
+        if (documentRepository.updateResult(document.getId(), Document.ConversionStatus.IN_PROGRESS,
+                document.getStatus(), owner, document.getConvertedFilePath(), document.getConvertedFileSize(),
+                document.getErrorMessage(), now) == 0) {
+            return false;
+        }
+        document.setLeaseOwner(null);
+        document.setLeaseExpiresAt(null);
+        document.setLastAccessedAt(now);
+        document.setUpdatedAt(now);
+        publishTransition(document);
+        return true;
+    }
+
+    public List<UUID> findExpiredLeases(int limit) {
+        return documentRepository.findIdsWithExpiredLease(Document.ConversionStatus.IN_PROGRESS,
+                LocalDateTime.now(), Limit.of(limit));
+    }
+
+    /**
+     * Releases an expired lease. The document goes back to PENDING and is queued again, unless
+     * it has used up its attempts, in which case it is failed.
+     *
+     * @return whether this call released the lease
+     */
+    @Transactional
+    public boolean releaseExpiredLease(UUID documentId) {
+        Document document = documentRepository.findById(documentId).orElse(null);
+        if (document == null) {
+            return false;
+        }
+        boolean exhausted = document.getAttempts() >= maxAttempts;
+        Document.ConversionStatus status = exhausted ? Document.ConversionStatus.FAILED : Document.ConversionStatus.PENDING;
+        String errorMessage = exhausted ? "Conversion abandoned after " + document.getAttempts() + " attempts" : null;
+        LocalDateTime now = LocalDateTime.now();
+        if (documentRepository.releaseExpiredLease(documentId, Document.ConversionStatus.IN_PROGRESS, status,
+                errorMessage, now) == 0) {
+            // Renewed or released by another replica in the meantime
+            return false;
+        }
+        log.warn("document: {} lease of {} expired, moving it to {}", documentId, document.getLeaseOwner(), status);
+        document.setStatus(status);
+        document.setErrorMessage(errorMessage);
+        document.setLeaseOwner(null);
+        document.setLeaseExpiresAt(null);
+        document.setUpdatedAt(now);
+        publishTransition(document);
+        if (!exhausted) {
+            outboxService.enqueue(document);
+        }
+        return true;
+    }
+
+    /**
+     * Cancels a pending or running conversion. A running one is only marked here; its worker
+     * notices when it next renews the lease, or straight away when it runs on this replica.
+     * Cancelling a document that reuses another one's conversion leaves that conversion running.
+     * A conversion that other documents are still waiting for is handed over to the oldest of
+     * them, which is queued again with the shared files and takes over the other duplicates.
+     *
+     * @return whether this call cancelled the document
+     */
+    @Transactional
+    public boolean cancel(Document document) {
+        // Locked first, so no upload attaches to the conversion and no concurrent cancel hands it
+        // over while it is decided whether this document still owns it
+        Document current = documentRepository.findByIdForUpdate(document.getId()).orElse(null);
+        if (current == null) {
+            return false;
+        }
+        LocalDateTime now = LocalDateTime.now();
+        String errorMessage = "Conversion cancelled";
+        if (documentRepository.cancel(document.getId(), IN_FLIGHT_STATUSES, Document.ConversionStatus.CANCELLED,
+                errorMessage, now) == 0) {
+            return false;
+        }
+        document.setDuplicateOf(current.getDuplicateOf());
+        document.setStatus(Document.ConversionStatus.CANCELLED);
+        document.setErrorMessage(errorMessage);
+        document.setLeaseOwner(null);
+        document.setLeaseExpiresAt(null);
+        document.setUpdatedAt(now);
+        if (document.getDuplicateOf() == null) {
+            handOver(document, now);
+        }
+        publishTransition(document);
+        return true;
+    }
+
+    /**
+     * Promotes the oldest document still waiting for the conversion, skipping those cancelled in
+     * the meantime. It already shares the original, so only the documents pointing at it change.
+     */
+    private void handOver(Document document, LocalDateTime now) {
+        Document successor;
+        do {
+            successor = documentRepository.findFirstByDuplicateOfAndStatusInOrderByCreatedAt(document.getId(),
+                    IN_FLIGHT_STATUSES).orElse(null);
+            if (successor == null) {
+                return;
+            }
+        } while (documentRepository.promote(successor.getId(), IN_FLIGHT_STATUSES, Document.ConversionStatus.PENDING,
+                now) == 0);
+        documentRepository.moveDuplicates(document.getId(), successor.getId());
+        documentRepository.releaseFiles(document.getId());
+        log.info("document: {} was cancelled, handing its conversion over to document: {}",
+                document.getId(), successor.getId());
+        document.setOriginalFilePath(null);
+        document.setOriginalFileSize(null);
+        document.setPreviewFilePath(null);
+        successor.setDuplicateOf(null);
+        successor.setStatus(Document.ConversionStatus.PENDING);
+        successor.setErrorMessage(null);
+        successor.setUpdatedAt(now);
+        publishTransition(successor);
+        outboxService.enqueue(successor);
+    }
+
+    /**
+     * Makes a status change stored for the document visible: refreshes its cached status and
+     * copies the change to the documents that reuse its conversion, except those cancelled on
+     * their own.
+     */
+    void publishTransition(Document document) {
+        documentStatusCache.put(document);
+        int duplicates = documentRepository.updateDuplicates(document.getId(), document.getStatus(),
+                document.getConvertedFilePath(), document.getErrorMessage(), document.getUpdatedAt(),
+                Document.ConversionStatus.CANCELLED);
+        if (duplicates > 0) {
+            documentRepository.findIdsByDuplicateOf(document.getId()).forEach(documentStatusCache::evict);
+        }
+    }
+}
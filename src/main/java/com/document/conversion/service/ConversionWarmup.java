@@ -0,0 +1,156 @@
+package com.document.conversion.service;
+
+import com.document.conversion.model.Document;
+import com.document.conversion.service.converter.DocumentConvertFactory;
+import com.document.conversion.service.storage.StorageBackend;
+import com.document.conversion.service.storage.StorageWrite;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.PDPageContentStream;
+import org.apache.pdfbox.pdmodel.common.PDRectangle;
+import org.apache.pdfbox.pdmodel.font.PDType1Font;
+import org.apache.pdfbox.pdmodel.graphics.image.LosslessFactory;
+import org.apache.pdfbox.pdmodel.graphics.image.PDImageXObject;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.stereotype.Component;
+
+import java.awt.Color;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.UUID;
+
+/**
+ * Runs a built-in sample through every converter before the pod reports ready. Spring Boot only
+ * switches readiness to accepting traffic once the application runners are done, so the first
+ * real conversions find the JIT warm, the font cache loaded and the render pools started.
+ * With exit-when-done the process stops after the warm-up, which the image build uses as the
+ * training run for its class data sharing archive.
+ */
+@Component
+@Slf4j
+@ConditionalOnProperty(value = "app.warmup.enabled", havingValue = "true")
+public class ConversionWarmup implements ApplicationRunner {
+
+    private static final int SAMPLE_PAGES = 3;
+
+    private final StorageBackend storageBackend;
+    private final FileStorageService fileStorageService;
+    private final DocumentConvertFactory documentConvertFactory;
+    private final ConfigurableApplicationContext applicationContext;
+    private final int iterations;
+    private final boolean exitWhenDone;
+
+    public ConversionWarmup(StorageBackend storageBackend,
+                            FileStorageService fileStorageService,
+                            DocumentConvertFactory documentConvertFactory,
+                            ConfigurableApplicationContext applicationContext,
+                            @Value("${app.warmup.iterations}") int iterations,
+                            @Value("${app.warmup.exit-when-done}") boolean exitWhenDone) {
+        this.storageBackend = storageBackend;
+        this.fileStorageService = fileStorageService;
+        this.documentConvertFactory = documentConvertFactory;
+        this.applicationContext = applicationContext;
+        this.iterations = iterations;
+        this.exitWhenDone = exitWhenDone;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        boolean warmedUp = warmUp();
+        if (exitWhenDone) {
+            // An archive trained without the conversion paths must fail the image build
+            System.exit(SpringApplication.exit(applicationContext, () -> warmedUp ? 0 : 1));
+        }
+    }
+
+    /**
+     * @return whether every converter ran on the sample
+     */
+    boolean warmUp() {
+        long start = System.nanoTime();
+        String source = "warmup-" + UUID.randomUUID() + ".pdf";
+        try {
+            writeSample(source);
+            for (int i = 0; i < iterations; i++) {
+                for (DocumentConversionService.SupportedTargetFormat targetFormat
+                        : DocumentConversionService.SupportedTargetFormat.values()) {
+                    convert(source, targetFormat);
+                }
+            }
+            log.info("Warm-up converted the sample {} times per format in {} ms", iterations,
+                    (System.nanoTime() - start) / 1_000_000);
+            return true;
+        } catch (Exception e) {
+            // A cold start is slower, not broken
+            log.warn("Warm-up failed, starting without it", e);
+            return false;
+        } finally {
+            fileStorageService.deleteFile(source);
+        }
+    }
+
+    private void convert(String source, DocumentConversionService.SupportedTargetFormat targetFormat) throws IOException {
+        Document document = Document.builder()
+                .id(UUID.randomUUID())
+                .originalFormat(DocumentConversionService.SupportedSourceFormat.pdf.name())
+                .targetFormat(targetFormat.name())
+                .originalFilePath(source)
+                .build();
+        String convertedFile = documentConvertFactory
+                .getConverter(DocumentConversionService.SupportedSourceFormat.pdf, targetFormat)
+                .convert(document, ConversionContext.untracked());
+        fileStorageService.deleteFile(convertedFile);
+    }
+
+    /**
+     * A few pages of standard-font text, vector graphics and an image, which covers the font
+     * mapping, text extraction, rasterizing and image decoding paths.
+     */
+    private void writeSample(String key) throws IOException {
+        BufferedImage gradient = new BufferedImage(64, 64, BufferedImage.TYPE_INT_RGB);
+        for (int y = 0; y < gradient.getHeight(); y++) {
+            for (int x = 0; x < gradient.getWidth(); x++) {
+                gradient.setRGB(x, y, new Color(x * 4, y * 4, 128).getRGB());
+            }
+        }
+        try (PDDocument pdf = new PDDocument();
+             StorageWrite write = storageBackend.create(key)) {
+            PDImageXObject image = LosslessFactory.createFromImage(pdf, gradient);
+            for (int pageIndex = 0; pageIndex < SAMPLE_PAGES; pageIndex++) {
+                PDPage page = new PDPage(PDRectangle.A4);
+                pdf.addPage(page);
+                try (PDPageContentStream content = new PDPageContentStream(pdf, page)) {
+                    content.beginText();
+                    content.setFont(PDType1Font.HELVETICA_BOLD, 16);
+                    content.newLineAtOffset(50, 780);
+                    content.showText("Warm-up page " + (pageIndex + 1));
+                    content.setFont(PDType1Font.TIMES_ROMAN, 10);
+                    for (int line = 0; line < 40; line++) {
+                        content.newLineAtOffset(0, -14);
+                        content.showText("Line " + line + ": the quick brown fox jumps over the lazy dog 0123456789");
+                    }
+                    content.endText();
+                    content.setNonStrokingColor(Color.LIGHT_GRAY);
+                    content.addRect(50, 60, 200, 100);
+                    content.fill();
+                    content.setStrokingColor(Color.DARK_GRAY);
+                    content.moveTo(50, 50);
+                    content.curveTo(150, 200, 300, 0, 500, 150);
+                    content.stroke();
+                    content.drawImage(image, 350, 60, 128, 128);
+                }
+            }
+            try (OutputStream out = write.outputStream()) {
+                pdf.save(out);
+            }
+            write.commit();
+        }
+    }
+}
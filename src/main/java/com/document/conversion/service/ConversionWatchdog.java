@@ -0,0 +1,70 @@
+package com.document.conversion.service;
+
+import com.document.conversion.model.Document;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collections;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledFuture;
+
+/**
+ * Tracks the conversions running on this worker and cancels those that run past the deadline of
+ * their target format. Cancellation is cooperative: the converter stops at the next page and
+ * releases its resources on the way out, so the worker is free for the next message. Workers are
+ * never interrupted, since that would also stop the consumer thread the conversion runs on.
+ */
+@Component
+@Slf4j
+public class ConversionWatchdog {
+
+    private final TaskScheduler taskScheduler;
+    private final Map<String, Duration> deadlines;
+    private final Duration defaultDeadline;
+    private final Map<UUID, ConversionContext> running = new ConcurrentHashMap<>();
+
+    public ConversionWatchdog(TaskScheduler taskScheduler,
+                              @Value("${app.conversion.deadline.png}") Duration pngDeadline,
+                              @Value("${app.conversion.deadline.word}") Duration wordDeadline) {
+        this.taskScheduler = taskScheduler;
+        this.deadlines = Map.of(
+                DocumentConversionService.SupportedTargetFormat.png.name(), pngDeadline,
+                DocumentConversionService.SupportedTargetFormat.word.name(), wordDeadline);
+        this.defaultDeadline = Collections.max(deadlines.values());
+    }
+
+    /**
+     * Starts the deadline of a conversion that is about to run. The returned future must be
+     * passed to {@link #unwatch} once the conversion has ended, however it ended.
+     */
+    public ScheduledFuture<?> watch(UUID documentId, ConversionContext context) {
+        running.put(documentId, context);
+        Duration deadline = deadlines.getOrDefault(context.getTargetFormat(), defaultDeadline);
+        return taskScheduler.schedule(() -> {
+            if (context.cancel(Document.ConversionStatus.TIMED_OUT, "Conversion exceeded its deadline of " + deadline)) {
+                log.warn("document: {} ran past its deadline of {}, stopping it", documentId, deadline);
+            }
+        }, Instant.now().plus(deadline));
+    }
+
+    public void unwatch(UUID documentId, ScheduledFuture<?> deadline) {
+        deadline.cancel(false);
+        running.remove(documentId);
+    }
+
+    /**
+     * Stops the conversion of the document if it is running on this worker.
+     *
+     * @return whether a running conversion was cancelled
+     */
+    public boolean cancel(UUID documentId) {
+        ConversionContext context = running.get(documentId);
+        return context != null && context.cancel(Document.ConversionStatus.CANCELLED, "Conversion cancelled");
+    }
+}
@@ -7,14 +7,13 @@ import com.document.conversion.repository.DocumentRepository;
 
 import com.document.conversion.service.converter.DocumentConvertFactory;
 import com.document.conversion.service.converter.DocumentConverter;
-import io.micrometer.core.instrument.Timer;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
 
 import java.io.IOException;
 import java.util.UUID;
+import java.util.concurrent.ScheduledFuture;
 
 @Service
 @Slf4j
@@ -24,45 +23,68 @@ public class DocumentConversionService {
   private final DocumentRepository documentRepository;
   private final MetricsService metricsService;
   private final DocumentConvertFactory documentConvertFactory;
+  private final ConversionLeaseService conversionLeaseService;
+  private final FileStorageService fileStorageService;
+  private final ConversionWatchdog conversionWatchdog;
 
-  @Transactional
+  /**
+   * Converts the document outside of any transaction. Only the claim and the result are written,
+   * each in a short transaction of its own, and the lease is renewed while the conversion runs.
+   * Conversions that pass their deadline or are cancelled stop at the next page.
+   */
   public void startConversion(UUID documentId) {
     Document document = documentRepository.findById(documentId).orElse(null);
     if (document == null) {
       log.warn("document: {} not found", documentId);
       return;
     }
+    if (!conversionLeaseService.claim(document)) {
+      log.info("document: {} is no longer pending, skipping", documentId);
+      return;
+    }
 
-    Timer.Sample sample = null;
-    try {
-      sample = metricsService.startTimer();
-      metricsService.recordConversionStart();
-      document.setStatus(Document.ConversionStatus.IN_PROGRESS);
-      documentRepository.saveAndFlush(document);
-
-      String convertedFilePath = performConversion(document);
-      document.setConvertedFilePath(convertedFilePath);
-      document.setStatus(Document.ConversionStatus.COMPLETED);
-      metricsService.recordConversionSuccess();
-    } catch (Exception e) {
-      log.error("Conversion failed for document: {}", documentId, e);
-      document.setStatus(Document.ConversionStatus.FAILED);
-      document.setErrorMessage(e.getMessage());
-      metricsService.recordConversionFailure();
-    } finally {
-      if (sample != null) {
-        metricsService.stopTimer(sample);
+    try (ConversionContext context =
+             metricsService.startConversion(document.getOriginalFormat(), document.getTargetFormat())) {
+      ScheduledFuture<?> deadline = conversionWatchdog.watch(documentId, context);
+      ScheduledFuture<?> heartbeat = conversionLeaseService.startHeartbeat(documentId,
+          () -> context.cancel(Document.ConversionStatus.CANCELLED, "Conversion lease was lost"));
+      try {
+        document.setConvertedFilePath(performConversion(document, context));
+        document.setConvertedFileSize(context.getOutputBytes());
+        document.setStatus(Document.ConversionStatus.COMPLETED);
+        context.markSucceeded();
+      } catch (Exception e) {
+        if (context.getCancelledAs() != null) {
+          log.warn("Conversion stopped for document: {}: {}", documentId, context.getCancelReason());
+          document.setStatus(context.getCancelledAs());
+          document.setErrorMessage(context.getCancelReason());
+        } else {
+          log.error("Conversion failed for document: {}", documentId, e);
+          document.setStatus(Document.ConversionStatus.FAILED);
+          document.setErrorMessage(e.getMessage());
+        }
+      } finally {
+        heartbeat.cancel(false);
+        conversionWatchdog.unwatch(documentId, deadline);
+      }
+      boolean stored = context.time(ConversionContext.Stage.DB_UPDATE, () -> conversionLeaseService.complete(document));
+      if (!stored) {
+        // Cancelled, or released by the reaper after the lease expired
+        log.warn("document: {} lease was lost during the conversion, discarding the {} result",
+            documentId, document.getStatus());
+        if (document.getConvertedFilePath() != null) {
+          fileStorageService.deleteFile(document.getConvertedFilePath());
+        }
       }
     }
-    documentRepository.save(document);
   }
 
-  private String performConversion(Document document) throws IOException {
+  private String performConversion(Document document, ConversionContext context) throws IOException {
     SupportedSourceFormat sourceFormat = getSourceFormat(document.getOriginalFormat());
     SupportedTargetFormat targetFormat = getTargetFormat(document.getTargetFormat());
     DocumentConverter documentConverter =
         documentConvertFactory.getConverter(sourceFormat, targetFormat);
-    return documentConverter.convert(document);
+    return documentConverter.convert(document, context);
   }
 
   private SupportedSourceFormat getSourceFormat(String format) {
@@ -1,53 +1,222 @@
 package com.document.conversion.service;
 
+import com.document.conversion.config.CacheConfig;
 import com.document.conversion.exception.ConversionException;
+import com.document.conversion.exception.ConversionNotCancellableException;
 import com.document.conversion.exception.DocumentNotFoundException;
+import com.document.conversion.exception.InvalidUploadException;
+import com.document.conversion.model.BatchConversionRequest;
+import com.document.conversion.model.BatchConversionResponse;
 import com.document.conversion.model.ConversionRequest;
 import com.document.conversion.model.ConversionResponse;
 import com.document.conversion.model.Document;
+import com.document.conversion.model.DocumentFileView;
+import com.document.conversion.model.RenderOptions;
+import com.document.conversion.model.RenderOptionsRequest;
+import com.document.conversion.model.StoredFile;
+import com.document.conversion.model.StreamingConversionRequest;
 import com.document.conversion.repository.DocumentRepository;
-import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.cache.annotation.Cacheable;
+import org.springframework.core.io.Resource;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
+import org.springframework.util.StringUtils;
+import org.springframework.util.unit.DataSize;
 import org.springframework.web.multipart.MultipartFile;
 
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 
 @Service
 @Slf4j
-@RequiredArgsConstructor
 public class DocumentService {
 
     private final DocumentRepository documentRepository;
     private final FileStorageService fileStorageService;
-    private final MessageService messageService;
+    private final DocumentSubmissionService documentSubmissionService;
+    private final DocumentStatusCache documentStatusCache;
+    private final PreviewService previewService;
+    private final RetentionService retentionService;
+    private final ConversionLeaseService conversionLeaseService;
+    private final ConversionWatchdog conversionWatchdog;
+    private final long maxUploadBytes;
+
+    private static final List<Document.ConversionStatus> IN_FLIGHT_STATUSES =
+            List.of(Document.ConversionStatus.PENDING, Document.ConversionStatus.IN_PROGRESS);
+    private static final byte[] PDF_HEADER = "%PDF".getBytes(StandardCharsets.US_ASCII);
+
+    public DocumentService(DocumentRepository documentRepository,
+                           FileStorageService fileStorageService,
+                           DocumentSubmissionService documentSubmissionService,
+                           DocumentStatusCache documentStatusCache,
+                           PreviewService previewService,
+                           RetentionService retentionService,
+                           ConversionLeaseService conversionLeaseService,
+                           ConversionWatchdog conversionWatchdog,
+                           @Value("${spring.servlet.multipart.max-file-size}") DataSize maxUploadSize) {
+        this.documentRepository = documentRepository;
+        this.fileStorageService = fileStorageService;
+        this.documentSubmissionService = documentSubmissionService;
+        this.documentStatusCache = documentStatusCache;
+        this.previewService = previewService;
+        this.retentionService = retentionService;
+        this.conversionLeaseService = conversionLeaseService;
+        this.conversionWatchdog = conversionWatchdog;
+        this.maxUploadBytes = maxUploadSize.toBytes();
+    }
 
-    @Transactional
     public ConversionResponse submitConversion(ConversionRequest request) {
         MultipartFile file = request.getFile();
-        String storedFileName = fileStorageService.storeFile(file, "original");
-        Document dbDocument = documentRepository.save(buildDocument(request, storedFileName, file));
-        messageService.publishDocumentConversionRequest(dbDocument.getId());
-        return buildConversionResponse(dbDocument);
+        StoredFile storedFile = fileStorageService.storeFile(file, "original");
+        return submit(file.getOriginalFilename(), storedFile, request.getTargetFormat(), request,
+                request.isPreview());
+    }
+
+    /**
+     * Streams a raw upload body into storage. Runs outside any transaction, so a slow client does
+     * not hold a connection, and rejects what can be rejected before reading the body.
+     */
+    public StoredFile storeUpload(String fileName, InputStream body, long contentLength) {
+        if (contentLength > maxUploadBytes) {
+            throw new InvalidUploadException("File size exceeds maximum allowed size");
+        }
+        String originalFileName = StringUtils.getFilename(fileName);
+        if (!DocumentConversionService.SupportedSourceFormat.pdf.name()
+                .equals(getFileExtension(originalFileName).orElse(null))) {
+            throw new InvalidUploadException("Only PDF documents can be uploaded");
+        }
+        return fileStorageService.storeStream(body, originalFileName, "original", maxUploadBytes, PDF_HEADER);
+    }
+
+    public ConversionResponse submitStoredConversion(StreamingConversionRequest request, StoredFile storedFile) {
+        return submit(StringUtils.getFilename(request.getFileName()), storedFile, request.getTargetFormat(),
+                request, request.isPreview());
     }
 
-    @Cacheable(value = "documentStatusManager", key = "#documentId")
+    /**
+     * Renders the preview, when one is requested, before the submission transaction opens so no
+     * connection or row lock is held while it runs. An upload that reuses an existing conversion
+     * shares that conversion's preview instead. When the submission fails, the stored upload and
+     * its preview are deleted, as no document points at them.
+     */
+    private ConversionResponse submit(String originalFileName, StoredFile storedFile, String targetFormat,
+                                      RenderOptionsRequest renderOptions, boolean preview) {
+        String uploadedFilePath = storedFile.getFileName();
+        String previewFilePath = null;
+        Document dbDocument;
+        try {
+            Document document = buildDocument(originalFileName, targetFormat, renderOptions.toRenderOptions(), storedFile);
+            if (preview && !documentSubmissionService.hasReusableConversion(document.getConversionKey())) {
+                previewFilePath = previewService.generatePreview(document).orElse(null);
+                document.setPreviewFilePath(previewFilePath);
+            }
+            dbDocument = documentSubmissionService.submit(document);
+        } catch (RuntimeException e) {
+            fileStorageService.deleteFile(uploadedFilePath);
+            if (previewFilePath != null) {
+                fileStorageService.deleteFile(previewFilePath);
+            }
+            throw e;
+        }
+        deleteUnusedUpload(dbDocument, uploadedFilePath);
+        return documentStatusCache.put(dbDocument);
+    }
+
+    public BatchConversionResponse submitBatchConversion(BatchConversionRequest request) {
+        List<Document> documents = new ArrayList<>();
+        List<String> uploadedFilePaths = new ArrayList<>();
+        List<Document> saved;
+        try {
+            for (MultipartFile file : request.getFiles()) {
+                StoredFile storedFile = fileStorageService.storeFile(file, "original");
+                uploadedFilePaths.add(storedFile.getFileName());
+                documents.add(buildDocument(file.getOriginalFilename(), request.getTargetFormat(),
+                        request.toRenderOptions(), storedFile));
+            }
+            saved = documentSubmissionService.submitBatch(documents);
+        } catch (RuntimeException e) {
+            uploadedFilePaths.forEach(fileStorageService::deleteFile);
+            throw e;
+        }
+        for (int i = 0; i < saved.size(); i++) {
+            deleteUnusedUpload(saved.get(i), uploadedFilePaths.get(i));
+        }
+        return new BatchConversionResponse(saved.stream().map(documentStatusCache::put).toList());
+    }
+
+    // An upload that reuses an existing conversion shares its stored original instead
+    private void deleteUnusedUpload(Document document, String uploadedFilePath) {
+        if (!uploadedFilePath.equals(document.getOriginalFilePath())) {
+            fileStorageService.deleteFile(uploadedFilePath);
+        }
+    }
+
+    /**
+     * Reads through the status cache. Pending and running statuses are not cached from here: a
+     * transition committed while the row is read is written through first and would otherwise be
+     * overwritten with the older status.
+     */
+    @Cacheable(value = CacheConfig.DOCUMENT_STATUS_CACHE, key = "#documentId",
+            unless = "#result.status == 'PENDING' or #result.status == 'IN_PROGRESS'")
     public ConversionResponse getStatus(UUID documentId) {
-        Document dbDocument = documentRepository.findById(documentId)
+        return documentRepository.findStatusViewById(documentId)
+                .map(ConversionResponse::fromView)
                 .orElseThrow(() -> new DocumentNotFoundException("Document not found"));
-        return buildConversionResponse(dbDocument);
     }
 
-    public byte[] getConvertedDocument(UUID documentId) {
-        Document dbDocument = documentRepository.findById(documentId)
+    /**
+     * Cancels a pending or running conversion. A queued message for it is skipped when it is
+     * delivered, and a running conversion stops at its next page.
+     */
+    public ConversionResponse cancelConversion(UUID documentId) {
+        Document document = documentRepository.findById(documentId)
                 .orElseThrow(() -> new DocumentNotFoundException("Document not found"));
+        if (!IN_FLIGHT_STATUSES.contains(document.getStatus()) || !conversionLeaseService.cancel(document)) {
+            throw new ConversionNotCancellableException("Only pending or running conversions can be cancelled");
+        }
+        if (document.getDuplicateOf() == null) {
+            conversionWatchdog.cancel(documentId);
+        }
+        return ConversionResponse.fromDocument(document);
+    }
+
+    public Resource getConvertedDocument(UUID documentId) {
+        DocumentFileView dbDocument = documentRepository.findFileViewById(documentId)
+                .orElseThrow(() -> new DocumentNotFoundException("Document not found"));
+        if (dbDocument.getStatus() == Document.ConversionStatus.EXPIRED) {
+            throw new DocumentNotFoundException("Converted document has expired");
+        }
+        if (dbDocument.getStatus() == Document.ConversionStatus.EVICTED) {
+            retentionService.requestReconversion(documentId);
+        }
         if (dbDocument.getStatus() != Document.ConversionStatus.COMPLETED) {
             throw new ConversionException("Document conversion not completed");
         }
-        return fileStorageService.readFile(dbDocument.getConvertedFilePath());
+        // The converted file belongs to the document whose conversion is reused
+        retentionService.recordDownload(dbDocument.getDuplicateOf() != null ? dbDocument.getDuplicateOf() : documentId);
+        return fileStorageService.loadFileAsResource(dbDocument.getConvertedFilePath());
+    }
+
+    public Resource getPreview(UUID documentId) {
+        DocumentFileView dbDocument = documentRepository.findFileViewById(documentId)
+                .orElseThrow(() -> new DocumentNotFoundException("Document not found"));
+        if (dbDocument.getPreviewFilePath() == null) {
+            throw new DocumentNotFoundException("No preview available for document");
+        }
+        return fileStorageService.loadFileAsResource(dbDocument.getPreviewFilePath());
+    }
+
+    private String buildConversionKey(String contentHash, String targetFormat, RenderOptions renderOptions) {
+        String key = contentHash + ":" + targetFormat.toLowerCase();
+        boolean rendered = DocumentConversionService.SupportedTargetFormat.png.name().equalsIgnoreCase(targetFormat);
+        String options = renderOptions.conversionKey(rendered);
+        return options.isEmpty() ? key : key + ":" + options;
     }
 
     private Optional<String> getFileExtension(String fileName) {
@@ -56,25 +225,21 @@ public class DocumentService {
                 .map(name -> name.substring(name.lastIndexOf(".") + 1).toLowerCase());
     }
 
-    private ConversionResponse buildConversionResponse(Document document) {
-        return ConversionResponse.builder()
-                .documentId(document.getId())
-                .errorMessage(document.getErrorMessage())
-                .status(document.getStatus().name())
-                .createdAt(document.getCreatedAt())
-                .updatedAt(document.getUpdatedAt())
-                .build();
-    }
-
-    private Document buildDocument(ConversionRequest request, String storedFileName, MultipartFile file) {
-        String originalFormat = getFileExtension(file.getOriginalFilename())
+    private Document buildDocument(String originalFileName, String targetFormat, RenderOptions renderOptions,
+                                   StoredFile storedFile) {
+        String originalFormat = getFileExtension(originalFileName)
                 .orElseThrow(() -> new IllegalArgumentException("Invalid file format"));
         return Document.builder()
-                .originalFileName(file.getOriginalFilename())
+                .originalFileName(originalFileName)
                 .originalFormat(originalFormat)
-                .targetFormat(request.getTargetFormat())
+                .targetFormat(targetFormat)
                 .status(Document.ConversionStatus.PENDING)
-                .originalFilePath(storedFileName)
+                .originalFilePath(storedFile.getFileName())
+                .originalFileSize(storedFile.getSize())
+                .originalUsedAt(LocalDateTime.now())
+                .contentHash(storedFile.getContentHash())
+                .renderOptions(renderOptions)
+                .conversionKey(buildConversionKey(storedFile.getContentHash(), targetFormat, renderOptions))
                 .build();
     }
 }
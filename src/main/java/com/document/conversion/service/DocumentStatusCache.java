@@ -0,0 +1,33 @@
+package com.document.conversion.service;
+
+import com.document.conversion.config.CacheConfig;
+import com.document.conversion.model.ConversionResponse;
+import com.document.conversion.model.Document;
+import lombok.RequiredArgsConstructor;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Component;
+
+import java.util.Objects;
+import java.util.UUID;
+
+@Component
+@RequiredArgsConstructor
+public class DocumentStatusCache {
+
+    private final CacheManager cacheManager;
+
+    public ConversionResponse put(Document document) {
+        ConversionResponse response = ConversionResponse.fromDocument(document);
+        cache().put(document.getId(), response);
+        return response;
+    }
+
+    public void evict(UUID documentId) {
+        cache().evict(documentId);
+    }
+
+    private Cache cache() {
+        return Objects.requireNonNull(cacheManager.getCache(CacheConfig.DOCUMENT_STATUS_CACHE));
+    }
+}
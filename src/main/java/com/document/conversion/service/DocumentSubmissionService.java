@@ -0,0 +1,131 @@
+package com.document.conversion.service;
+
+import com.document.conversion.model.Document;
+import com.document.conversion.repository.DocumentRepository;
+import com.document.conversion.service.outbox.OutboxService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Inserts submitted documents. Uploads are stored and previews rendered before a submission gets
+ * here, so its transaction only covers the reuse lookup, the insert and the outbox message.
+ */
+@Service
+@Slf4j
+@RequiredArgsConstructor
+public class DocumentSubmissionService {
+
+    private static final List<Document.ConversionStatus> IN_FLIGHT_STATUSES =
+            List.of(Document.ConversionStatus.PENDING, Document.ConversionStatus.IN_PROGRESS);
+
+    private final DocumentRepository documentRepository;
+    private final OutboxService outboxService;
+
+    /**
+     * Whether an upload with the key would currently reuse an existing conversion. A plain read
+     * without locks, for skipping work that the reuse makes unnecessary; {@link #submit} decides.
+     */
+    public boolean hasReusableConversion(String conversionKey) {
+        return documentRepository
+                .findFirstByConversionKeyAndDuplicateOfIsNullAndStatusAndOriginalFilePathIsNotNullOrderByCreatedAtDesc(
+                        conversionKey, Document.ConversionStatus.COMPLETED).isPresent()
+                || documentRepository.findFirstByConversionKeyAndDuplicateOfIsNullAndStatusIn(
+                        conversionKey, IN_FLIGHT_STATUSES).isPresent();
+    }
+
+    /**
+     * Saves the document, attached to an existing conversion of the same upload when there is
+     * one and queued for conversion otherwise.
+     */
+    @Transactional
+    public Document submit(Document document) {
+        findReusableConversion(document.getConversionKey())
+                .filter(this::retainForDuplicate)
+                .ifPresent(existing -> attachToExistingConversion(document, existing));
+        Document dbDocument = documentRepository.save(document);
+        if (dbDocument.getDuplicateOf() == null) {
+            outboxService.enqueue(dbDocument);
+        }
+        return dbDocument;
+    }
+
+    @Transactional
+    public List<Document> submitBatch(List<Document> documents) {
+        Map<String, Document> batchConversions = new HashMap<>();
+        Map<Document, Document> batchDuplicates = new IdentityHashMap<>();
+        for (Document document : documents) {
+            findReusableConversion(document.getConversionKey())
+                    .filter(this::retainForDuplicate)
+                    .ifPresent(existing -> attachToExistingConversion(document, existing));
+            if (document.getDuplicateOf() == null) {
+                Document batchConversion = batchConversions.putIfAbsent(document.getConversionKey(), document);
+                if (batchConversion != null) {
+                    batchDuplicates.put(document, batchConversion);
+                }
+            }
+        }
+        // One batched insert for everything that has an id to point at, then the in-batch
+        // duplicates once the documents they reuse have been assigned their ids
+        List<Document> saved = documentRepository.saveAll(documents.stream()
+                .filter(document -> !batchDuplicates.containsKey(document))
+                .toList());
+        batchDuplicates.forEach((duplicate, existing) -> attachToExistingConversion(duplicate, existing));
+        documentRepository.saveAll(batchDuplicates.keySet());
+
+        List<Document> queued = saved.stream()
+                .filter(document -> document.getDuplicateOf() == null)
+                .toList();
+        outboxService.enqueue(queued);
+        log.info("Accepted batch of {} documents ({} queued)", documents.size(), queued.size());
+        return documents;
+    }
+
+    private Optional<Document> findReusableConversion(String conversionKey) {
+        Optional<Document> completed = documentRepository
+                .findFirstByConversionKeyAndDuplicateOfIsNullAndStatusAndOriginalFilePathIsNotNullOrderByCreatedAtDesc(
+                        conversionKey, Document.ConversionStatus.COMPLETED);
+        if (completed.isPresent()) {
+            return completed;
+        }
+        // Lock the running job so it cannot finish or be cancelled between this check and the
+        // insert of the duplicate, otherwise the duplicate would miss the result propagation
+        return documentRepository.findFirstByConversionKeyAndDuplicateOfIsNullAndStatusIn(conversionKey, IN_FLIGHT_STATUSES)
+                .flatMap(inFlight -> documentRepository.findByIdForUpdate(inFlight.getId()))
+                .filter(inFlight -> IN_FLIGHT_STATUSES.contains(inFlight.getStatus()));
+    }
+
+    /**
+     * Restarts the retention of the files the duplicate is going to share, as if it had uploaded
+     * them itself. Fails when the sweeper released the original or evicted the converted file
+     * since the lookup; the upload is then converted on its own.
+     */
+    private boolean retainForDuplicate(Document existing) {
+        return documentRepository.retainForDuplicate(existing.getId(), existing.getStatus(),
+                existing.getOriginalFilePath(), LocalDateTime.now()) > 0;
+    }
+
+    /**
+     * The bytes are identical, so the document takes over the stored original of the existing
+     * conversion; the caller deletes the now unused upload once the submission is committed.
+     */
+    private void attachToExistingConversion(Document document, Document existing) {
+        log.info("Upload {} matches conversion {} ({}), reusing it",
+                document.getOriginalFilePath(), existing.getId(), existing.getStatus());
+        document.setOriginalFilePath(existing.getOriginalFilePath());
+        document.setDuplicateOf(existing.getDuplicateOf() != null ? existing.getDuplicateOf() : existing.getId());
+        document.setStatus(existing.getStatus());
+        document.setConvertedFilePath(existing.getConvertedFilePath());
+        if (document.getPreviewFilePath() == null) {
+            document.setPreviewFilePath(existing.getPreviewFilePath());
+        }
+    }
+}
@@ -1,61 +1,75 @@
 package com.document.conversion.service;
 
 import com.document.conversion.exception.FileStorageException;
+import com.document.conversion.exception.InvalidUploadException;
+import com.document.conversion.model.StoredFile;
+import com.document.conversion.service.storage.StorageBackend;
+import com.document.conversion.service.storage.StorageWrite;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.Resource;
 import org.springframework.stereotype.Service;
 import org.springframework.util.StringUtils;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
-import java.nio.file.*;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.HexFormat;
 import java.util.UUID;
+import java.util.stream.Stream;
 
 @Service
 @Slf4j
 public class FileStorageService {
 
-    private final Path fileStorageLocation;
+    private static final String CONTENT_HASH_ALGORITHM = "SHA-256";
+    private static final int COPY_BUFFER_BYTES = 64 * 1024;
+    private static final byte[] NO_HEADER = new byte[0];
 
-    public FileStorageService(@Value("${app.document.storage.location}") String fileStorageLocation) {
-        this.fileStorageLocation = initializeStorageLocation(fileStorageLocation);
+    private final StorageBackend storageBackend;
+
+    public FileStorageService(StorageBackend storageBackend) {
+        this.storageBackend = storageBackend;
     }
 
-    private Path initializeStorageLocation(String storagePath) {
-        Path path = Paths.get(storagePath).toAbsolutePath().normalize();
-        try {
-            Files.createDirectories(path);
-            return path;
+    public StoredFile storeFile(MultipartFile file, String prefix) {
+        String fileName = buildFileName(file.getOriginalFilename(), prefix);
+        validateFileName(fileName);
+        try (InputStream in = file.getInputStream()) {
+            return copyToStorage(in, fileName, Long.MAX_VALUE, NO_HEADER);
         } catch (IOException ex) {
-            String errorMessage = "Could not create the directory where the uploaded files will be stored.";
-            log.error(errorMessage, ex);
-            throw new FileStorageException(errorMessage, ex);
+            throw storageFailure(fileName, ex);
         }
     }
 
-    public String storeFile(MultipartFile file, String prefix) {
-        String fileName = buildFileName(file, prefix);
+    /**
+     * Streams an upload straight into storage, hashing it and checking its size and leading
+     * bytes in the same pass. A rejected upload is discarded before the exception is thrown, and
+     * the rest of the stream is left unread.
+     */
+    public StoredFile storeStream(InputStream in, String originalFileName, String prefix, long maxBytes,
+                                  byte[] requiredHeader) {
+        String fileName = buildFileName(originalFileName, prefix);
         validateFileName(fileName);
-        return copyFileToStorage(file, fileName);
-    }
-
-    public Path getFilePath(String fileName) {
-        return fileStorageLocation.resolve(fileName);
+        return copyToStorage(in, fileName, maxBytes, requiredHeader);
     }
 
-    public byte[] readFile(String fileName) {
-        try {
-            Path filePath = getFilePath(fileName);
-            return Files.readAllBytes(filePath);
-        } catch (IOException ex) {
+    public Resource loadFileAsResource(String fileName) {
+        if (!storageBackend.exists(fileName)) {
             String errorMessage = "Could not read file " + fileName;
-            log.error(errorMessage, ex);
-            throw new FileStorageException(errorMessage, ex);
+            log.error(errorMessage);
+            throw new FileStorageException(errorMessage);
         }
+        return storageBackend.getResource(fileName);
     }
 
-    private String buildFileName(MultipartFile file, String prefix) {
-        return StringUtils.cleanPath(prefix + "-" + UUID.randomUUID() + "-" + file.getOriginalFilename());
+    private String buildFileName(String originalFileName, String prefix) {
+        return StringUtils.cleanPath(prefix + "-" + UUID.randomUUID() + "-" + originalFileName);
     }
 
     private void validateFileName(String fileName) {
@@ -66,17 +80,86 @@ public class FileStorageService {
         }
     }
 
-    private String copyFileToStorage(MultipartFile file, String fileName) {
+    public void deleteFile(String fileName) {
         try {
-            Path targetLocation = fileStorageLocation.resolve(fileName);
-            Files.copy(file.getInputStream(), targetLocation, StandardCopyOption.REPLACE_EXISTING);
-            log.info("File stored successfully: {}", fileName);
-            return fileName;
+            storageBackend.delete(fileName);
         } catch (IOException ex) {
-            String errorMessage = "Could not store file " + fileName;
-            log.error(errorMessage, ex);
-            throw new FileStorageException(errorMessage, ex);
+            log.warn("Could not delete file {}", fileName, ex);
         }
     }
 
+    // Size of a file that is already gone counts as 0
+    public long fileSize(String fileName) {
+        try {
+            return storageBackend.size(fileName);
+        } catch (IOException ex) {
+            return 0;
+        }
+    }
+
+    /**
+     * The stored files last modified before the instant. Close the stream once done with it.
+     */
+    public Stream<String> listFilesModifiedBefore(Instant before) {
+        try {
+            return storageBackend.keysModifiedBefore(before);
+        } catch (IOException ex) {
+            throw new FileStorageException("Could not list stored files", ex);
+        }
+    }
+
+    public int deleteAbandonedWrites(Instant lastWrittenBefore) {
+        try {
+            return storageBackend.deleteAbandonedWrites(lastWrittenBefore);
+        } catch (IOException ex) {
+            throw new FileStorageException("Could not delete abandoned writes", ex);
+        }
+    }
+
+    private StoredFile copyToStorage(InputStream in, String fileName, long maxBytes, byte[] requiredHeader) {
+        MessageDigest digest = newContentDigest();
+        byte[] chunk = new byte[COPY_BUFFER_BYTES];
+        long size = 0;
+        // A rejected upload is never committed, closing the write discards what was written
+        try (StorageWrite write = storageBackend.create(fileName)) {
+            WritableByteChannel channel = write.channel();
+            int read = in.readNBytes(chunk, 0, requiredHeader.length);
+            if (!Arrays.equals(chunk, 0, read, requiredHeader, 0, requiredHeader.length)) {
+                throw new InvalidUploadException("File content does not match its format");
+            }
+            // The content hash and the size limit are applied to each chunk on its way to storage
+            while (read != -1) {
+                size += read;
+                if (size > maxBytes) {
+                    throw new InvalidUploadException("File size exceeds maximum allowed size");
+                }
+                digest.update(chunk, 0, read);
+                ByteBuffer buffer = ByteBuffer.wrap(chunk, 0, read);
+                while (buffer.hasRemaining()) {
+                    channel.write(buffer);
+                }
+                read = in.read(chunk);
+            }
+            write.commit();
+        } catch (IOException ex) {
+            throw storageFailure(fileName, ex);
+        }
+        log.info("File stored successfully: {}", fileName);
+        return new StoredFile(fileName, HexFormat.of().formatHex(digest.digest()), size);
+    }
+
+    private MessageDigest newContentDigest() {
+        try {
+            return MessageDigest.getInstance(CONTENT_HASH_ALGORITHM);
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IllegalStateException(CONTENT_HASH_ALGORITHM + " is not available", ex);
+        }
+    }
+
+    private FileStorageException storageFailure(String fileName, IOException ex) {
+        String errorMessage = "Could not store file " + fileName;
+        log.error(errorMessage, ex);
+        return new FileStorageException(errorMessage, ex);
+    }
+
 }
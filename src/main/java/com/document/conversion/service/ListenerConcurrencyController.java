@@ -0,0 +1,100 @@
+package com.document.conversion.service;
+
+import com.document.conversion.service.queue.InFlightDeliveryCounter;
+import com.document.conversion.service.queue.RabbitConversionQueue;
+import com.sun.management.OperatingSystemMXBean;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.amqp.rabbit.listener.RabbitListenerEndpointRegistry;
+import org.springframework.amqp.rabbit.listener.SimpleMessageListenerContainer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.amqp.RabbitProperties;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryUsage;
+
+/**
+ * Scales the number of concurrent small lane conversions between the configured listener
+ * concurrency and max-concurrency. A consumer is added while every consumer is busy and the pod has CPU and heap
+ * to spare, and one is removed as soon as CPU load or heap usage crosses its watermark. Busy consumers are
+ * counted by the small lane container itself, so large lane and stolen conversions do not make it look saturated.
+ */
+@Component
+@Slf4j
+@ConditionalOnExpression("${app.conversion.listener.adaptive.enabled} and '${app.messaging.queue}' == 'rabbit'")
+public class ListenerConcurrencyController {
+
+    private final RabbitListenerEndpointRegistry listenerRegistry;
+    private final InFlightDeliveryCounter smallLaneDeliveries;
+    private final OperatingSystemMXBean operatingSystem;
+    private final int minConsumers;
+    private final int maxConsumers;
+    private final double cpuHighWatermark;
+    private final double cpuLowWatermark;
+    private final double minHeapHeadroom;
+
+    public ListenerConcurrencyController(
+            RabbitListenerEndpointRegistry listenerRegistry,
+            InFlightDeliveryCounter smallLaneDeliveries,
+            RabbitProperties rabbitProperties,
+            @Value("${app.conversion.listener.adaptive.cpu-high-watermark}") double cpuHighWatermark,
+            @Value("${app.conversion.listener.adaptive.cpu-low-watermark}") double cpuLowWatermark,
+            @Value("${app.conversion.listener.adaptive.min-heap-headroom}") double minHeapHeadroom) {
+        this.listenerRegistry = listenerRegistry;
+        this.smallLaneDeliveries = smallLaneDeliveries;
+        this.operatingSystem = ManagementFactory.getPlatformMXBean(OperatingSystemMXBean.class);
+        RabbitProperties.SimpleContainer container = rabbitProperties.getListener().getSimple();
+        this.minConsumers = container.getConcurrency();
+        this.maxConsumers = container.getMaxConcurrency() != null
+                ? Math.max(container.getMaxConcurrency(), minConsumers) : minConsumers;
+        this.cpuHighWatermark = cpuHighWatermark;
+        this.cpuLowWatermark = cpuLowWatermark;
+        this.minHeapHeadroom = minHeapHeadroom;
+    }
+
+    @Scheduled(fixedDelayString = "${app.conversion.listener.adaptive.interval-ms}")
+    public void adjustConcurrency() {
+        if (!(listenerRegistry.getListenerContainer(RabbitConversionQueue.CONVERSION_LISTENER_ID)
+                instanceof SimpleMessageListenerContainer container) || !container.isRunning()) {
+            return;
+        }
+        int current = container.getActiveConsumerCount();
+        int target = targetConsumers(current);
+        if (target != current) {
+            log.info("Adjusting conversion consumers from {} to {}", current, target);
+            resize(container, current, target);
+        }
+    }
+
+    private int targetConsumers(int current) {
+        MemoryUsage heap = ManagementFactory.getMemoryMXBean().getHeapMemoryUsage();
+        double heapHeadroom = heap.getMax() > 0 ? 1.0 - (double) heap.getUsed() / heap.getMax() : 1.0;
+        return targetConsumers(current, operatingSystem.getCpuLoad(), heapHeadroom,
+                smallLaneDeliveries.get());
+    }
+
+    int targetConsumers(int current, double cpuLoad, double heapHeadroom, int busyConsumers) {
+        if (cpuLoad > cpuHighWatermark || heapHeadroom < minHeapHeadroom) {
+            return Math.max(minConsumers, current - 1);
+        }
+        // A negative load means the JVM cannot tell, in which case only heap and saturation decide
+        boolean cpuAvailable = cpuLoad < cpuLowWatermark;
+        if (busyConsumers >= current && cpuAvailable) {
+            return Math.min(maxConsumers, current + 1);
+        }
+        return Math.max(minConsumers, Math.min(maxConsumers, current));
+    }
+
+    private void resize(SimpleMessageListenerContainer container, int current, int target) {
+        // The container's own scaling is pinned to the target so it cannot fight this controller
+        if (target > current) {
+            container.setMaxConcurrentConsumers(target);
+            container.setConcurrentConsumers(target);
+        } else {
+            container.setConcurrentConsumers(target);
+            container.setMaxConcurrentConsumers(target);
+        }
+    }
+}
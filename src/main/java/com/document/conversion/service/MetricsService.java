@@ -1,10 +1,15 @@
 package com.document.conversion.service;
 
 import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
 import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
 import io.micrometer.core.instrument.Timer;
 
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 import lombok.Getter;
 import org.springframework.stereotype.Service;
@@ -13,13 +18,18 @@ import org.springframework.stereotype.Service;
 @Getter
 public class MetricsService {
 
+    private final MeterRegistry registry;
     private final Counter conversionRequestsTotal;
     private final Counter conversionSuccessTotal;
     private final Counter conversionFailureTotal;
     private final AtomicInteger activeConversions;
-    private final Timer conversionDuration;
+    private final AtomicLong storedBytes;
+    private final AtomicInteger admissionState;
+    private final AtomicLong admissionBacklog;
+    private final Counter admissionRejectedTotal;
 
     public MetricsService(MeterRegistry registry) {
+        this.registry = registry;
         this.conversionRequestsTotal = Counter.builder("document_conversion_requests_total")
                 .description("Total number of conversion requests")
                 .register(registry);
@@ -35,33 +45,136 @@ public class MetricsService {
         this.activeConversions = registry.gauge("document_conversion_active",
                 new AtomicInteger(0));
 
-        this.conversionDuration = Timer.builder("document_conversion_duration")
-                .description("Time taken for document conversion")
+        this.storedBytes = registry.gauge("document_storage_used_bytes",
+                new AtomicLong(0));
+
+        // 0 while accepting submissions, 1 while shedding them
+        this.admissionState = registry.gauge("document_admission_state",
+                new AtomicInteger(0));
+
+        this.admissionBacklog = registry.gauge("document_admission_backlog",
+                new AtomicLong(0));
+
+        this.admissionRejectedTotal = Counter.builder("document_admission_rejected_total")
+                .description("Total number of submissions rejected while shedding load")
                 .register(registry);
     }
 
-    public void recordConversionStart() {
+    public void recordAdmission(AdmissionControlService.State state, long backlog) {
+        admissionState.set(state == AdmissionControlService.State.SHEDDING ? 1 : 0);
+        admissionBacklog.set(backlog);
+    }
+
+    public void recordAdmissionRejected() {
+        admissionRejectedTotal.increment();
+    }
+
+    public void recordRetentionSweep(long durationNanos) {
+        Timer.builder("document_retention_sweep_duration")
+                .description("Time taken by one retention sweep")
+                .register(registry)
+                .record(durationNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Counts a file removed by the retention sweeper. The kind is original or converted, the
+     * reason ttl or quota, or the kind orphan with reason unreferenced.
+     */
+    public void recordRetentionEviction(String kind, String reason, long bytes) {
+        Tags tags = Tags.of("kind", kind, "reason", reason);
+        Counter.builder("document_retention_evictions_total")
+                .description("Total number of files removed by the retention sweeper")
+                .tags(tags)
+                .register(registry)
+                .increment();
+        Counter.builder("document_retention_reclaimed_bytes_total")
+                .description("Total number of bytes reclaimed by the retention sweeper")
+                .baseUnit("bytes")
+                .tags(tags)
+                .register(registry)
+                .increment(bytes);
+    }
+
+    public void recordStoredBytes(long bytes) {
+        storedBytes.set(bytes);
+    }
+
+    /**
+     * Starts tracking a conversion. The returned context must be closed, which is what brings
+     * the active conversions gauge back down.
+     */
+    public ConversionContext startConversion(String sourceFormat, String targetFormat) {
         conversionRequestsTotal.increment();
         activeConversions.incrementAndGet();
+        return new ConversionContext(this,
+                formatTag(sourceFormat, DocumentConversionService.SupportedSourceFormat.values()),
+                formatTag(targetFormat, DocumentConversionService.SupportedTargetFormat.values()));
     }
 
-    public void recordConversionSuccess() {
-        conversionSuccessTotal.increment();
+    void recordConversionEnd(ConversionContext context, long durationNanos) {
         activeConversions.decrementAndGet();
-    }
+        String outcome = context.isSucceeded() ? "success"
+                : context.getCancelledAs() != null ? context.getCancelledAs().name().toLowerCase() : "failure";
+        (context.isSucceeded() ? conversionSuccessTotal : conversionFailureTotal).increment();
+        Tags tags = Tags.of(
+                "source_format", context.getSourceFormat(),
+                "target_format", context.getTargetFormat(),
+                "outcome", outcome);
 
-    public void recordConversionFailure() {
-        conversionFailureTotal.increment();
-        activeConversions.decrementAndGet();
+        Timer.builder("document_conversion_duration")
+                .description("Time taken for document conversion")
+                .tags(tags)
+                .publishPercentileHistogram()
+                .register(registry)
+                .record(durationNanos, TimeUnit.NANOSECONDS);
+
+        // Stage times are summed across render workers, so they can add up to more than the wall clock
+        for (ConversionContext.Stage stage : ConversionContext.Stage.values()) {
+            long stageNanos = context.getStageNanos(stage);
+            if (stageNanos > 0) {
+                Timer.builder("document_conversion_stage_duration")
+                        .description("Time spent in each conversion stage")
+                        .tags(tags.and("stage", stage.name().toLowerCase()))
+                        .publishPercentileHistogram()
+                        .register(registry)
+                        .record(stageNanos, TimeUnit.NANOSECONDS);
+            }
+        }
+
+        long pages = context.getPageCount();
+        summary("document_conversion_input_bytes", "Size of the source document", "bytes", tags)
+                .record(context.getInputBytes());
+        if (context.isSucceeded()) {
+            summary("document_conversion_output_bytes", "Size of the converted document", "bytes", tags)
+                    .record(context.getOutputBytes());
+        }
+        if (pages > 0) {
+            summary("document_conversion_pages", "Pages per conversion", "pages", tags).record(pages);
+            Counter.builder("document_conversion_pages_total")
+                    .description("Total number of converted pages")
+                    .tags(tags)
+                    .register(registry)
+                    .increment(pages);
+            summary("document_conversion_pages_per_second", "Conversion throughput in pages per second", null, tags)
+                    .record(pages * 1e9 / Math.max(durationNanos, 1));
+        }
     }
 
-    public Timer.Sample startTimer() {
-        return Timer.start();
+    private DistributionSummary summary(String name, String description, String baseUnit, Tags tags) {
+        return DistributionSummary.builder(name)
+                .description(description)
+                .baseUnit(baseUnit)
+                .tags(tags)
+                .publishPercentileHistogram()
+                .register(registry);
     }
 
-    public void stopTimer(Timer.Sample sample) {
-        if (sample != null) {
-            sample.stop(conversionDuration);
+    // Formats come from user input, only known values are used as tags to keep cardinality bounded
+    private static String formatTag(String format, Enum<?>[] supported) {
+        if (format == null) {
+            return "unknown";
         }
+        String normalized = format.toLowerCase();
+        return Arrays.stream(supported).anyMatch(value -> value.name().equals(normalized)) ? normalized : "unknown";
     }
 }
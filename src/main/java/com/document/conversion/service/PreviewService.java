@@ -0,0 +1,129 @@
+package com.document.conversion.service;
+
+import com.document.conversion.model.Document;
+import com.document.conversion.service.converter.PdfDocumentLoader;
+import com.document.conversion.service.converter.PngEncoder;
+import com.document.conversion.service.converter.RenderScale;
+import com.document.conversion.service.storage.StorageBackend;
+import com.document.conversion.service.storage.StorageWrite;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.rendering.ImageType;
+import org.apache.pdfbox.rendering.PDFRenderer;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.awt.image.BufferedImage;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Renders a small first-page thumbnail while the upload request is still open, so clients can
+ * show something before the queued conversion runs. Previews are best effort: a busy preview
+ * pool, an oversized upload or a render that misses the deadline simply means no preview.
+ */
+@Service
+@Slf4j
+public class PreviewService {
+
+    private final StorageBackend storageBackend;
+    private final PdfDocumentLoader pdfDocumentLoader;
+    private final PngEncoder pngEncoder;
+    private final ThreadPoolExecutor previewExecutor;
+    private final int dpi;
+    private final long maxPixels;
+    private final long maxSourceBytes;
+    private final long timeoutMs;
+
+    public PreviewService(StorageBackend storageBackend,
+                          PdfDocumentLoader pdfDocumentLoader,
+                          PngEncoder pngEncoder,
+                          @Qualifier("previewExecutor") ThreadPoolExecutor previewExecutor,
+                          @Value("${app.preview.dpi}") int dpi,
+                          @Value("${app.preview.max-pixels}") long maxPixels,
+                          @Value("${app.preview.max-source-bytes}") long maxSourceBytes,
+                          @Value("${app.preview.timeout-ms}") long timeoutMs) {
+        this.storageBackend = storageBackend;
+        this.pdfDocumentLoader = pdfDocumentLoader;
+        // Previews are small and already have their own bounded pool; encoding them on the shared
+        // encode pool would let upload requests queue up behind the conversions
+        this.pngEncoder = pngEncoder.serial();
+        this.previewExecutor = previewExecutor;
+        this.dpi = dpi;
+        this.maxPixels = maxPixels;
+        this.maxSourceBytes = maxSourceBytes;
+        this.timeoutMs = timeoutMs;
+    }
+
+    /**
+     * Renders the preview of the document's stored original and returns its file name, or empty
+     * when the preview could not be produced within the budget.
+     */
+    public Optional<String> generatePreview(Document document) {
+        if (!DocumentConversionService.SupportedSourceFormat.pdf.name().equalsIgnoreCase(document.getOriginalFormat())
+                || document.getOriginalFileSize() == null || document.getOriginalFileSize() > maxSourceBytes) {
+            return Optional.empty();
+        }
+        String previewFileName = "preview-" + UUID.randomUUID() + ".png";
+        String source = document.getOriginalFilePath();
+        Future<?> future;
+        try {
+            future = previewExecutor.submit(() -> {
+                render(source, previewFileName);
+                return null;
+            });
+        } catch (RejectedExecutionException e) {
+            log.debug("Preview pool is busy, skipping preview of {}", document.getOriginalFileName());
+            return Optional.empty();
+        }
+        try {
+            future.get(timeoutMs, TimeUnit.MILLISECONDS);
+            return Optional.of(previewFileName);
+        } catch (TimeoutException e) {
+            log.debug("Preview of {} missed the {} ms budget", document.getOriginalFileName(), timeoutMs);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            log.warn("Could not render preview of {}", document.getOriginalFileName(), e.getCause());
+        }
+        future.cancel(true);
+        try {
+            storageBackend.delete(previewFileName);
+        } catch (IOException e) {
+            log.warn("Could not delete abandoned preview {}", previewFileName, e);
+        }
+        return Optional.empty();
+    }
+
+    private void render(String source, String target) throws IOException {
+        try (PDDocument pdf = pdfDocumentLoader.load(storageBackend, source)) {
+            if (pdf.getNumberOfPages() == 0) {
+                throw new IOException("Document has no pages");
+            }
+            float scale = RenderScale.of(pdf.getPage(0), dpi, maxPixels);
+            BufferedImage image = new PDFRenderer(pdf).renderImage(0, scale, ImageType.RGB);
+            if (Thread.currentThread().isInterrupted()) {
+                return;
+            }
+            try (StorageWrite write = storageBackend.create(target)) {
+                OutputStream out = new BufferedOutputStream(write.outputStream());
+                pngEncoder.write(image, out);
+                out.flush();
+                // Abandoned by the caller while encoding, nobody would pick the file up
+                if (!Thread.currentThread().isInterrupted()) {
+                    write.commit();
+                }
+            }
+        }
+    }
+}
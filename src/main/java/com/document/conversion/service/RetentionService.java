@@ -0,0 +1,124 @@
+package com.document.conversion.service;
+
+import com.document.conversion.model.Document;
+import com.document.conversion.repository.DocumentRepository;
+import com.document.conversion.service.outbox.OutboxService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Retention state transitions of a document. Each one is a conditional update that a concurrent
+ * conversion or another replica's sweeper can win; the caller only deletes files once the update
+ * it asked for has been committed.
+ */
+@Service
+@Slf4j
+@RequiredArgsConstructor
+public class RetentionService {
+
+    // Downloads within this window of the stored access time do not write it again
+    private static final Duration ACCESS_TIME_RESOLUTION = Duration.ofMinutes(5);
+    private static final String EXPIRED_MESSAGE = "Converted document has expired";
+
+    private final DocumentRepository documentRepository;
+    private final ConversionLeaseService conversionLeaseService;
+    private final OutboxService outboxService;
+
+    public void recordDownload(UUID documentId) {
+        LocalDateTime now = LocalDateTime.now();
+        documentRepository.updateLastAccessed(documentId, now.minus(ACCESS_TIME_RESOLUTION), now);
+    }
+
+    /**
+     * Drops the converted file of a completed document, unless it was downloaded or reused since
+     * accessedBefore. The document is converted again on its next download while its original is
+     * still stored, and expires otherwise.
+     *
+     * @return whether the converted file can now be deleted
+     */
+    @Transactional
+    public boolean evictConvertedFile(Document document, LocalDateTime accessedBefore) {
+        boolean reconvertible = document.getOriginalFilePath() != null;
+        Document.ConversionStatus status = reconvertible ? Document.ConversionStatus.EVICTED : Document.ConversionStatus.EXPIRED;
+        String errorMessage = reconvertible ? null : EXPIRED_MESSAGE;
+        LocalDateTime now = LocalDateTime.now();
+        if (documentRepository.evictConvertedFile(document.getId(), document.getConvertedFilePath(), accessedBefore,
+                Document.ConversionStatus.COMPLETED, status, errorMessage, now) == 0) {
+            return false;
+        }
+        document.setStatus(status);
+        document.setConvertedFilePath(null);
+        document.setConvertedFileSize(null);
+        document.setErrorMessage(errorMessage);
+        document.setUpdatedAt(now);
+        conversionLeaseService.publishTransition(document);
+        return true;
+    }
+
+    /**
+     * Drops the original of a document and the previews rendered from it, for it and for the
+     * documents reusing its conversion, unless an identical upload reused it since usedBefore. An
+     * evicted document can then no longer be converted again and expires.
+     *
+     * @return the files that can now be deleted, empty when the document changed in the meantime
+     */
+    @Transactional
+    public List<String> releaseOriginalFile(Document document, LocalDateTime usedBefore) {
+        Document.ConversionStatus status = document.getStatus() == Document.ConversionStatus.EVICTED
+                ? Document.ConversionStatus.EXPIRED : document.getStatus();
+        String errorMessage = status == Document.ConversionStatus.EXPIRED ? EXPIRED_MESSAGE : document.getErrorMessage();
+        List<String> files = new ArrayList<>(documentRepository.findPreviewFilePaths(document.getId()));
+        LocalDateTime now = LocalDateTime.now();
+        if (documentRepository.releaseOriginalFile(document.getId(), document.getOriginalFilePath(), usedBefore,
+                document.getStatus(), status, errorMessage, now) == 0) {
+            return List.of();
+        }
+        documentRepository.releaseDuplicateFiles(document.getId());
+        files.add(document.getOriginalFilePath());
+        document.setStatus(status);
+        document.setOriginalFilePath(null);
+        document.setPreviewFilePath(null);
+        document.setErrorMessage(errorMessage);
+        document.setUpdatedAt(now);
+        // Also refreshes the cached responses, which tell whether a preview is available
+        conversionLeaseService.publishTransition(document);
+        return files.stream().distinct().toList();
+    }
+
+    /**
+     * Queues an evicted document, or the evicted conversion a duplicate reuses, for conversion.
+     *
+     * @return whether this call queued it
+     */
+    @Transactional
+    public boolean requestReconversion(UUID documentId) {
+        Document document = documentRepository.findById(documentId).orElse(null);
+        if (document != null && document.getDuplicateOf() != null) {
+            document = documentRepository.findById(document.getDuplicateOf()).orElse(null);
+        }
+        if (document == null || document.getStatus() != Document.ConversionStatus.EVICTED) {
+            return false;
+        }
+        LocalDateTime now = LocalDateTime.now();
+        if (documentRepository.requeue(document.getId(), Document.ConversionStatus.EVICTED,
+                Document.ConversionStatus.PENDING, now) == 0) {
+            return false;
+        }
+        log.info("document: {} was evicted, converting it again", document.getId());
+        document.setStatus(Document.ConversionStatus.PENDING);
+        document.setErrorMessage(null);
+        document.setAttempts(0);
+        document.setUpdatedAt(now);
+        conversionLeaseService.publishTransition(document);
+        outboxService.enqueue(document);
+        return true;
+    }
+}
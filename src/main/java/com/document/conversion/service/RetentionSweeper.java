@@ -0,0 +1,211 @@
+package com.document.conversion.service;
+
+import com.document.conversion.model.Document;
+import com.document.conversion.repository.DocumentRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Stream;
+
+/**
+ * Deletes stored files past their TTL and, when the stored bytes exceed the quota, evicts the
+ * least recently downloaded converted files. Each run removes at most batch-size files, which
+ * together with the sweep interval caps the delete rate, so a large backlog is worked off over
+ * several runs instead of competing with conversions for disk I/O.
+ * <p>
+ * A separate, less frequent pass deletes what a crash leaves behind: stored files that no
+ * document points at and writes that were never finished. It checks the files against this
+ * instance's database, so instances with separate databases must not share a storage location.
+ */
+@Component
+@Slf4j
+public class RetentionSweeper {
+
+    private static final List<Document.ConversionStatus> IN_FLIGHT_STATUSES =
+            List.of(Document.ConversionStatus.PENDING, Document.ConversionStatus.IN_PROGRESS);
+
+    private final DocumentRepository documentRepository;
+    private final RetentionService retentionService;
+    private final FileStorageService fileStorageService;
+    private final MetricsService metricsService;
+    private final boolean enabled;
+    private final Duration originalTtl;
+    private final Duration convertedTtl;
+    private final long quotaBytes;
+    private final int batchSize;
+    private final Duration orphanGrace;
+
+    public RetentionSweeper(DocumentRepository documentRepository,
+                            RetentionService retentionService,
+                            FileStorageService fileStorageService,
+                            MetricsService metricsService,
+                            @Value("${app.retention.enabled}") boolean enabled,
+                            @Value("${app.retention.original-ttl}") Duration originalTtl,
+                            @Value("${app.retention.converted-ttl}") Duration convertedTtl,
+                            @Value("${app.retention.quota}") DataSize quota,
+                            @Value("${app.retention.batch-size}") int batchSize,
+                            @Value("${app.retention.orphan-grace}") Duration orphanGrace) {
+        this.documentRepository = documentRepository;
+        this.retentionService = retentionService;
+        this.fileStorageService = fileStorageService;
+        this.metricsService = metricsService;
+        this.enabled = enabled;
+        this.originalTtl = originalTtl;
+        this.convertedTtl = convertedTtl;
+        this.quotaBytes = quota.toBytes();
+        this.batchSize = batchSize;
+        this.orphanGrace = orphanGrace;
+    }
+
+    @Scheduled(fixedDelayString = "${app.retention.sweep-interval-ms}")
+    public void sweep() {
+        if (!enabled) {
+            return;
+        }
+        long start = System.nanoTime();
+        try {
+            LocalDateTime now = LocalDateTime.now();
+            int budget = batchSize;
+            if (!convertedTtl.isZero()) {
+                budget -= evictConvertedFiles(now.minus(convertedTtl), budget, "ttl");
+            }
+            if (!originalTtl.isZero() && budget > 0) {
+                budget -= releaseOriginalFiles(now.minus(originalTtl), budget);
+            }
+            enforceQuota(now, budget);
+        } catch (RuntimeException e) {
+            log.error("Retention sweep failed", e);
+        } finally {
+            metricsService.recordRetentionSweep(System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * Deletes abandoned writes and, up to batch-size of them, files no document points at. Only
+     * files older than orphan-grace are considered, as the document of a younger one may not be
+     * committed yet.
+     */
+    @Scheduled(fixedDelayString = "${app.retention.orphan-sweep-interval-ms}")
+    public void sweepOrphans() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            Instant modifiedBefore = Instant.now().minus(orphanGrace);
+            int abandoned = fileStorageService.deleteAbandonedWrites(modifiedBefore);
+            int unreferenced = deleteUnreferencedFiles(modifiedBefore);
+            if (abandoned > 0 || unreferenced > 0) {
+                log.info("Deleted {} unreferenced files and {} abandoned writes", unreferenced, abandoned);
+            }
+        } catch (RuntimeException e) {
+            log.error("Orphan sweep failed", e);
+        }
+    }
+
+    private int deleteUnreferencedFiles(Instant modifiedBefore) {
+        int deleted = 0;
+        try (Stream<String> files = fileStorageService.listFilesModifiedBefore(modifiedBefore)) {
+            Iterator<String> iterator = files.iterator();
+            List<String> batch = new ArrayList<>(batchSize);
+            while (deleted < batchSize && iterator.hasNext()) {
+                batch.add(iterator.next());
+                if (batch.size() == batchSize || !iterator.hasNext()) {
+                    deleted += deleteUnreferenced(batch, batchSize - deleted);
+                    batch.clear();
+                }
+            }
+        }
+        return deleted;
+    }
+
+    private int deleteUnreferenced(List<String> files, int budget) {
+        Set<String> referenced = new HashSet<>(documentRepository.findReferencedFilePaths(files));
+        int deleted = 0;
+        for (String file : files) {
+            if (deleted == budget) {
+                break;
+            }
+            if (!referenced.contains(file)) {
+                long size = fileStorageService.fileSize(file);
+                fileStorageService.deleteFile(file);
+                metricsService.recordRetentionEviction("orphan", "unreferenced", size);
+                deleted++;
+            }
+        }
+        return deleted;
+    }
+
+    private int evictConvertedFiles(LocalDateTime accessedBefore, int budget, String reason) {
+        int evicted = 0;
+        for (Document document : documentRepository.findLeastRecentlyAccessed(
+                Document.ConversionStatus.COMPLETED, accessedBefore, Limit.of(budget))) {
+            if (evictConvertedFile(document, accessedBefore, reason)) {
+                evicted++;
+            }
+        }
+        return evicted;
+    }
+
+    private boolean evictConvertedFile(Document document, LocalDateTime accessedBefore, String reason) {
+        String convertedFilePath = document.getConvertedFilePath();
+        long convertedFileSize = sizeOf(document.getConvertedFileSize());
+        if (!retentionService.evictConvertedFile(document, accessedBefore)) {
+            return false;
+        }
+        fileStorageService.deleteFile(convertedFilePath);
+        metricsService.recordRetentionEviction("converted", reason, convertedFileSize);
+        return true;
+    }
+
+    private int releaseOriginalFiles(LocalDateTime usedBefore, int budget) {
+        int released = 0;
+        for (Document document : documentRepository.findWithOriginalUnusedSince(
+                IN_FLIGHT_STATUSES, usedBefore, Limit.of(budget))) {
+            long originalFileSize = sizeOf(document.getOriginalFileSize());
+            List<String> files = retentionService.releaseOriginalFile(document, usedBefore);
+            if (!files.isEmpty()) {
+                files.forEach(fileStorageService::deleteFile);
+                // Previews are small and not part of the quota, only the original is accounted
+                metricsService.recordRetentionEviction("original", "ttl", originalFileSize);
+                released++;
+            }
+        }
+        return released;
+    }
+
+    private void enforceQuota(LocalDateTime now, int budget) {
+        long storedBytes = documentRepository.sumOriginalFileSize()
+                + documentRepository.sumConvertedFileSize(Document.ConversionStatus.COMPLETED);
+        if (quotaBytes > 0 && storedBytes > quotaBytes && budget > 0) {
+            log.info("Stored {} bytes exceed the quota of {} bytes, evicting converted files", storedBytes, quotaBytes);
+            for (Document document : documentRepository.findLeastRecentlyAccessed(
+                    Document.ConversionStatus.COMPLETED, now, Limit.of(budget))) {
+                if (storedBytes <= quotaBytes) {
+                    break;
+                }
+                long convertedFileSize = sizeOf(document.getConvertedFileSize());
+                if (evictConvertedFile(document, now, "quota")) {
+                    storedBytes -= convertedFileSize;
+                }
+            }
+        }
+        metricsService.recordStoredBytes(storedBytes);
+    }
+
+    // Documents converted before sizes were recorded count as empty
+    private static long sizeOf(Long size) {
+        return size != null ? size : 0;
+    }
+}
@@ -1,9 +1,14 @@
 package com.document.conversion.service.converter;
 
 import com.document.conversion.model.Document;
+import com.document.conversion.service.ConversionContext;
 
 import java.io.IOException;
 
 public interface DocumentConverter {
-    String convert(Document document) throws IOException;
+    default String convert(Document document) throws IOException {
+        return convert(document, ConversionContext.untracked());
+    }
+
+    String convert(Document document, ConversionContext context) throws IOException;
 }
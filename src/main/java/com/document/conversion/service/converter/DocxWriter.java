@@ -0,0 +1,114 @@
+package com.document.conversion.service.converter;
+
+import javax.xml.XMLConstants;
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
+import java.io.Closeable;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Writes a minimal WordprocessingML package one paragraph at a time, so memory use does not grow
+ * with the size of the document the way an in-memory XWPFDocument model does.
+ */
+class DocxWriter implements Closeable {
+
+    private static final String WORD_NAMESPACE = "http://schemas.openxmlformats.org/wordprocessingml/2006/main";
+    private static final String CONTENT_TYPES = """
+            <?xml version="1.0" encoding="UTF-8" standalone="yes"?>
+            <Types xmlns="http://schemas.openxmlformats.org/package/2006/content-types">
+            <Default Extension="rels" ContentType="application/vnd.openxmlformats-package.relationships+xml"/>
+            <Default Extension="xml" ContentType="application/xml"/>
+            <Override PartName="/word/document.xml" ContentType="application/vnd.openxmlformats-officedocument.wordprocessingml.document.main+xml"/>
+            </Types>""";
+    private static final String RELATIONSHIPS = """
+            <?xml version="1.0" encoding="UTF-8" standalone="yes"?>
+            <Relationships xmlns="http://schemas.openxmlformats.org/package/2006/relationships">
+            <Relationship Id="rId1" Type="http://schemas.openxmlformats.org/officeDocument/2006/relationships/officeDocument" Target="word/document.xml"/>
+            </Relationships>""";
+
+    private final ZipOutputStream zip;
+    private final XMLStreamWriter xml;
+
+    DocxWriter(OutputStream out) throws IOException {
+        this.zip = new ZipOutputStream(out);
+        writeEntry("[Content_Types].xml", CONTENT_TYPES);
+        writeEntry("_rels/.rels", RELATIONSHIPS);
+        zip.putNextEntry(new ZipEntry("word/document.xml"));
+        try {
+            // Closing the XML writer must not close the zip stream underneath it
+            this.xml = XMLOutputFactory.newFactory().createXMLStreamWriter(new FilterOutputStream(zip) {
+                @Override
+                public void write(byte[] b, int off, int len) throws IOException {
+                    out.write(b, off, len);
+                }
+
+                @Override
+                public void close() {
+                }
+            }, "UTF-8");
+            xml.writeStartDocument("UTF-8", "1.0");
+            xml.setPrefix("w", WORD_NAMESPACE);
+            xml.writeStartElement(WORD_NAMESPACE, "document");
+            xml.writeNamespace("w", WORD_NAMESPACE);
+            xml.writeStartElement(WORD_NAMESPACE, "body");
+        } catch (XMLStreamException e) {
+            throw new IOException("Could not start document part", e);
+        }
+    }
+
+    void addParagraph(CharSequence text) throws IOException {
+        try {
+            xml.writeStartElement(WORD_NAMESPACE, "p");
+            if (!text.isEmpty()) {
+                xml.writeStartElement(WORD_NAMESPACE, "r");
+                xml.writeStartElement(WORD_NAMESPACE, "t");
+                xml.writeAttribute(XMLConstants.XML_NS_PREFIX, XMLConstants.XML_NS_URI, "space", "preserve");
+                xml.writeCharacters(stripInvalidXmlChars(text));
+                xml.writeEndElement();
+                xml.writeEndElement();
+            }
+            xml.writeEndElement();
+        } catch (XMLStreamException e) {
+            throw new IOException("Could not write paragraph", e);
+        }
+    }
+
+    void finish() throws IOException {
+        try {
+            xml.writeEndElement();
+            xml.writeEndElement();
+            xml.writeEndDocument();
+            xml.close();
+        } catch (XMLStreamException e) {
+            throw new IOException("Could not finish document part", e);
+        }
+        zip.closeEntry();
+        zip.finish();
+    }
+
+    @Override
+    public void close() throws IOException {
+        zip.close();
+    }
+
+    private void writeEntry(String name, String content) throws IOException {
+        zip.putNextEntry(new ZipEntry(name));
+        zip.write(content.getBytes(StandardCharsets.UTF_8));
+        zip.closeEntry();
+    }
+
+    private static String stripInvalidXmlChars(CharSequence text) {
+        StringBuilder valid = new StringBuilder(text.length());
+        text.codePoints()
+                .filter(c -> c == 0x9 || c == 0xA || c == 0xD || (c >= 0x20 && c <= 0xD7FF)
+                        || (c >= 0xE000 && c <= 0xFFFD) || (c >= 0x10000 && c <= 0x10FFFF))
+                .forEach(valid::appendCodePoint);
+        return valid.toString();
+    }
+}
@@ -0,0 +1,120 @@
+package com.document.conversion.service.converter;
+
+import org.apache.pdfbox.io.RandomAccessRead;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Read-only PDFBox source backed by a memory-mapped file, so the parser reads straight from the
+ * page cache instead of copying the document onto the heap.
+ */
+class MappedRandomAccessRead implements RandomAccessRead {
+
+    private final MappedByteBuffer buffer;
+    private boolean closed;
+
+    MappedRandomAccessRead(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            this.buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+    }
+
+    @Override
+    public int read() throws IOException {
+        checkClosed();
+        return buffer.hasRemaining() ? buffer.get() & 0xFF : -1;
+    }
+
+    @Override
+    public int read(byte[] b) throws IOException {
+        return read(b, 0, b.length);
+    }
+
+    @Override
+    public int read(byte[] b, int offset, int length) throws IOException {
+        checkClosed();
+        if (!buffer.hasRemaining()) {
+            return -1;
+        }
+        int count = Math.min(length, buffer.remaining());
+        buffer.get(b, offset, count);
+        return count;
+    }
+
+    @Override
+    public long getPosition() throws IOException {
+        checkClosed();
+        return buffer.position();
+    }
+
+    @Override
+    public void seek(long position) throws IOException {
+        checkClosed();
+        if (position < 0) {
+            throw new IOException("Invalid position " + position);
+        }
+        buffer.position((int) Math.min(position, buffer.limit()));
+    }
+
+    @Override
+    public long length() throws IOException {
+        checkClosed();
+        return buffer.limit();
+    }
+
+    @Override
+    public boolean isClosed() {
+        return closed;
+    }
+
+    @Override
+    public int peek() throws IOException {
+        checkClosed();
+        return buffer.hasRemaining() ? buffer.get(buffer.position()) & 0xFF : -1;
+    }
+
+    @Override
+    public void rewind(int bytes) throws IOException {
+        seek(getPosition() - bytes);
+    }
+
+    @Override
+    public byte[] readFully(int length) throws IOException {
+        checkClosed();
+        if (buffer.remaining() < length) {
+            throw new EOFException("Premature end of buffer reached");
+        }
+        byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        return bytes;
+    }
+
+    @Override
+    public boolean isEOF() throws IOException {
+        checkClosed();
+        return !buffer.hasRemaining();
+    }
+
+    @Override
+    public int available() throws IOException {
+        checkClosed();
+        return buffer.remaining();
+    }
+
+    @Override
+    public void close() {
+        // The mapping itself is released once the buffer is garbage collected
+        closed = true;
+    }
+
+    private void checkClosed() throws IOException {
+        if (closed) {
+            throw new IOException("RandomAccessRead already closed");
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package com.document.conversion.service.converter;
+
+import com.document.conversion.exception.ConversionException;
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Inclusive, 1-based page range. A null last page means "up to the end of the document".
+ */
+@Getter
+@AllArgsConstructor(access = AccessLevel.PRIVATE)
+public class PageRange {
+
+    private static final PageRange ALL = new PageRange(1, null);
+
+    private final int firstPage;
+    private final Integer lastPage;
+
+    public static PageRange all() {
+        return ALL;
+    }
+
+    public static PageRange of(int firstPage, Integer lastPage) {
+        if (firstPage < 1 || (lastPage != null && lastPage < firstPage)) {
+            throw new ConversionException("Invalid page range: " + firstPage + "-" + lastPage);
+        }
+        return new PageRange(firstPage, lastPage);
+    }
+
+    /**
+     * Parses "3", "2-5" or "4-" (open ended).
+     */
+    public static PageRange parse(String range) {
+        String trimmed = range.trim();
+        try {
+            int dash = trimmed.indexOf('-');
+            if (dash < 0) {
+                int page = Integer.parseInt(trimmed);
+                return of(page, page);
+            }
+            String last = trimmed.substring(dash + 1).trim();
+            return of(Integer.parseInt(trimmed.substring(0, dash).trim()), last.isEmpty() ? null : Integer.valueOf(last));
+        } catch (NumberFormatException e) {
+            throw new ConversionException("Invalid page range: " + range);
+        }
+    }
+
+    @Override
+    public String toString() {
+        if (lastPage == null) {
+            return firstPage + "-";
+        }
+        return firstPage == lastPage ? String.valueOf(firstPage) : firstPage + "-" + lastPage;
+    }
+
+    /**
+     * Zero-based index of the first page to convert.
+     */
+    public int startIndex(int pageCount) {
+        if (firstPage > pageCount) {
+            throw new ConversionException("Page range starts after the last page (" + pageCount + ")");
+        }
+        return firstPage - 1;
+    }
+
+    /**
+     * Zero-based index of the last page to convert, clamped to the document.
+     */
+    public int endIndex(int pageCount) {
+        return lastPage == null ? pageCount - 1 : Math.min(lastPage, pageCount) - 1;
+    }
+}
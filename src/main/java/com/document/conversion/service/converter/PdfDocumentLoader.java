@@ -0,0 +1,117 @@
+package com.document.conversion.service.converter;
+
+import com.document.conversion.service.storage.StorageBackend;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.pdfbox.io.IOUtils;
+import org.apache.pdfbox.io.MemoryUsageSetting;
+import org.apache.pdfbox.io.RandomAccessRead;
+import org.apache.pdfbox.io.ScratchFile;
+import org.apache.pdfbox.pdfparser.PDFParser;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Optional;
+
+/**
+ * Opens stored PDFs with a loading strategy picked from the file size: small files are read
+ * into memory, medium ones are memory-mapped and large ones are read through a random-access
+ * file. Mapped and random-access documents keep their parsed objects in a scratch buffer that
+ * holds at most max-main-memory-bytes on the heap and spills the rest to temp files.
+ */
+@Component
+@Slf4j
+public class PdfDocumentLoader {
+
+    public enum Strategy {
+        AUTO,
+        MEMORY,
+        MAPPED,
+        RANDOM_ACCESS
+    }
+
+    private final Strategy strategy;
+    private final long inMemoryThreshold;
+    private final long mappedThreshold;
+    private final long maxMainMemoryBytes;
+    private final File scratchDirectory;
+
+    public PdfDocumentLoader(
+            @Value("${app.pdf.loading.strategy}") Strategy strategy,
+            @Value("${app.pdf.loading.in-memory-threshold-bytes}") long inMemoryThreshold,
+            @Value("${app.pdf.loading.mapped-threshold-bytes}") long mappedThreshold,
+            @Value("${app.pdf.loading.max-main-memory-bytes}") long maxMainMemoryBytes,
+            @Value("${app.pdf.loading.scratch-dir:}") String scratchDirectory) {
+        this.strategy = strategy;
+        this.inMemoryThreshold = inMemoryThreshold;
+        this.mappedThreshold = mappedThreshold;
+        this.maxMainMemoryBytes = maxMainMemoryBytes;
+        this.scratchDirectory = StringUtils.hasText(scratchDirectory) ? new File(scratchDirectory) : null;
+    }
+
+    /**
+     * Loads a stored object. Objects without a local file are always read into memory.
+     */
+    public PDDocument load(StorageBackend storageBackend, String key) throws IOException {
+        Optional<Path> file = storageBackend.localFile(key);
+        if (file.isPresent()) {
+            return load(file.get());
+        }
+        try (InputStream in = storageBackend.openInputStream(key)) {
+            return PDDocument.load(in.readAllBytes(), "", null, null, MemoryUsageSetting.setupMainMemoryOnly());
+        }
+    }
+
+    public PDDocument load(Path path) throws IOException {
+        long size = Files.size(path);
+        Strategy selected = selectStrategy(size);
+        log.debug("Loading {} ({} bytes) with strategy {}", path.getFileName(), size, selected);
+        return switch (selected) {
+            case MEMORY -> PDDocument.load(Files.readAllBytes(path), "", null, null,
+                    MemoryUsageSetting.setupMainMemoryOnly());
+            case MAPPED -> parse(new MappedRandomAccessRead(path));
+            default -> PDDocument.load(path.toFile(), spillingMemoryUsage());
+        };
+    }
+
+    Strategy selectStrategy(long size) {
+        Strategy selected = strategy;
+        if (selected == Strategy.AUTO) {
+            if (size <= inMemoryThreshold) {
+                selected = Strategy.MEMORY;
+            } else if (size <= mappedThreshold) {
+                selected = Strategy.MAPPED;
+            } else {
+                selected = Strategy.RANDOM_ACCESS;
+            }
+        }
+        // A single mapping cannot exceed 2GB
+        if (selected == Strategy.MAPPED && size > Integer.MAX_VALUE) {
+            selected = Strategy.RANDOM_ACCESS;
+        }
+        return selected;
+    }
+
+    private PDDocument parse(RandomAccessRead source) throws IOException {
+        ScratchFile scratchFile = new ScratchFile(spillingMemoryUsage());
+        try {
+            PDFParser parser = new PDFParser(source, "", scratchFile);
+            parser.parse();
+            return parser.getPDDocument();
+        } catch (IOException e) {
+            IOUtils.closeQuietly(scratchFile);
+            IOUtils.closeQuietly(source);
+            throw e;
+        }
+    }
+
+    private MemoryUsageSetting spillingMemoryUsage() {
+        return MemoryUsageSetting.setupMixed(maxMainMemoryBytes).setTempDir(scratchDirectory);
+    }
+}
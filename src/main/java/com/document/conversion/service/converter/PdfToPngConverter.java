@@ -1,36 +1,206 @@
 package com.document.conversion.service.converter;
 
+import com.document.conversion.exception.ConversionException;
 import com.document.conversion.model.Document;
-import com.document.conversion.service.FileStorageService;
-import lombok.AllArgsConstructor;
+import com.document.conversion.model.RenderOptions;
+import com.document.conversion.service.ConversionContext;
+import com.document.conversion.service.ConversionContext.Stage;
+import com.document.conversion.service.storage.StorageBackend;
+import com.document.conversion.service.storage.StorageWrite;
+import lombok.extern.slf4j.Slf4j;
 import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.rendering.ImageType;
 import org.apache.pdfbox.rendering.PDFRenderer;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
-import javax.imageio.ImageIO;
 import java.awt.image.BufferedImage;
-import java.io.File;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
-import java.io.InputStream;
-import java.nio.file.Files;
+import java.io.OutputStream;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Queue;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.zip.Deflater;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
 
 @Service
-@AllArgsConstructor
+@Slf4j
 public class PdfToPngConverter implements DocumentConverter {
 
-    private final FileStorageService fileStorageService;
+    private final StorageBackend storageBackend;
+    private final PdfDocumentLoader pdfDocumentLoader;
+    private final ThreadPoolExecutor pageRenderExecutor;
+    private final PngEncoder pngEncoder;
+    private final int defaultDpi;
+    private final RenderOptions.ImageType defaultImageType;
+    private final long maxPixels;
 
+    public PdfToPngConverter(StorageBackend storageBackend,
+                             PdfDocumentLoader pdfDocumentLoader,
+                             @Qualifier("pageRenderExecutor") ThreadPoolExecutor pageRenderExecutor,
+                             PngEncoder pngEncoder,
+                             @Value("${app.conversion.render.default-dpi}") int defaultDpi,
+                             @Value("${app.conversion.render.default-image-type}") RenderOptions.ImageType defaultImageType,
+                             @Value("${app.conversion.render.max-pixels}") long maxPixels) {
+        this.storageBackend = storageBackend;
+        this.pdfDocumentLoader = pdfDocumentLoader;
+        this.pageRenderExecutor = pageRenderExecutor;
+        this.pngEncoder = pngEncoder;
+        this.defaultDpi = defaultDpi;
+        this.defaultImageType = defaultImageType;
+        this.maxPixels = maxPixels;
+    }
+
+    /**
+     * Renders the requested pages across the render pool. A single page is encoded straight into
+     * the converted PNG; several pages are streamed in page order into a zip archive with one
+     * page-indexed PNG per entry, without storing the pages separately first.
+     */
     @Override
-    public String convert(Document document) throws IOException {
-        try (InputStream inputStream = Files.newInputStream(fileStorageService.getFilePath(document.getOriginalFilePath()));
-             PDDocument pdf = PDDocument.load(inputStream)) {
-            PDFRenderer renderer = new PDFRenderer(pdf);
-            BufferedImage image = renderer.renderImageWithDPI(0, 300); // Convert first page at 300 DPI
-            String convertedFileName = "converted-" + UUID.randomUUID() + ".png";
-            File outputFile = fileStorageService.getFilePath(convertedFileName).toFile();
-            ImageIO.write(image, "PNG", outputFile);
-            return convertedFileName;
+    public String convert(Document document, ConversionContext context) throws IOException {
+        RenderOptions options = document.getRenderOptions() != null ? document.getRenderOptions() : new RenderOptions();
+        PageRange pageRange = options.getPageRange() != null ? PageRange.parse(options.getPageRange()) : PageRange.all();
+        RenderSettings settings = new RenderSettings(
+                options.getDpi() != null ? options.getDpi() : defaultDpi,
+                toPdfBoxImageType(options.getImageType() != null ? options.getImageType() : defaultImageType),
+                options.getMaxPixels() != null ? Math.min(options.getMaxPixels(), maxPixels) : maxPixels);
+        String source = document.getOriginalFilePath();
+        context.setInputBytes(storageBackend.size(source));
+        String baseName = "converted-" + UUID.randomUUID();
+        String convertedFileName;
+        try (PDDocument pdf = context.time(Stage.LOAD, () -> pdfDocumentLoader.load(storageBackend, source))) {
+            int pageCount = pdf.getNumberOfPages();
+            int first = pageRange.startIndex(pageCount);
+            int last = pageRange.endIndex(pageCount);
+            if (first == last) {
+                convertedFileName = baseName + ".png";
+                storePage(pdf, first, convertedFileName, settings, context);
+            } else {
+                convertedFileName = baseName + ".zip";
+                storeArchive(pdf, source, first, last, convertedFileName, settings, context);
+            }
+            context.addPages(last - first + 1);
+        }
+        context.setOutputBytes(storageBackend.size(convertedFileName));
+        return convertedFileName;
+    }
+
+    private void storePage(PDDocument pdf, int pageIndex, String convertedFileName, RenderSettings settings,
+                           ConversionContext context) throws IOException {
+        // Closing an uncommitted write on failure discards it
+        try (StorageWrite write = storageBackend.create(convertedFileName)) {
+            OutputStream out = new BufferedOutputStream(write.outputStream());
+            renderPage(pdf, pageIndex, settings, context, out);
+            out.flush();
+            context.run(Stage.STORE, write::commit);
+        }
+    }
+
+    private void storeArchive(PDDocument pdf, String source, int first, int last, String convertedFileName,
+                              RenderSettings settings, ConversionContext context) throws IOException {
+        int pages = last - first + 1;
+        int workers = Math.min(pageRenderExecutor.getMaximumPoolSize(), pages);
+        // Encoded pages wait in memory until the pages before them are in the archive, so only a
+        // window of pages is handed to the pool ahead of the one being written
+        int window = 2 * workers;
+        // PDFBox documents are not thread-safe: every page task takes an idle handle, or opens one
+        // when all are in use. The caller's handle is the first, so at most one per worker is opened
+        Queue<PDDocument> idleHandles = new ConcurrentLinkedQueue<>(List.of(pdf));
+        Queue<PDDocument> openedHandles = new ConcurrentLinkedQueue<>();
+        Deque<Future<byte[]>> pending = new ArrayDeque<>();
+        List<Future<byte[]>> submitted = new ArrayList<>();
+        int digits = String.valueOf(last + 1).length();
+        try (StorageWrite write = storageBackend.create(convertedFileName)) {
+            try (ZipOutputStream zip = new ZipOutputStream(new BufferedOutputStream(write.outputStream()))) {
+                // PNG data is already deflated, recompressing it only burns CPU
+                zip.setLevel(Deflater.NO_COMPRESSION);
+                int next = first;
+                for (int pageIndex = first; pageIndex <= last; pageIndex++) {
+                    for (; next <= last && pending.size() < window; next++) {
+                        Future<byte[]> future = submitPage(next, source, idleHandles, openedHandles, settings, context);
+                        pending.add(future);
+                        submitted.add(future);
+                    }
+                    byte[] png = pending.remove().get();
+                    String entryName = String.format("page-%0" + digits + "d.png", pageIndex + 1);
+                    context.run(Stage.STORE, () -> {
+                        zip.putNextEntry(new ZipEntry(entryName));
+                        zip.write(png);
+                        zip.closeEntry();
+                    });
+                }
+            }
+            context.run(Stage.STORE, write::commit);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ConversionException("Interrupted while rendering pages", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException ioException) {
+                throw ioException;
+            }
+            throw new ConversionException("Page rendering failed", e.getCause());
+        } finally {
+            // No task may still be using a handle once they are closed
+            PoolTasks.awaitAll(pageRenderExecutor, submitted);
+            for (PDDocument handle : openedHandles) {
+                handle.close();
+            }
+        }
+        log.debug("Stored {} rendered pages in {}", pages, convertedFileName);
+    }
+
+    private Future<byte[]> submitPage(int pageIndex, String source, Queue<PDDocument> idleHandles,
+                                      Queue<PDDocument> openedHandles, RenderSettings settings,
+                                      ConversionContext context) {
+        return pageRenderExecutor.submit(() -> {
+            PDDocument handle = idleHandles.poll();
+            if (handle == null) {
+                handle = context.time(Stage.LOAD, () -> pdfDocumentLoader.load(storageBackend, source));
+                openedHandles.add(handle);
+            }
+            try {
+                ByteArrayOutputStream out = new ByteArrayOutputStream();
+                renderPage(handle, pageIndex, settings, context, out);
+                return out.toByteArray();
+            } finally {
+                idleHandles.add(handle);
+            }
+        });
+    }
+
+    private void renderPage(PDDocument pdf, int pageIndex, RenderSettings settings, ConversionContext context,
+                            OutputStream out) throws IOException {
+        context.checkCancelled();
+        float scale = settings.scale(pdf.getPage(pageIndex));
+        BufferedImage image = context.time(Stage.RENDER,
+                () -> new PDFRenderer(pdf).renderImage(pageIndex, scale, settings.imageType()));
+        context.run(Stage.ENCODE, () -> pngEncoder.write(image, out));
+    }
+
+    private static ImageType toPdfBoxImageType(RenderOptions.ImageType imageType) {
+        return switch (imageType) {
+            case RGB -> ImageType.RGB;
+            case GRAY -> ImageType.GRAY;
+            case BINARY -> ImageType.BINARY;
+        };
+    }
+
+    private record RenderSettings(int dpi, ImageType imageType, long maxPixels) {
+
+        float scale(PDPage page) {
+            return RenderScale.of(page, dpi, maxPixels);
         }
     }
-}
\ No newline at end of file
+}
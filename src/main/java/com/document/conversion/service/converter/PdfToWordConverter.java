@@ -1,50 +1,184 @@
 package com.document.conversion.service.converter;
 
+import com.document.conversion.exception.ConversionException;
 import com.document.conversion.model.Document;
-import com.document.conversion.service.FileStorageService;
-import lombok.AllArgsConstructor;
+import com.document.conversion.model.RenderOptions;
+import com.document.conversion.service.ConversionContext;
+import com.document.conversion.service.ConversionContext.Stage;
+import com.document.conversion.service.storage.StorageBackend;
+import com.document.conversion.service.storage.StorageWrite;
 import org.apache.pdfbox.pdmodel.PDDocument;
-import org.apache.pdfbox.rendering.PDFRenderer;
 import org.apache.pdfbox.text.PDFTextStripper;
-import org.apache.poi.xwpf.usermodel.XWPFDocument;
-import org.apache.poi.xwpf.usermodel.XWPFParagraph;
-import org.apache.poi.xwpf.usermodel.XWPFRun;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.stereotype.Service;
 
-import javax.imageio.ImageIO;
-import java.awt.image.BufferedImage;
-import java.io.File;
-import java.io.FileOutputStream;
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
 import java.io.IOException;
-import java.io.InputStream;
-import java.nio.file.Files;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.UUID;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadPoolExecutor;
 
 @Service
-@AllArgsConstructor
 public class PdfToWordConverter implements DocumentConverter {
 
-    private final FileStorageService fileStorageService;
+    private final StorageBackend storageBackend;
+    private final PdfDocumentLoader pdfDocumentLoader;
+    private final ThreadPoolExecutor pageRenderExecutor;
 
+    public PdfToWordConverter(StorageBackend storageBackend,
+                              PdfDocumentLoader pdfDocumentLoader,
+                              @Qualifier("pageRenderExecutor") ThreadPoolExecutor pageRenderExecutor) {
+        this.storageBackend = storageBackend;
+        this.pdfDocumentLoader = pdfDocumentLoader;
+        this.pageRenderExecutor = pageRenderExecutor;
+    }
+
+    /**
+     * Extracts text page by page, one paragraph per line. The first chunk of pages is streamed
+     * straight into the output document while the remaining chunks are extracted in parallel
+     * into temporary segments, which are then appended in page order.
+     */
     @Override
-    public String convert(Document document) throws IOException {
-        try (InputStream inputStream = Files.newInputStream(fileStorageService.getFilePath(document.getOriginalFilePath()));
-             PDDocument pdf = PDDocument.load(inputStream);
-             XWPFDocument doc = new XWPFDocument()) {
-            PDFTextStripper stripper = new PDFTextStripper();
-            String text = stripper.getText(pdf);
-            String[] lines = text.split("\n");
-            for (String line : lines) {
-                XWPFParagraph paragraph = doc.createParagraph();
-                XWPFRun run = paragraph.createRun();
-                run.setText(line);
+    public String convert(Document document, ConversionContext context) throws IOException {
+        RenderOptions options = document.getRenderOptions();
+        PageRange pageRange = options != null && options.getPageRange() != null
+                ? PageRange.parse(options.getPageRange()) : PageRange.all();
+        String source = document.getOriginalFilePath();
+        context.setInputBytes(storageBackend.size(source));
+        String convertedFileName = "converted-" + UUID.randomUUID() + ".docx";
+        List<String> segments = new ArrayList<>();
+        try (StorageWrite output = storageBackend.create(convertedFileName)) {
+            try (PDDocument pdf = context.time(Stage.LOAD, () -> pdfDocumentLoader.load(storageBackend, source));
+                 OutputStream out = new BufferedOutputStream(output.outputStream());
+                 DocxWriter docx = new DocxWriter(out)) {
+                int pageCount = pdf.getNumberOfPages();
+                // PDFTextStripper pages are 1-based
+                int firstPage = pageRange.startIndex(pageCount) + 1;
+                int lastPage = pageRange.endIndex(pageCount) + 1;
+                int pages = lastPage - firstPage + 1;
+                int chunks = Math.min(pageRenderExecutor.getMaximumPoolSize(), pages);
+                int chunkSize = (pages + chunks - 1) / chunks;
+
+                List<Future<?>> futures = new ArrayList<>();
+                try {
+                    for (int from = firstPage + chunkSize; from <= lastPage; from += chunkSize) {
+                        int chunkStart = from;
+                        int chunkEnd = Math.min(from + chunkSize - 1, lastPage);
+                        String segment = convertedFileName + "-part-" + segments.size();
+                        segments.add(segment);
+                        futures.add(pageRenderExecutor.submit(() -> {
+                            try (PDDocument workerPdf = context.time(Stage.LOAD,
+                                    () -> pdfDocumentLoader.load(storageBackend, source));
+                                 StorageWrite segmentWrite = storageBackend.create(segment);
+                                 Writer writer = new BufferedWriter(new OutputStreamWriter(
+                                         segmentWrite.outputStream(), StandardCharsets.UTF_8))) {
+                                extractPages(workerPdf, chunkStart, chunkEnd, writer, context);
+                                segmentWrite.commit();
+                            }
+                            return null;
+                        }));
+                    }
+
+                    ParagraphWriter paragraphs = new ParagraphWriter(docx);
+                    // The first chunk is encoded as it is extracted, so its time counts as extraction
+                    extractPages(pdf, firstPage, Math.min(firstPage + chunkSize - 1, lastPage), paragraphs, context);
+                    for (int i = 0; i < futures.size(); i++) {
+                        futures.get(i).get();
+                        String segment = segments.get(i);
+                        context.run(Stage.ENCODE, () -> {
+                            try (Reader reader = new BufferedReader(new InputStreamReader(
+                                    storageBackend.openInputStream(segment), StandardCharsets.UTF_8))) {
+                                reader.transferTo(paragraphs);
+                            }
+                        });
+                    }
+                    paragraphs.close();
+                    context.addPages(pages);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new ConversionException("Interrupted while extracting text", e);
+                } catch (ExecutionException e) {
+                    if (e.getCause() instanceof IOException ioException) {
+                        throw ioException;
+                    }
+                    throw new ConversionException("Text extraction failed", e.getCause());
+                } finally {
+                    // The segments are deleted below, no task may still be writing one
+                    PoolTasks.awaitAll(pageRenderExecutor, futures);
+                }
+                context.run(Stage.STORE, docx::finish);
+            }
+            // Closing an uncommitted output on failure discards it
+            context.run(Stage.STORE, output::commit);
+        } finally {
+            for (String segment : segments) {
+                storageBackend.delete(segment);
+            }
+        }
+        context.setOutputBytes(storageBackend.size(convertedFileName));
+        return convertedFileName;
+    }
+
+    private void extractPages(PDDocument pdf, int firstPage, int lastPage, Writer writer, ConversionContext context)
+            throws IOException {
+        PDFTextStripper stripper = new PDFTextStripper();
+        stripper.setLineSeparator("\n");
+        // One page at a time keeps the stripper's buffers bounded by the page
+        for (int page = firstPage; page <= lastPage; page++) {
+            context.checkCancelled();
+            stripper.setStartPage(page);
+            stripper.setEndPage(page);
+            context.run(Stage.RENDER, () -> stripper.writeText(pdf, writer));
+        }
+        writer.flush();
+    }
+
+    /**
+     * Turns the extracted character stream into one paragraph per line.
+     */
+    private static final class ParagraphWriter extends Writer {
+
+        private final DocxWriter docx;
+        private final StringBuilder line = new StringBuilder();
+
+        private ParagraphWriter(DocxWriter docx) {
+            this.docx = docx;
+        }
+
+        @Override
+        public void write(char[] buffer, int offset, int length) throws IOException {
+            for (int i = offset; i < offset + length; i++) {
+                char c = buffer[i];
+                if (c == '\n') {
+                    docx.addParagraph(line);
+                    line.setLength(0);
+                } else if (c != '\r') {
+                    line.append(c);
+                }
             }
-            String convertedFileName = "converted-" + UUID.randomUUID() + ".docx";
-            File outputFile = fileStorageService.getFilePath(convertedFileName).toFile();
-            try (FileOutputStream out = new FileOutputStream(outputFile)) {
-                doc.write(out);
+        }
+
+        @Override
+        public void flush() {
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (!line.isEmpty()) {
+                docx.addParagraph(line);
+                line.setLength(0);
             }
-            return convertedFileName;
         }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,475 @@
+package com.document.conversion.service.converter;
+
+import com.document.conversion.exception.ConversionException;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.awt.image.Raster;
+import java.awt.image.SinglePixelPackedSampleModel;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.zip.Adler32;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+/**
+ * PNG encoder for rendered pages. The colour type is picked from the pixels: pure black and white
+ * pages become 1-bit grayscale, other gray pages 8-bit grayscale, pages with at most 256 colours
+ * a palette image and everything else RGB. Rows are filtered and deflated in chunks on the encode
+ * pool; each chunk is primed with the tail of the previous one, so splitting barely costs ratio.
+ * A {@link #serial()} encoder produces the same output on the calling thread alone.
+ */
+@Component
+public class PngEncoder {
+
+    public enum Filter {
+        NONE,
+        SUB,
+        UP,
+        AVERAGE,
+        PAETH,
+        // Per row, the filter with the smallest sum of absolute differences
+        ADAPTIVE
+    }
+
+    private static final byte[] SIGNATURE = {(byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1A, '\n'};
+    private static final int COLOR_GRAY = 0;
+    private static final int COLOR_RGB = 2;
+    private static final int COLOR_PALETTE = 3;
+    private static final int MAX_DICTIONARY = 32 * 1024;
+    private static final int MAX_PALETTE = 256;
+
+    private final int deflateLevel;
+    private final Filter filter;
+    private final int chunkBytes;
+    private final ThreadPoolExecutor pngEncodeExecutor;
+
+    public PngEncoder(@Value("${app.png.deflate-level}") int deflateLevel,
+                      @Value("${app.png.filter}") Filter filter,
+                      @Value("${app.png.chunk-bytes}") int chunkBytes,
+                      @Qualifier("pngEncodeExecutor") ThreadPoolExecutor pngEncodeExecutor) {
+        if (deflateLevel < Deflater.NO_COMPRESSION || deflateLevel > Deflater.BEST_COMPRESSION) {
+            throw new IllegalArgumentException("Deflate level must be between 0 and 9: " + deflateLevel);
+        }
+        this.deflateLevel = deflateLevel;
+        this.filter = filter;
+        this.chunkBytes = chunkBytes;
+        this.pngEncodeExecutor = pngEncodeExecutor;
+    }
+
+    /**
+     * An encoder with the same settings that encodes every chunk on the calling thread.
+     */
+    public PngEncoder serial() {
+        return new PngEncoder(deflateLevel, filter, chunkBytes, null);
+    }
+
+    public void write(BufferedImage image, Path file) throws IOException {
+        try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(file))) {
+            write(image, out);
+        }
+    }
+
+    public void write(BufferedImage image, OutputStream out) throws IOException {
+        if (image.getColorModel().hasAlpha()) {
+            // Rendered pages are opaque; keep transparency correct for anything else
+            ImageIO.write(image, "PNG", out);
+            return;
+        }
+        ImageLayout layout = analyze(image);
+        int rowBytes = (image.getWidth() * layout.bitsPerPixel() + 7) / 8;
+        byte[] raw = new byte[rowBytes * image.getHeight()];
+        int rowsPerChunk = Math.max(1, chunkBytes / (rowBytes + 1));
+        int chunks = (image.getHeight() + rowsPerChunk - 1) / rowsPerChunk;
+
+        runChunks(chunks, chunk -> () -> {
+            int from = chunk * rowsPerChunk;
+            pack(image, layout, raw, rowBytes, from, Math.min(from + rowsPerChunk, image.getHeight()));
+            return null;
+        });
+        // Low bit depths and palette indices do not benefit from filtering
+        Filter rowFilter = layout.bitsPerPixel() < 8 || layout.colorType() == COLOR_PALETTE ? Filter.NONE : filter;
+        int bytesPerPixel = Math.max(1, layout.bitsPerPixel() / 8);
+        List<CompressedChunk> compressed = runChunks(chunks, chunk -> () -> compress(
+                raw, rowBytes, bytesPerPixel, rowFilter, chunk * rowsPerChunk,
+                Math.min((chunk + 1) * rowsPerChunk, image.getHeight()), chunk == chunks - 1));
+
+        DataOutputStream data = new DataOutputStream(out);
+        data.write(SIGNATURE);
+        writeHeader(data, image.getWidth(), image.getHeight(), layout);
+        if (layout.colorType() == COLOR_PALETTE) {
+            writeChunk(data, "PLTE", layout.palette());
+        }
+        long adler = 1;
+        for (int i = 0; i < compressed.size(); i++) {
+            CompressedChunk chunk = compressed.get(i);
+            byte[] payload = chunk.data();
+            if (i == 0) {
+                payload = concat(zlibHeader(), payload);
+            }
+            adler = adler32Combine(adler, chunk.adler32(), chunk.length());
+            if (i == compressed.size() - 1) {
+                payload = concat(payload, new byte[]{
+                        (byte) (adler >>> 24), (byte) (adler >>> 16), (byte) (adler >>> 8), (byte) adler});
+            }
+            writeChunk(data, "IDAT", payload);
+        }
+        writeChunk(data, "IEND", new byte[0]);
+        data.flush();
+    }
+
+    private ImageLayout analyze(BufferedImage image) {
+        int width = image.getWidth();
+        int[] row = new int[width];
+        int[] palette = new int[MAX_PALETTE];
+        int paletteSize = 0;
+        boolean gray = true;
+        boolean bilevel = true;
+        boolean fitsPalette = true;
+        int last = -1;
+        for (int y = 0; y < image.getHeight() && (gray || fitsPalette); y++) {
+            rgbRow(image, y, row);
+            for (int x = 0; x < width; x++) {
+                int rgb = row[x] & 0xFFFFFF;
+                // Pages are mostly long runs of the same colour
+                if (rgb == last) {
+                    continue;
+                }
+                last = rgb;
+                int r = rgb >>> 16;
+                int g = (rgb >>> 8) & 0xFF;
+                int b = rgb & 0xFF;
+                if (gray && (r != g || g != b)) {
+                    gray = false;
+                }
+                if (bilevel && rgb != 0 && rgb != 0xFFFFFF) {
+                    bilevel = false;
+                }
+                if (fitsPalette && indexOf(palette, paletteSize, rgb) < 0) {
+                    if (paletteSize == MAX_PALETTE) {
+                        fitsPalette = false;
+                    } else {
+                        palette[paletteSize++] = rgb;
+                    }
+                }
+            }
+        }
+        if (gray) {
+            return bilevel ? new ImageLayout(COLOR_GRAY, 1, null, null) : new ImageLayout(COLOR_GRAY, 8, null, null);
+        }
+        if (fitsPalette) {
+            int[] colors = Arrays.copyOf(palette, paletteSize);
+            Arrays.sort(colors);
+            int bits = paletteSize <= 2 ? 1 : paletteSize <= 4 ? 2 : paletteSize <= 16 ? 4 : 8;
+            byte[] plte = new byte[paletteSize * 3];
+            for (int i = 0; i < paletteSize; i++) {
+                plte[i * 3] = (byte) (colors[i] >>> 16);
+                plte[i * 3 + 1] = (byte) (colors[i] >>> 8);
+                plte[i * 3 + 2] = (byte) colors[i];
+            }
+            return new ImageLayout(COLOR_PALETTE, bits, plte, colors);
+        }
+        return new ImageLayout(COLOR_RGB, 24, null, null);
+    }
+
+    private static int indexOf(int[] palette, int size, int rgb) {
+        for (int i = 0; i < size; i++) {
+            if (palette[i] == rgb) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static void pack(BufferedImage image, ImageLayout layout, byte[] raw, int rowBytes, int fromRow, int toRow) {
+        int width = image.getWidth();
+        int[] row = new int[width];
+        int lastRgb = -1;
+        int lastIndex = 0;
+        for (int y = fromRow; y < toRow; y++) {
+            rgbRow(image, y, row);
+            int offset = y * rowBytes;
+            if (layout.colorType() == COLOR_RGB) {
+                for (int x = 0; x < width; x++) {
+                    int rgb = row[x];
+                    raw[offset++] = (byte) (rgb >>> 16);
+                    raw[offset++] = (byte) (rgb >>> 8);
+                    raw[offset++] = (byte) rgb;
+                }
+            } else if (layout.colorType() == COLOR_GRAY && layout.bitsPerPixel() == 8) {
+                for (int x = 0; x < width; x++) {
+                    raw[offset++] = (byte) row[x];
+                }
+            } else {
+                int bits = layout.bitsPerPixel();
+                int perByte = 8 / bits;
+                for (int x = 0; x < width; x++) {
+                    int value;
+                    if (layout.colorType() == COLOR_GRAY) {
+                        // Bilevel: white is 1, black is 0
+                        value = row[x] & 1;
+                    } else {
+                        int rgb = row[x] & 0xFFFFFF;
+                        if (rgb != lastRgb) {
+                            lastRgb = rgb;
+                            lastIndex = Arrays.binarySearch(layout.colors(), rgb);
+                        }
+                        value = lastIndex;
+                    }
+                    int shift = 8 - bits * (x % perByte + 1);
+                    raw[offset + x / perByte] |= (byte) (value << shift);
+                }
+            }
+        }
+    }
+
+    private static void rgbRow(BufferedImage image, int y, int[] row) {
+        Raster raster = image.getRaster();
+        if (image.getType() == BufferedImage.TYPE_INT_RGB
+                && raster.getDataBuffer() instanceof DataBufferInt dataBuffer
+                && raster.getSampleModel() instanceof SinglePixelPackedSampleModel sampleModel
+                && raster.getSampleModelTranslateX() == 0 && raster.getSampleModelTranslateY() == 0) {
+            System.arraycopy(dataBuffer.getData(), dataBuffer.getOffset() + y * sampleModel.getScanlineStride(),
+                    row, 0, row.length);
+        } else if (image.getType() == BufferedImage.TYPE_BYTE_GRAY) {
+            // Stored levels as they are, the way ImageIO writes gray images
+            raster.getSamples(0, y, row.length, 1, 0, row);
+            for (int x = 0; x < row.length; x++) {
+                row[x] *= 0x010101;
+            }
+        } else {
+            image.getRGB(0, y, row.length, 1, row, 0, row.length);
+        }
+    }
+
+    private CompressedChunk compress(byte[] raw, int rowBytes, int bytesPerPixel, Filter rowFilter,
+                                     int fromRow, int toRow, boolean last) {
+        int stride = rowBytes + 1;
+        byte[] filtered = new byte[(toRow - fromRow) * stride];
+        filterRows(raw, rowBytes, bytesPerPixel, rowFilter, fromRow, toRow, filtered);
+
+        Deflater deflater = new Deflater(deflateLevel, true);
+        try {
+            if (fromRow > 0) {
+                // Same window as a single-threaded stream: the filtered tail of the previous chunk
+                int dictionaryRows = Math.min(fromRow, (MAX_DICTIONARY + stride - 1) / stride);
+                byte[] dictionary = new byte[dictionaryRows * stride];
+                filterRows(raw, rowBytes, bytesPerPixel, rowFilter, fromRow - dictionaryRows, fromRow, dictionary);
+                int length = Math.min(dictionary.length, MAX_DICTIONARY);
+                deflater.setDictionary(dictionary, dictionary.length - length, length);
+            }
+            deflater.setInput(filtered);
+            if (last) {
+                deflater.finish();
+            }
+            ByteArrayOutputStream out = new ByteArrayOutputStream(filtered.length / 4 + 64);
+            byte[] buffer = new byte[64 * 1024];
+            if (last) {
+                while (!deflater.finished()) {
+                    out.write(buffer, 0, deflater.deflate(buffer));
+                }
+            } else {
+                // A sync flush ends the chunk on a byte boundary without a final block, so the
+                // chunks concatenate into one valid deflate stream
+                int written;
+                do {
+                    written = deflater.deflate(buffer, 0, buffer.length, Deflater.SYNC_FLUSH);
+                    out.write(buffer, 0, written);
+                } while (written == buffer.length);
+            }
+            Adler32 adler32 = new Adler32();
+            adler32.update(filtered);
+            return new CompressedChunk(out.toByteArray(), adler32.getValue(), filtered.length);
+        } finally {
+            deflater.end();
+        }
+    }
+
+    private static void filterRows(byte[] raw, int rowBytes, int bpp, Filter rowFilter,
+                                   int fromRow, int toRow, byte[] target) {
+        byte[] candidate = rowFilter == Filter.ADAPTIVE ? new byte[rowBytes] : null;
+        byte[] best = rowFilter == Filter.ADAPTIVE ? new byte[rowBytes] : null;
+        int out = 0;
+        for (int y = fromRow; y < toRow; y++) {
+            int current = y * rowBytes;
+            int previous = y > 0 ? current - rowBytes : -1;
+            if (rowFilter == Filter.ADAPTIVE) {
+                long bestSum = Long.MAX_VALUE;
+                int bestType = 0;
+                for (int type = 0; type <= 4; type++) {
+                    long sum = filterRow(raw, current, previous, rowBytes, bpp, type, candidate, 0);
+                    if (sum < bestSum) {
+                        bestSum = sum;
+                        bestType = type;
+                        System.arraycopy(candidate, 0, best, 0, rowBytes);
+                    }
+                }
+                target[out] = (byte) bestType;
+                System.arraycopy(best, 0, target, out + 1, rowBytes);
+            } else {
+                int type = rowFilter.ordinal();
+                target[out] = (byte) type;
+                filterRow(raw, current, previous, rowBytes, bpp, type, target, out + 1);
+            }
+            out += rowBytes + 1;
+        }
+    }
+
+    /**
+     * Writes one filtered row and returns the sum of absolute values of the filtered bytes.
+     */
+    private static long filterRow(byte[] raw, int current, int previous, int rowBytes, int bpp,
+                                  int type, byte[] target, int targetOffset) {
+        long sum = 0;
+        for (int i = 0; i < rowBytes; i++) {
+            int x = raw[current + i] & 0xFF;
+            int a = i >= bpp ? raw[current + i - bpp] & 0xFF : 0;
+            int b = previous >= 0 ? raw[previous + i] & 0xFF : 0;
+            int c = i >= bpp && previous >= 0 ? raw[previous + i - bpp] & 0xFF : 0;
+            int value = switch (type) {
+                case 1 -> x - a;
+                case 2 -> x - b;
+                case 3 -> x - ((a + b) >>> 1);
+                case 4 -> x - paeth(a, b, c);
+                default -> x;
+            };
+            byte filtered = (byte) value;
+            target[targetOffset + i] = filtered;
+            sum += Math.abs(filtered);
+        }
+        return sum;
+    }
+
+    private static int paeth(int a, int b, int c) {
+        int p = a + b - c;
+        int pa = Math.abs(p - a);
+        int pb = Math.abs(p - b);
+        int pc = Math.abs(p - c);
+        if (pa <= pb && pa <= pc) {
+            return a;
+        }
+        return pb <= pc ? b : c;
+    }
+
+    private <T> List<T> runChunks(int chunks, ChunkTaskFactory<T> tasks) throws IOException {
+        List<Future<T>> futures = new ArrayList<>();
+        List<T> results = new ArrayList<>(chunks);
+        try {
+            if (pngEncodeExecutor == null) {
+                for (int chunk = 0; chunk < chunks; chunk++) {
+                    results.add(tasks.create(chunk).call());
+                }
+                return results;
+            }
+            for (int chunk = 1; chunk < chunks; chunk++) {
+                futures.add(pngEncodeExecutor.submit(tasks.create(chunk)));
+            }
+            // The calling thread takes the first chunk instead of idling
+            results.add(tasks.create(0).call());
+            for (Future<T> future : futures) {
+                results.add(future.get());
+            }
+            return results;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ConversionException("Interrupted while encoding PNG", e);
+        } catch (ExecutionException e) {
+            throw new ConversionException("PNG encoding failed", e.getCause());
+        } catch (Exception e) {
+            throw new ConversionException("PNG encoding failed", e);
+        } finally {
+            futures.forEach(future -> future.cancel(true));
+        }
+    }
+
+    private byte[] zlibHeader() {
+        int cmf = 0x78;
+        int flevel = deflateLevel <= 1 ? 0 : deflateLevel <= 5 ? 1 : deflateLevel == 6 ? 2 : 3;
+        int flg = flevel << 6;
+        flg += 31 - ((cmf << 8) + flg) % 31;
+        return new byte[]{(byte) cmf, (byte) flg};
+    }
+
+    /**
+     * zlib's adler32_combine: the checksum of two concatenated blocks from their own checksums.
+     */
+    static long adler32Combine(long adler1, long adler2, long length2) {
+        final long base = 65521;
+        long remainder = length2 % base;
+        long sum1 = adler1 & 0xFFFF;
+        long sum2 = (remainder * sum1) % base;
+        sum1 += (adler2 & 0xFFFF) + base - 1;
+        sum2 += ((adler1 >>> 16) & 0xFFFF) + ((adler2 >>> 16) & 0xFFFF) + base - remainder;
+        if (sum1 >= base) {
+            sum1 -= base;
+        }
+        if (sum1 >= base) {
+            sum1 -= base;
+        }
+        if (sum2 >= base << 1) {
+            sum2 -= base << 1;
+        }
+        if (sum2 >= base) {
+            sum2 -= base;
+        }
+        return (sum2 << 16) | sum1;
+    }
+
+    private static void writeHeader(DataOutputStream out, int width, int height, ImageLayout layout) throws IOException {
+        ByteArrayOutputStream header = new ByteArrayOutputStream(13);
+        DataOutputStream data = new DataOutputStream(header);
+        data.writeInt(width);
+        data.writeInt(height);
+        data.writeByte(layout.colorType() == COLOR_RGB ? 8 : layout.bitsPerPixel());
+        data.writeByte(layout.colorType());
+        data.writeByte(0); // deflate
+        data.writeByte(0); // adaptive filtering
+        data.writeByte(0); // no interlace
+        writeChunk(out, "IHDR", header.toByteArray());
+    }
+
+    private static void writeChunk(DataOutputStream out, String type, byte[] payload) throws IOException {
+        byte[] typeBytes = type.getBytes(StandardCharsets.US_ASCII);
+        CRC32 crc = new CRC32();
+        crc.update(typeBytes);
+        crc.update(payload);
+        out.writeInt(payload.length);
+        out.write(typeBytes);
+        out.write(payload);
+        out.writeInt((int) crc.getValue());
+    }
+
+    private static byte[] concat(byte[] first, byte[] second) {
+        byte[] result = Arrays.copyOf(first, first.length + second.length);
+        System.arraycopy(second, 0, result, first.length, second.length);
+        return result;
+    }
+
+    @FunctionalInterface
+    private interface ChunkTaskFactory<T> {
+        Callable<T> create(int chunk);
+    }
+
+    private record ImageLayout(int colorType, int bitsPerPixel, byte[] palette, int[] colors) {
+    }
+
+    private record CompressedChunk(byte[] data, long adler32, long length) {
+    }
+}
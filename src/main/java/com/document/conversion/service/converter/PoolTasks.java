@@ -0,0 +1,45 @@
+package com.document.conversion.service.converter;
+
+import lombok.AccessLevel;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadPoolExecutor;
+
+/**
+ * Cleanup of the tasks a conversion handed to a pool.
+ */
+@NoArgsConstructor(access = AccessLevel.PRIVATE)
+final class PoolTasks {
+
+    /**
+     * Drops the tasks still queued and waits for the running ones to finish, whatever their
+     * outcome. Cancelling a running task would not do: its future reports it done at once while
+     * the task keeps using the document handles and writing files the caller is about to clean up.
+     */
+    static void awaitAll(ThreadPoolExecutor executor, List<? extends Future<?>> futures) {
+        boolean interrupted = false;
+        for (Future<?> future : futures) {
+            if (future instanceof Runnable task && executor.remove(task)) {
+                future.cancel(false);
+                continue;
+            }
+            while (true) {
+                try {
+                    future.get();
+                    break;
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                } catch (ExecutionException | CancellationException e) {
+                    break;
+                }
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
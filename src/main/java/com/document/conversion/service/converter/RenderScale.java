@@ -0,0 +1,27 @@
+package com.document.conversion.service.converter;
+
+import lombok.AccessLevel;
+import lombok.NoArgsConstructor;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.common.PDRectangle;
+
+/**
+ * Render scale of a page, shared by the converter and the previews.
+ */
+@NoArgsConstructor(access = AccessLevel.PRIVATE)
+public final class RenderScale {
+
+    /**
+     * Scale for rendering the page at the given DPI, lowered when the page would otherwise
+     * exceed the pixel budget.
+     */
+    public static float of(PDPage page, int dpi, long maxPixels) {
+        PDRectangle box = page.getCropBox();
+        double points = (double) box.getWidth() * box.getHeight();
+        double scale = dpi / 72.0;
+        if (points * scale * scale > maxPixels) {
+            scale = Math.sqrt(maxPixels / points);
+        }
+        return (float) scale;
+    }
+}
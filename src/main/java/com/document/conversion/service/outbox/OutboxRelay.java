@@ -0,0 +1,67 @@
+package com.document.conversion.service.outbox;
+
+import com.document.conversion.service.MessageService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Drains the outbox in batches until it is empty, then waits for the next run. While the broker
+ * is unavailable, runs are skipped for a backoff that doubles with every failed attempt, so an
+ * outage costs a few attempts and warnings rather than one every relay interval.
+ */
+@Component
+@Slf4j
+public class OutboxRelay {
+
+    private final OutboxService outboxService;
+    private final MessageService messageService;
+    private final int batchSize;
+    private final long relayIntervalNanos;
+    private final long maxBackoffNanos;
+    private int failures;
+    private long nextAttemptNanos;
+
+    public OutboxRelay(OutboxService outboxService,
+                       MessageService messageService,
+                       @Value("${app.messaging.outbox.batch-size}") int batchSize,
+                       @Value("${app.messaging.outbox.relay-interval-ms}") long relayIntervalMs,
+                       @Value("${app.messaging.outbox.max-backoff-ms}") long maxBackoffMs) {
+        this.outboxService = outboxService;
+        this.messageService = messageService;
+        this.batchSize = batchSize;
+        this.relayIntervalNanos = TimeUnit.MILLISECONDS.toNanos(relayIntervalMs);
+        this.maxBackoffNanos = TimeUnit.MILLISECONDS.toNanos(maxBackoffMs);
+    }
+
+    @Scheduled(fixedDelayString = "${app.messaging.outbox.relay-interval-ms}")
+    public void relay() {
+        relay(System.nanoTime());
+    }
+
+    synchronized void relay(long nowNanos) {
+        if (failures > 0 && nowNanos - nextAttemptNanos < 0) {
+            return;
+        }
+        try {
+            int relayed;
+            do {
+                relayed = outboxService.relayBatch(batchSize, messageService::publishConversionMessages);
+            } while (relayed == batchSize);
+            if (failures > 0) {
+                log.info("Relaying conversion messages again after {} failed attempts", failures);
+                failures = 0;
+            }
+        } catch (RuntimeException e) {
+            // Broker down or slow to confirm; the messages stay in the outbox for the next attempt
+            failures++;
+            long backoffNanos = Math.min(relayIntervalNanos << Math.min(failures, 20), maxBackoffNanos);
+            nextAttemptNanos = nowNanos + backoffNanos;
+            log.warn("Could not relay conversion messages ({} failed attempts), retrying in {} ms: {}",
+                    failures, TimeUnit.NANOSECONDS.toMillis(backoffNanos), e.getMessage());
+        }
+    }
+}
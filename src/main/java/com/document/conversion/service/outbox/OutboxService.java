@@ -0,0 +1,103 @@
+package com.document.conversion.service.outbox;
+
+import com.document.conversion.config.RabbitMQConfig;
+import com.document.conversion.model.Document;
+import com.document.conversion.model.OutboxMessage;
+import com.document.conversion.repository.OutboxMessageRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+/**
+ * Transactional outbox for conversion messages. Callers queue documents inside their own
+ * transaction and {@link OutboxRelay} later hands the committed messages to the broker, so
+ * uploads never wait on the broker and rolled back uploads never produce a message.
+ */
+@Service
+@Slf4j
+public class OutboxService {
+
+    private final OutboxMessageRepository outboxMessageRepository;
+    private final long largeThresholdBytes;
+    private final Duration claimTimeout;
+
+    public OutboxService(OutboxMessageRepository outboxMessageRepository,
+                         @Value("${app.conversion.lanes.large-threshold-bytes}") long largeThresholdBytes,
+                         @Value("${app.messaging.outbox.claim-timeout-ms}") long claimTimeoutMs) {
+        this.outboxMessageRepository = outboxMessageRepository;
+        this.largeThresholdBytes = largeThresholdBytes;
+        this.claimTimeout = Duration.ofMillis(claimTimeoutMs);
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void enqueue(Document document) {
+        outboxMessageRepository.save(toMessage(document));
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void enqueue(List<Document> documents) {
+        outboxMessageRepository.saveAll(documents.stream().map(this::toMessage).toList());
+    }
+
+    /**
+     * Claims the oldest pending messages, hands them to the publisher and removes them once it
+     * returns, which it only does after the broker confirmed them. Claiming and removing are
+     * short transactions of their own, so no connection or row lock is held while the publisher
+     * waits for the broker. A failed publish releases the claim, leaving the messages for the
+     * next run. A crash before the removal republishes them once the claim has timed out, which
+     * the conversion claim makes harmless.
+     *
+     * @return the number of messages relayed
+     */
+    public int relayBatch(int batchSize, Consumer<List<OutboxMessage>> publisher) {
+        LocalDateTime now = LocalDateTime.now();
+        List<UUID> ids = outboxMessageRepository.findIdsReadyForRelay(now, Limit.of(batchSize));
+        if (ids.isEmpty()) {
+            return 0;
+        }
+        UUID claimToken = UUID.randomUUID();
+        if (outboxMessageRepository.claim(ids, claimToken, now.plus(claimTimeout), now) == 0) {
+            return 0;
+        }
+        List<OutboxMessage> messages = outboxMessageRepository.findByClaimTokenOrderByCreatedAt(claimToken);
+        try {
+            publisher.accept(messages);
+        } catch (RuntimeException e) {
+            try {
+                outboxMessageRepository.releaseClaim(claimToken);
+            } catch (RuntimeException releaseFailure) {
+                // The claim then times out instead
+                e.addSuppressed(releaseFailure);
+            }
+            throw e;
+        }
+        outboxMessageRepository.deleteClaimed(claimToken);
+        return messages.size();
+    }
+
+    private OutboxMessage toMessage(Document document) {
+        return OutboxMessage.builder()
+                .documentId(document.getId())
+                .routingKey(routingKey(document))
+                .build();
+    }
+
+    /**
+     * Routes by upload size, the only cost signal available before the document is parsed.
+     */
+    private String routingKey(Document document) {
+        Long size = document.getOriginalFileSize();
+        return size != null && size >= largeThresholdBytes
+                ? RabbitMQConfig.ROUTING_KEY_DOCUMENT_CONVERSION_LARGE
+                : RabbitMQConfig.ROUTING_KEY_DOCUMENT_CONVERSION;
+    }
+}
@@ -0,0 +1,154 @@
+package com.document.conversion.service.queue;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Append-only journal of the embedded conversion queue, kept in a memory-mapped file. Queued
+ * messages are written as ENQUEUED records and finished ones as ACKED records, so the messages
+ * still pending after a crash are the enqueued ones without an ack. Once the file is full it is
+ * rewritten with only the pending messages.
+ */
+@Slf4j
+public class ConversionJournal implements Closeable {
+
+    private static final byte END = 0;
+    private static final byte ENQUEUED = 1;
+    private static final byte ACKED = 2;
+    // type, lane, document id
+    static final int RECORD_BYTES = 1 + 1 + 16;
+
+    public record Entry(UUID documentId, boolean large) {
+    }
+
+    private final Path file;
+    private final int sizeBytes;
+    private final boolean fsync;
+    private final Map<UUID, Entry> pending = new LinkedHashMap<>();
+    private FileChannel channel;
+    private MappedByteBuffer buffer;
+
+    /**
+     * Opens the journal, replaying whatever an earlier process left behind.
+     */
+    public ConversionJournal(Path file, int sizeBytes, boolean fsync) throws IOException {
+        this.file = file;
+        this.sizeBytes = sizeBytes;
+        this.fsync = fsync;
+        if (Files.exists(file)) {
+            replay();
+        } else if (file.getParent() != null) {
+            Files.createDirectories(file.getParent());
+        }
+        rewrite();
+    }
+
+    /**
+     * Messages enqueued but not yet acked, in enqueue order.
+     */
+    public synchronized List<Entry> pending() {
+        return new ArrayList<>(pending.values());
+    }
+
+    public synchronized void appendEnqueued(List<Entry> entries) throws IOException {
+        for (Entry entry : entries) {
+            append(ENQUEUED, entry);
+            pending.put(entry.documentId(), entry);
+        }
+        if (fsync) {
+            buffer.force();
+        }
+    }
+
+    /**
+     * Acks are never forced: one lost in a crash only means the message is delivered again,
+     * which the conversion claim turns into a no-op.
+     */
+    public synchronized void appendAcked(UUID documentId) throws IOException {
+        Entry entry = pending.remove(documentId);
+        if (entry != null) {
+            append(ACKED, entry);
+        }
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (channel != null) {
+            buffer.force();
+            channel.close();
+            channel = null;
+        }
+    }
+
+    private void append(byte type, Entry entry) throws IOException {
+        if (buffer.remaining() < RECORD_BYTES) {
+            rewrite();
+        }
+        int position = buffer.position();
+        buffer.put(position + 1, (byte) (entry.large() ? 1 : 0));
+        buffer.putLong(position + 2, entry.documentId().getMostSignificantBits());
+        buffer.putLong(position + 10, entry.documentId().getLeastSignificantBits());
+        // The type goes in last, so a record torn by a crash reads as the end of the journal
+        buffer.put(position, type);
+        buffer.position(position + RECORD_BYTES);
+    }
+
+    private void replay() throws IOException {
+        try (FileChannel existing = FileChannel.open(file, StandardOpenOption.READ)) {
+            MappedByteBuffer records = existing.map(FileChannel.MapMode.READ_ONLY, 0, existing.size());
+            while (records.remaining() >= RECORD_BYTES) {
+                byte type = records.get();
+                if (type == END) {
+                    break;
+                }
+                boolean large = records.get() == 1;
+                UUID documentId = new UUID(records.getLong(), records.getLong());
+                if (type == ENQUEUED) {
+                    pending.put(documentId, new Entry(documentId, large));
+                } else if (type == ACKED) {
+                    pending.remove(documentId);
+                } else {
+                    log.warn("Corrupt record in {} at offset {}, ignoring the rest of the journal",
+                            file, records.position() - RECORD_BYTES);
+                    break;
+                }
+            }
+        }
+        log.info("Recovered {} pending conversion messages from {}", pending.size(), file);
+    }
+
+    /**
+     * Writes the pending messages to a fresh file that replaces the journal atomically.
+     */
+    private void rewrite() throws IOException {
+        long size = Math.max(sizeBytes, 2L * (pending.size() + 1) * RECORD_BYTES);
+        Path next = file.resolveSibling(file.getFileName() + ".next");
+        Files.deleteIfExists(next);
+        FileChannel nextChannel = FileChannel.open(next, StandardOpenOption.CREATE_NEW,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+        MappedByteBuffer nextBuffer = nextChannel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+        if (channel != null) {
+            channel.close();
+        }
+        channel = nextChannel;
+        buffer = nextBuffer;
+        for (Entry entry : pending.values()) {
+            append(ENQUEUED, entry);
+        }
+        buffer.force();
+        Files.move(next, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    }
+}
@@ -0,0 +1,23 @@
+package com.document.conversion.service.queue;
+
+import com.document.conversion.model.OutboxMessage;
+
+import java.util.List;
+
+/**
+ * Transport between the outbox relay and the conversion workers, selected with
+ * app.messaging.queue: the RabbitMQ broker, or an embedded queue for single-node deployments.
+ */
+public interface ConversionQueue {
+
+    /**
+     * Returns once the queue has durably accepted every message, and throws otherwise.
+     */
+    void publish(List<OutboxMessage> messages);
+
+    /**
+     * Messages accepted but not yet taken by a worker, counted by the queue itself so that every
+     * replica publishing to and consuming from it sees the same number.
+     */
+    long pendingCount();
+}
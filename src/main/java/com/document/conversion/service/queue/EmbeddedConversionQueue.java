@@ -0,0 +1,159 @@
+package com.document.conversion.service.queue;
+
+import com.document.conversion.config.RabbitMQConfig;
+import com.document.conversion.exception.ConversionException;
+import com.document.conversion.exception.FileStorageException;
+import com.document.conversion.model.OutboxMessage;
+import com.document.conversion.service.DocumentConversionService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * In-process conversion queue for single-node deployments and broker-free benchmarks. Each lane
+ * is a bounded in-memory queue drained by its own workers, and every message is journaled before
+ * it is accepted so that pending conversions survive a restart, provided the documents are kept
+ * in a persistent database as the embedded profile does.
+ */
+@Component
+@Slf4j
+@ConditionalOnProperty(value = "app.messaging.queue", havingValue = "embedded")
+public class EmbeddedConversionQueue implements ConversionQueue, SmartLifecycle {
+
+    private final DocumentConversionService documentConversionService;
+    private final ConversionJournal journal;
+    private final BlockingQueue<UUID> smallLane;
+    private final BlockingQueue<UUID> largeLane;
+    private final int smallWorkers;
+    private final int largeWorkers;
+    private ExecutorService workers;
+    private volatile boolean running;
+
+    public EmbeddedConversionQueue(DocumentConversionService documentConversionService,
+                                   @Value("${app.messaging.embedded.capacity}") int capacity,
+                                   @Value("${app.messaging.embedded.small-workers}") int smallWorkers,
+                                   @Value("${app.messaging.embedded.large-workers}") int largeWorkers,
+                                   @Value("${app.messaging.embedded.journal.path}") String journalPath,
+                                   @Value("${app.messaging.embedded.journal.size-bytes}") int journalSizeBytes,
+                                   @Value("${app.messaging.embedded.journal.fsync}") boolean fsync) {
+        this.documentConversionService = documentConversionService;
+        this.smallWorkers = smallWorkers;
+        this.largeWorkers = largeWorkers;
+        try {
+            this.journal = new ConversionJournal(Paths.get(journalPath).toAbsolutePath(), journalSizeBytes, fsync);
+        } catch (IOException e) {
+            throw new FileStorageException("Could not open the conversion queue journal " + journalPath, e);
+        }
+        // Recovered messages are always taken back, even if the capacity was lowered since
+        List<ConversionJournal.Entry> recovered = journal.pending();
+        long recoveredLarge = recovered.stream().filter(ConversionJournal.Entry::large).count();
+        this.smallLane = new LinkedBlockingQueue<>((int) Math.max(capacity, recovered.size() - recoveredLarge));
+        this.largeLane = new LinkedBlockingQueue<>((int) Math.max(capacity, recoveredLarge));
+        recovered.forEach(entry -> lane(entry.large()).add(entry.documentId()));
+    }
+
+    /**
+     * Accepts all messages or none: a batch that does not fit is rejected before anything is
+     * journaled, and the outbox keeps it for the next relay run.
+     */
+    @Override
+    public synchronized void publish(List<OutboxMessage> messages) {
+        List<ConversionJournal.Entry> entries = messages.stream()
+                .map(message -> new ConversionJournal.Entry(message.getDocumentId(),
+                        RabbitMQConfig.ROUTING_KEY_DOCUMENT_CONVERSION_LARGE.equals(message.getRoutingKey())))
+                .toList();
+        long large = entries.stream().filter(ConversionJournal.Entry::large).count();
+        if (largeLane.remainingCapacity() < large || smallLane.remainingCapacity() < entries.size() - large) {
+            throw new ConversionException("Embedded conversion queue is full");
+        }
+        try {
+            journal.appendEnqueued(entries);
+        } catch (IOException e) {
+            throw new FileStorageException("Could not journal conversion messages", e);
+        }
+        // Only this method adds to the lanes, so the capacity checked above is still there
+        entries.forEach(entry -> lane(entry.large()).add(entry.documentId()));
+    }
+
+    @Override
+    public long pendingCount() {
+        return smallLane.size() + largeLane.size();
+    }
+
+    @Override
+    public void start() {
+        running = true;
+        workers = Executors.newFixedThreadPool(smallWorkers + largeWorkers,
+                new CustomizableThreadFactory("embedded-conversion-"));
+        for (int i = 0; i < smallWorkers; i++) {
+            workers.execute(() -> drain(smallLane));
+        }
+        for (int i = 0; i < largeWorkers; i++) {
+            workers.execute(() -> drain(largeLane));
+        }
+        log.info("Embedded conversion queue started with {} small and {} large lane workers, {} messages pending",
+                smallWorkers, largeWorkers, smallLane.size() + largeLane.size());
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        // Interrupted conversions are not acked and run again after the restart
+        workers.shutdownNow();
+        try {
+            workers.awaitTermination(10, TimeUnit.SECONDS);
+            journal.close();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (IOException e) {
+            log.warn("Could not close the conversion queue journal", e);
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    private void drain(BlockingQueue<UUID> lane) {
+        while (running) {
+            UUID documentId;
+            try {
+                documentId = lane.take();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            try {
+                documentConversionService.startConversion(documentId);
+            } catch (Exception e) {
+                log.error("Error processing conversion message for document: {}", documentId, e);
+            }
+            if (Thread.currentThread().isInterrupted()) {
+                return;
+            }
+            try {
+                journal.appendAcked(documentId);
+            } catch (IOException e) {
+                log.warn("Could not journal the ack of document: {}", documentId, e);
+            }
+        }
+    }
+
+    private BlockingQueue<UUID> lane(boolean large) {
+        return large ? largeLane : smallLane;
+    }
+}
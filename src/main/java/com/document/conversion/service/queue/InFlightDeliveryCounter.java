@@ -0,0 +1,30 @@
+package com.document.conversion.service.queue;
+
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Counts the deliveries one listener container is processing. Installed in the advice chain of
+ * that container only, it tells how many of its consumers are busy, which the pod-wide active
+ * conversions gauge cannot: that one also counts the other lane and the stealing consumers.
+ */
+public class InFlightDeliveryCounter implements MethodInterceptor {
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    @Override
+    public Object invoke(MethodInvocation invocation) throws Throwable {
+        inFlight.incrementAndGet();
+        try {
+            return invocation.proceed();
+        } finally {
+            inFlight.decrementAndGet();
+        }
+    }
+
+    public int get() {
+        return inFlight.get();
+    }
+}
@@ -0,0 +1,96 @@
+package com.document.conversion.service.queue;
+
+import com.document.conversion.config.RabbitMQConfig;
+import com.document.conversion.model.ConversionMessage;
+import com.document.conversion.model.OutboxMessage;
+import com.document.conversion.service.DocumentConversionService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.amqp.core.AmqpAdmin;
+import org.springframework.amqp.core.QueueInformation;
+import org.springframework.amqp.rabbit.annotation.RabbitListener;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+@Component
+@Slf4j
+@ConditionalOnProperty(value = "app.messaging.queue", havingValue = "rabbit", matchIfMissing = true)
+public class RabbitConversionQueue implements ConversionQueue {
+
+    public static final String CONVERSION_LISTENER_ID = "documentConversionListener";
+    public static final String LARGE_CONVERSION_LISTENER_ID = "largeDocumentConversionListener";
+    // Lane consumers take priority on their own queue; the stealing consumers of the other lane
+    // only get messages while every lane consumer is busy
+    private static final String LANE_PRIORITY = "10";
+    private static final String STEALER_PRIORITY = "0";
+
+    private final RabbitTemplate rabbitTemplate;
+    private final AmqpAdmin amqpAdmin;
+    private final DocumentConversionService documentConversionService;
+    private final long confirmTimeoutMs;
+
+    public RabbitConversionQueue(RabbitTemplate rabbitTemplate,
+                                 AmqpAdmin amqpAdmin,
+                                 DocumentConversionService documentConversionService,
+                                 @Value("${app.messaging.confirm-timeout-ms}") long confirmTimeoutMs) {
+        this.rabbitTemplate = rabbitTemplate;
+        this.amqpAdmin = amqpAdmin;
+        this.documentConversionService = documentConversionService;
+        this.confirmTimeoutMs = confirmTimeoutMs;
+    }
+
+    /**
+     * Sends the messages on one channel and waits once for all of the broker's confirms.
+     */
+    @Override
+    public void publish(List<OutboxMessage> messages) {
+        rabbitTemplate.invoke(operations -> {
+            messages.forEach(message -> operations.convertAndSend(
+                    RabbitMQConfig.EXCHANGE_DOCUMENT_CONVERSION,
+                    message.getRoutingKey(),
+                    new ConversionMessage(message.getDocumentId())));
+            operations.waitForConfirmsOrDie(confirmTimeoutMs);
+            return null;
+        });
+    }
+
+    /**
+     * The ready messages of both lanes as reported by the broker. Messages delivered to a consumer
+     * and not yet acked are not included.
+     */
+    @Override
+    public long pendingCount() {
+        return messageCount(RabbitMQConfig.QUEUE_DOCUMENT_CONVERSION)
+                + messageCount(RabbitMQConfig.QUEUE_DOCUMENT_CONVERSION_LARGE);
+    }
+
+    // A queue that has not been declared yet holds nothing
+    private long messageCount(String queue) {
+        QueueInformation info = amqpAdmin.getQueueInfo(queue);
+        return info != null ? info.getMessageCount() : 0;
+    }
+
+    @RabbitListener(id = CONVERSION_LISTENER_ID, queues = RabbitMQConfig.QUEUE_DOCUMENT_CONVERSION,
+            priority = LANE_PRIORITY)
+    @RabbitListener(id = "largeLaneStealer", queues = RabbitMQConfig.QUEUE_DOCUMENT_CONVERSION,
+            containerFactory = RabbitMQConfig.LARGE_LANE_CONTAINER_FACTORY, concurrency = "1-1",
+            priority = STEALER_PRIORITY, autoStartup = "${app.conversion.lanes.large.steal-enabled}")
+    @RabbitListener(id = LARGE_CONVERSION_LISTENER_ID, queues = RabbitMQConfig.QUEUE_DOCUMENT_CONVERSION_LARGE,
+            containerFactory = RabbitMQConfig.LARGE_LANE_CONTAINER_FACTORY, priority = LANE_PRIORITY)
+    @RabbitListener(id = "smallLaneStealer", queues = RabbitMQConfig.QUEUE_DOCUMENT_CONVERSION_LARGE,
+            concurrency = "1-1", priority = STEALER_PRIORITY,
+            autoStartup = "${app.conversion.lanes.small.steal-enabled}")
+    public void handleDocumentConversionRequest(ConversionMessage message) {
+        log.info("Received conversion message for document: {}", message.getDocumentId());
+        try {
+            documentConversionService.startConversion(message.getDocumentId());
+        } catch (Exception e) {
+            log.error("Error processing conversion message for document: {}",
+                    message.getDocumentId(), e);
+            throw e; // Will be sent to DLQ
+        }
+    }
+}
@@ -0,0 +1,13 @@
+package com.document.conversion.service.ratelimit;
+
+import io.github.bucket4j.Bucket;
+import io.github.bucket4j.BucketConfiguration;
+
+/**
+ * Where rate limit buckets live. A local store limits each API replica on its own, a shared
+ * store lets all replicas draw from the same buckets.
+ */
+public interface BucketStore {
+
+    Bucket getBucket(String clientId, BucketConfiguration configuration);
+}
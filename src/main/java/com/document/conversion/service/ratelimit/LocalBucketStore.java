@@ -0,0 +1,42 @@
+package com.document.conversion.service.ratelimit;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.github.bucket4j.Bandwidth;
+import io.github.bucket4j.Bucket;
+import io.github.bucket4j.BucketConfiguration;
+import io.github.bucket4j.local.LocalBucketBuilder;
+
+import java.time.Duration;
+
+/**
+ * In-process buckets, bounded in size and dropped once a client has been idle long enough for its
+ * bucket to refill completely, so forgetting it cannot hand out extra tokens.
+ */
+public class LocalBucketStore implements BucketStore {
+
+    private final Cache<String, Bucket> buckets;
+
+    public LocalBucketStore(long maximumSize, Duration expireAfterAccess) {
+        this.buckets = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterAccess(expireAfterAccess)
+                .build();
+    }
+
+    @Override
+    public Bucket getBucket(String clientId, BucketConfiguration configuration) {
+        return buckets.get(clientId, key -> {
+            LocalBucketBuilder builder = Bucket.builder();
+            for (Bandwidth bandwidth : configuration.getBandwidths()) {
+                builder.addLimit(bandwidth);
+            }
+            return builder.build();
+        });
+    }
+
+    public long size() {
+        buckets.cleanUp();
+        return buckets.estimatedSize();
+    }
+}
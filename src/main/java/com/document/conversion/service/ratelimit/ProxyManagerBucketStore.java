@@ -0,0 +1,23 @@
+package com.document.conversion.service.ratelimit;
+
+import io.github.bucket4j.Bucket;
+import io.github.bucket4j.BucketConfiguration;
+import io.github.bucket4j.distributed.proxy.ProxyManager;
+
+/**
+ * Buckets kept in a shared backend through a bucket4j {@link ProxyManager}, so limits hold
+ * across API replicas. Expiry of idle buckets is left to the backend.
+ */
+public class ProxyManagerBucketStore implements BucketStore {
+
+    private final ProxyManager<String> proxyManager;
+
+    public ProxyManagerBucketStore(ProxyManager<String> proxyManager) {
+        this.proxyManager = proxyManager;
+    }
+
+    @Override
+    public Bucket getBucket(String clientId, BucketConfiguration configuration) {
+        return proxyManager.builder().build(clientId, () -> configuration);
+    }
+}
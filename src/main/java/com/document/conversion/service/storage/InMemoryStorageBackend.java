@@ -0,0 +1,123 @@
+package com.document.conversion.service.storage;
+
+import com.document.conversion.exception.FileStorageException;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.core.io.Resource;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
+
+/**
+ * Keeps objects on the heap, for tests and benchmarks that should not measure the disk. Nothing
+ * survives a restart.
+ */
+@Component
+@ConditionalOnProperty(value = "app.document.storage.backend", havingValue = "memory")
+public class InMemoryStorageBackend implements StorageBackend {
+
+    private final Map<String, StoredObject> objects = new ConcurrentHashMap<>();
+
+    @Override
+    public StorageWrite create(String key) {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        WritableByteChannel channel = Channels.newChannel(buffer);
+        return new StorageWrite() {
+            @Override
+            public WritableByteChannel channel() {
+                return channel;
+            }
+
+            @Override
+            public void commit() {
+                objects.put(key, new StoredObject(buffer.toByteArray(), Instant.now()));
+            }
+
+            @Override
+            public void close() {
+            }
+        };
+    }
+
+    @Override
+    public InputStream openInputStream(String key) throws IOException {
+        return new ByteArrayInputStream(get(key));
+    }
+
+    @Override
+    public boolean exists(String key) {
+        return objects.containsKey(key);
+    }
+
+    @Override
+    public long size(String key) throws IOException {
+        return get(key).length;
+    }
+
+    @Override
+    public void delete(String key) {
+        objects.remove(key);
+    }
+
+    @Override
+    public Resource getResource(String key) {
+        StoredObject object = objects.get(key);
+        if (object == null) {
+            throw new FileStorageException("Could not read file " + key);
+        }
+        return new ByteArrayResource(object.content()) {
+            @Override
+            public String getFilename() {
+                return key;
+            }
+        };
+    }
+
+    @Override
+    public Optional<Path> localFile(String key) {
+        return Optional.empty();
+    }
+
+    @Override
+    public Stream<String> keysModifiedBefore(Instant before) {
+        return objects.entrySet().stream()
+                .filter(entry -> entry.getValue().modifiedAt().isBefore(before))
+                .map(Map.Entry::getKey)
+                .toList()
+                .stream();
+    }
+
+    // An uncommitted write is only a buffer, nothing is left behind
+    @Override
+    public int deleteAbandonedWrites(Instant lastWrittenBefore) {
+        return 0;
+    }
+
+    public Set<String> keys() {
+        return Set.copyOf(objects.keySet());
+    }
+
+    private byte[] get(String key) throws IOException {
+        StoredObject object = objects.get(key);
+        if (object == null) {
+            throw new NoSuchFileException(key);
+        }
+        return object.content();
+    }
+
+    private record StoredObject(byte[] content, Instant modifiedAt) {
+    }
+}
@@ -0,0 +1,211 @@
+package com.document.conversion.service.storage;
+
+import com.document.conversion.exception.FileStorageException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+/**
+ * Keeps objects on the local file system, fanned out over hashed subdirectories (two hex
+ * characters per level) so that no single directory grows to millions of entries. Writes go to
+ * a temp file under the storage root and are renamed into place on commit.
+ */
+@Component
+@Slf4j
+@ConditionalOnProperty(value = "app.document.storage.backend", havingValue = "filesystem", matchIfMissing = true)
+public class ShardedFileSystemStorageBackend implements StorageBackend {
+
+    static final String TEMP_DIRECTORY = ".tmp";
+    private static final Pattern SHARD_DIRECTORY = Pattern.compile("[0-9a-f]{2}");
+
+    private final Path root;
+    private final Path tempDirectory;
+    private final int shardDepth;
+
+    public ShardedFileSystemStorageBackend(@Value("${app.document.storage.location}") String location,
+                                           @Value("${app.document.storage.shard-depth}") int shardDepth) {
+        if (shardDepth < 0 || shardDepth > 4) {
+            throw new IllegalArgumentException("Shard depth must be between 0 and 4: " + shardDepth);
+        }
+        this.root = Paths.get(location).toAbsolutePath().normalize();
+        // Same file system as the shards, so the commit is a plain rename
+        this.tempDirectory = root.resolve(TEMP_DIRECTORY);
+        this.shardDepth = shardDepth;
+        try {
+            Files.createDirectories(tempDirectory);
+        } catch (IOException ex) {
+            String errorMessage = "Could not create the directory where the uploaded files will be stored.";
+            log.error(errorMessage, ex);
+            throw new FileStorageException(errorMessage, ex);
+        }
+    }
+
+    @Override
+    public StorageWrite create(String key) throws IOException {
+        Path target = shardPath(key);
+        Path temp = tempDirectory.resolve(UUID.randomUUID() + ".tmp");
+        return new FileWrite(FileChannel.open(temp, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE),
+                temp, target);
+    }
+
+    @Override
+    public InputStream openInputStream(String key) throws IOException {
+        return Files.newInputStream(resolve(key));
+    }
+
+    @Override
+    public boolean exists(String key) {
+        return Files.exists(resolve(key));
+    }
+
+    @Override
+    public long size(String key) throws IOException {
+        return Files.size(resolve(key));
+    }
+
+    @Override
+    public void delete(String key) throws IOException {
+        Files.deleteIfExists(resolve(key));
+    }
+
+    @Override
+    public Resource getResource(String key) {
+        return new FileSystemResource(resolve(key));
+    }
+
+    @Override
+    public Optional<Path> localFile(String key) {
+        return Optional.of(resolve(key));
+    }
+
+    @Override
+    public Stream<String> keysModifiedBefore(Instant before) throws IOException {
+        return Files.walk(root, shardDepth + 1)
+                .filter(Files::isRegularFile)
+                .filter(path -> isObject(root.relativize(path)))
+                .filter(path -> modifiedBefore(path, before))
+                .map(path -> path.getFileName().toString());
+    }
+
+    @Override
+    public int deleteAbandonedWrites(Instant lastWrittenBefore) throws IOException {
+        List<Path> abandoned;
+        try (Stream<Path> temps = Files.list(tempDirectory)) {
+            abandoned = temps.filter(path -> modifiedBefore(path, lastWrittenBefore)).toList();
+        }
+        int deleted = 0;
+        for (Path temp : abandoned) {
+            if (Files.deleteIfExists(temp)) {
+                deleted++;
+            }
+        }
+        return deleted;
+    }
+
+    /**
+     * The sharded location of the key, or the flat location used before sharding when the object
+     * was stored there.
+     */
+    Path resolve(String key) {
+        Path sharded = shardPath(key);
+        if (shardDepth == 0 || Files.exists(sharded)) {
+            return sharded;
+        }
+        Path flat = root.resolve(key);
+        return Files.exists(flat) ? flat : sharded;
+    }
+
+    // Objects sit shardDepth levels down or, when stored before sharding, directly in the root;
+    // the temp directory and whatever else is kept under the root are not objects
+    private boolean isObject(Path relative) {
+        int depth = relative.getNameCount();
+        if (depth != 1 && depth != shardDepth + 1) {
+            return false;
+        }
+        for (int level = 0; level < depth - 1; level++) {
+            if (!SHARD_DIRECTORY.matcher(relative.getName(level).toString()).matches()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // A file deleted while the directory is listed is skipped
+    private static boolean modifiedBefore(Path path, Instant before) {
+        try {
+            return Files.getLastModifiedTime(path).toInstant().isBefore(before);
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    private Path shardPath(String key) {
+        if (key.isEmpty() || key.contains("/") || key.contains("\\") || key.contains("..")) {
+            throw new FileStorageException("Invalid storage key: " + key);
+        }
+        CRC32 crc = new CRC32();
+        crc.update(key.getBytes(StandardCharsets.UTF_8));
+        long hash = crc.getValue();
+        Path directory = root;
+        for (int level = 0; level < shardDepth; level++) {
+            directory = directory.resolve(String.format("%02x", (hash >>> (8 * level)) & 0xff));
+        }
+        return directory.resolve(key);
+    }
+
+    private static final class FileWrite implements StorageWrite {
+
+        private final FileChannel channel;
+        private final Path temp;
+        private final Path target;
+        private boolean committed;
+
+        private FileWrite(FileChannel channel, Path temp, Path target) {
+            this.channel = channel;
+            this.temp = temp;
+            this.target = target;
+        }
+
+        @Override
+        public WritableByteChannel channel() {
+            return channel;
+        }
+
+        @Override
+        public void commit() throws IOException {
+            channel.close();
+            Files.createDirectories(target.getParent());
+            Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE);
+            committed = true;
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (!committed) {
+                channel.close();
+                Files.deleteIfExists(temp);
+            }
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package com.document.conversion.service.storage;
+
+import org.springframework.core.io.Resource;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+/**
+ * Where originals, converted files and previews are kept, addressed by the file names stored on
+ * the documents. Writes only become visible under their key once committed, so readers never see
+ * a partially written file.
+ */
+public interface StorageBackend {
+
+    /**
+     * Starts writing the object stored under the key. Closing the write without committing it
+     * discards everything written.
+     */
+    StorageWrite create(String key) throws IOException;
+
+    InputStream openInputStream(String key) throws IOException;
+
+    boolean exists(String key);
+
+    long size(String key) throws IOException;
+
+    void delete(String key) throws IOException;
+
+    Resource getResource(String key);
+
+    /**
+     * The local file holding the object, for readers that map or seek files directly. Empty when
+     * the object is not kept on the local file system.
+     */
+    Optional<Path> localFile(String key);
+
+    /**
+     * The keys of the committed objects last modified before the instant. The stream may hold
+     * directory handles, so callers close it.
+     */
+    Stream<String> keysModifiedBefore(Instant before) throws IOException;
+
+    /**
+     * Deletes the writes last written to before the instant that were neither committed nor
+     * closed, which is what the service leaves behind when it stops in the middle of a write.
+     *
+     * @return the number of writes deleted
+     */
+    int deleteAbandonedWrites(Instant lastWrittenBefore) throws IOException;
+}
@@ -0,0 +1,25 @@
+package com.document.conversion.service.storage;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+
+/**
+ * An object being written to a {@link StorageBackend}. The content is published under its key
+ * by {@link #commit()}; closing an uncommitted write throws the content away.
+ */
+public interface StorageWrite extends Closeable {
+
+    WritableByteChannel channel();
+
+    /**
+     * Unbuffered stream over the channel; wrap it when writing small pieces.
+     */
+    default OutputStream outputStream() {
+        return Channels.newOutputStream(channel());
+    }
+
+    void commit() throws IOException;
+}
@@ -0,0 +1,185 @@
+package com.document.conversion.aspect;
+
+import com.document.conversion.exception.RateLimitExceededException;
+import com.document.conversion.service.ratelimit.LocalBucketStore;
+import com.document.conversion.service.ratelimit.ProxyManagerBucketStore;
+import io.github.bucket4j.Bandwidth;
+import io.github.bucket4j.BucketConfiguration;
+import io.github.bucket4j.distributed.proxy.ClientSideConfig;
+import io.github.bucket4j.distributed.proxy.generic.compare_and_swap.AbstractCompareAndSwapBasedProxyManager;
+import io.github.bucket4j.distributed.proxy.generic.compare_and_swap.AsyncCompareAndSwapOperation;
+import io.github.bucket4j.distributed.proxy.generic.compare_and_swap.CompareAndSwapOperation;
+import io.github.bucket4j.distributed.remote.RemoteBucketState;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class RateLimitingAspectTest {
+
+    private static final long MEGABYTE = 1024 * 1024;
+
+    private final BucketConfiguration configuration = BucketConfiguration.builder()
+            .addLimit(Bandwidth.builder()
+                    .capacity(10)
+                    .refillIntervally(10, Duration.ofHours(1))
+                    .build())
+            .build();
+
+    private ProceedingJoinPoint joinPoint;
+
+    @BeforeEach
+    void setUp() throws Throwable {
+        joinPoint = mock(ProceedingJoinPoint.class);
+        when(joinPoint.proceed()).thenReturn("converted");
+    }
+
+    @AfterEach
+    void tearDown() {
+        RequestContextHolder.resetRequestAttributes();
+    }
+
+    @Test
+    void rateLimit_shouldChargeBySize() throws Throwable {
+        RateLimitingAspect aspect = localAspect();
+
+        withRequest("10.0.0.1", 4 * MEGABYTE);
+        assertThat(aspect.rateLimit(joinPoint)).isEqualTo("converted");
+        assertThat(aspect.rateLimit(joinPoint)).isEqualTo("converted");
+        assertThatThrownBy(() -> aspect.rateLimit(joinPoint)).isInstanceOf(RateLimitExceededException.class);
+
+        // Small requests still fit into what is left
+        withRequest("10.0.0.1", 10 * 1024);
+        assertThat(aspect.rateLimit(joinPoint)).isEqualTo("converted");
+    }
+
+    @Test
+    void rateLimit_shouldCapCostAtBucketCapacity() throws Throwable {
+        RateLimitingAspect aspect = localAspect();
+
+        withRequest("10.0.0.1", 100 * MEGABYTE);
+        assertThat(aspect.rateLimit(joinPoint)).isEqualTo("converted");
+        assertThatThrownBy(() -> aspect.rateLimit(joinPoint)).isInstanceOf(RateLimitExceededException.class);
+    }
+
+    @Test
+    void rateLimit_shouldChargeTheMaximumCostWhenTheLengthIsUnknown() throws Throwable {
+        RateLimitingAspect aspect = localAspect();
+
+        withRequest("10.0.0.1", -1);
+        assertThat(aspect.rateLimit(joinPoint)).isEqualTo("converted");
+        assertThatThrownBy(() -> aspect.rateLimit(joinPoint)).isInstanceOf(RateLimitExceededException.class);
+    }
+
+    @Test
+    void rateLimit_shouldShareBucketsAcrossReplicas() throws Throwable {
+        InMemoryProxyManager backend = new InMemoryProxyManager();
+        RateLimitingAspect replicaA = new RateLimitingAspect(new ProxyManagerBucketStore(backend), configuration, MEGABYTE);
+        RateLimitingAspect replicaB = new RateLimitingAspect(new ProxyManagerBucketStore(backend), configuration, MEGABYTE);
+
+        withRequest("10.0.0.1", 5 * MEGABYTE);
+        replicaA.rateLimit(joinPoint);
+        replicaB.rateLimit(joinPoint);
+        assertThatThrownBy(() -> replicaA.rateLimit(joinPoint)).isInstanceOf(RateLimitExceededException.class);
+
+        withRequest("10.0.0.2", 5 * MEGABYTE);
+        assertThat(replicaB.rateLimit(joinPoint)).isEqualTo("converted");
+        assertThat(backend.states).containsOnlyKeys("10.0.0.1", "10.0.0.2");
+    }
+
+    @Test
+    void localBucketStore_shouldStayBounded() throws Throwable {
+        LocalBucketStore store = new LocalBucketStore(100, Duration.ofMinutes(10));
+        RateLimitingAspect aspect = new RateLimitingAspect(store, configuration, MEGABYTE);
+
+        for (int client = 0; client < 1_000; client++) {
+            withRequest("10.0." + client / 256 + "." + client % 256, 1024);
+            aspect.rateLimit(joinPoint);
+        }
+
+        assertThat(store.size()).isLessThanOrEqualTo(100);
+    }
+
+    private RateLimitingAspect localAspect() {
+        return new RateLimitingAspect(new LocalBucketStore(1_000, Duration.ofMinutes(10)), configuration, MEGABYTE);
+    }
+
+    private void withRequest(String remoteAddr, long contentLength) {
+        // Only the declared length matters, there is no need to allocate the body
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/documents/convert") {
+            @Override
+            public long getContentLengthLong() {
+                return contentLength;
+            }
+        };
+        request.setRemoteAddr(remoteAddr);
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(request));
+    }
+
+    /**
+     * Stands in for a shared backend such as Redis, keeping serialized bucket state in a map.
+     */
+    private static final class InMemoryProxyManager extends AbstractCompareAndSwapBasedProxyManager<String> {
+
+        private final Map<String, byte[]> states = new ConcurrentHashMap<>();
+
+        private InMemoryProxyManager() {
+            super(ClientSideConfig.getDefault());
+        }
+
+        @Override
+        protected CompareAndSwapOperation beginCompareAndSwapOperation(String key) {
+            return new CompareAndSwapOperation() {
+                @Override
+                public Optional<byte[]> getStateData() {
+                    return Optional.ofNullable(states.get(key));
+                }
+
+                @Override
+                public boolean compareAndSwap(byte[] originalData, byte[] newData, RemoteBucketState newState) {
+                    if (originalData == null) {
+                        return states.putIfAbsent(key, newData) == null;
+                    }
+                    byte[] current = states.get(key);
+                    return current != null && Arrays.equals(current, originalData)
+                            && states.replace(key, current, newData);
+                }
+            };
+        }
+
+        @Override
+        protected AsyncCompareAndSwapOperation beginAsyncCompareAndSwapOperation(String key) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void removeProxy(String key) {
+            states.remove(key);
+        }
+
+        @Override
+        protected CompletableFuture<Void> removeAsync(String key) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public boolean isAsyncModeSupported() {
+            return false;
+        }
+    }
+}
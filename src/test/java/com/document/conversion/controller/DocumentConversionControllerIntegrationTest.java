@@ -1,5 +1,6 @@
 package com.document.conversion.controller;
 
+import com.document.conversion.model.BatchConversionResponse;
 import com.document.conversion.model.ConversionResponse;
 import com.document.conversion.model.Document;
 
@@ -20,6 +21,7 @@ import org.springframework.util.LinkedMultiValueMap;
 import org.springframework.util.MultiValueMap;
 import org.springframework.web.client.HttpClientErrorException;
 
+import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.UUID;
@@ -40,6 +42,40 @@ public class DocumentConversionControllerIntegrationTest extends BaseIT {
         validateConversionStatus(Objects.requireNonNull(responseEntity.getBody()), Document.ConversionStatus.PENDING.name());
     }
 
+    @Test
+    public void submitBatchConversion_shouldReturnOneDocumentPerFile() throws IOException {
+        String url = BASE_URL + port + "/api/v1/documents/convert/batch";
+        MultiValueMap<String, Object> body = new LinkedMultiValueMap<>();
+        body.add("files", pdfResource("first.pdf"));
+        body.add("files", pdfResource("second.pdf"));
+        body.add("targetFormat", "png");
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.MULTIPART_FORM_DATA);
+        ResponseEntity<BatchConversionResponse> responseEntity =
+                restTemplate.exchange(url, HttpMethod.POST, new HttpEntity<>(body, headers), BatchConversionResponse.class);
+        validateResponseStatus(responseEntity, HttpStatus.ACCEPTED);
+        assertThat(responseEntity.getBody().getDocuments())
+                .hasSize(2)
+                .allSatisfy(document -> assertThat(document.getDocumentId()).isNotNull());
+    }
+
+    @Test
+    public void submitStreamingConversion_shouldAcceptPdfAndRejectOtherContent() throws IOException {
+        String url = BASE_URL + port + "/api/v1/documents/convert/stream?fileName=test.pdf&targetFormat=png";
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_PDF);
+        ResponseEntity<ConversionResponse> responseEntity =
+                restTemplate.exchange(url, HttpMethod.POST, new HttpEntity<>(createPDFContent(), headers), ConversionResponse.class);
+        validateResponseStatus(responseEntity, HttpStatus.ACCEPTED);
+        validateConversionStatus(Objects.requireNonNull(responseEntity.getBody()), Document.ConversionStatus.PENDING.name());
+
+        HttpClientErrorException exception = Assertions.assertThrows(
+                HttpClientErrorException.class,
+                () -> restTemplate.exchange(url, HttpMethod.POST, new HttpEntity<>("not a pdf".getBytes(), headers), Map.class)
+        );
+        Assertions.assertEquals(HttpStatus.BAD_REQUEST, exception.getStatusCode());
+    }
+
     @Test
     public void getStatus_shouldReturn404() {
         String url = String.format("%s%s/api/v1/documents/%s/status", BASE_URL, port, UUID.randomUUID());
@@ -68,6 +104,18 @@ public class DocumentConversionControllerIntegrationTest extends BaseIT {
         validateConversionStatus(Objects.requireNonNull(statusResponse.getBody()), Document.ConversionStatus.FAILED.name());
     }
 
+    @Test
+    public void cancelConversion_shouldRejectFinishedConversion() throws InterruptedException, IOException {
+        ResponseEntity<ConversionResponse> responseEntity = submitConversionRequest("png");
+        Thread.sleep(3000);
+        String url = BASE_URL + port + "/api/v1/documents/" + Objects.requireNonNull(responseEntity.getBody()).getDocumentId();
+        HttpClientErrorException exception = Assertions.assertThrows(
+                HttpClientErrorException.class,
+                () -> restTemplate.exchange(url, HttpMethod.DELETE, null, ConversionResponse.class)
+        );
+        Assertions.assertEquals(HttpStatus.CONFLICT, exception.getStatusCode());
+    }
+
     @Test
     public void downloadDocument_shouldReturnFile() throws InterruptedException, IOException {
         ResponseEntity<ConversionResponse> conversionResponse = submitConversionRequest("png");
@@ -76,6 +124,21 @@ public class DocumentConversionControllerIntegrationTest extends BaseIT {
         validateDownloadResponse(downloadResponse);
     }
 
+    @Test
+    public void downloadDocument_shouldReturnPartialContentForRange() throws InterruptedException, IOException {
+        ResponseEntity<ConversionResponse> conversionResponse = submitConversionRequest("png");
+        Thread.sleep(3000);
+        String url = BASE_URL + port + "/api/v1/documents/" + Objects.requireNonNull(conversionResponse.getBody()).getDocumentId() + "/download";
+        HttpHeaders headers = new HttpHeaders();
+        headers.setRange(List.of(HttpRange.createByteRange(0, 7)));
+        ResponseEntity<byte[]> rangeResponse = restTemplate.exchange(url, HttpMethod.GET, new HttpEntity<>(headers), byte[].class);
+        assertThat(rangeResponse.getStatusCode()).isEqualTo(HttpStatus.PARTIAL_CONTENT);
+        assertThat(rangeResponse.getHeaders().getContentLength()).isEqualTo(8);
+        assertThat(rangeResponse.getHeaders().getFirst(HttpHeaders.CONTENT_RANGE)).startsWith("bytes 0-7/");
+        // PNG signature
+        assertThat(rangeResponse.getBody()).containsExactly(0x89, 'P', 'N', 'G', '\r', '\n', 0x1A, '\n');
+    }
+
     private ResponseEntity<ConversionResponse> submitConversionRequest(String targetFormat) throws IOException {
         String url = BASE_URL + port + "/api/v1/documents/convert";
         HttpEntity<MultiValueMap<String, Object>> requestEntity = createMultipartRequest(targetFormat);
@@ -94,18 +157,22 @@ public class DocumentConversionControllerIntegrationTest extends BaseIT {
 
     private HttpEntity<MultiValueMap<String, Object>> createMultipartRequest(String targetFormat) throws IOException {
         MultiValueMap<String, Object> body = new LinkedMultiValueMap<>();
-        body.add("file", new ByteArrayResource(createPDFContent()) {
-            @Override
-            public String getFilename() {
-                return "test.pdf";
-            }
-        });
+        body.add("file", pdfResource("test.pdf"));
         body.add("targetFormat", targetFormat);
         HttpHeaders headers = new HttpHeaders();
         headers.setContentType(MediaType.MULTIPART_FORM_DATA);
         return new HttpEntity<>(body, headers);
     }
 
+    private ByteArrayResource pdfResource(String fileName) throws IOException {
+        return new ByteArrayResource(createPDFContent()) {
+            @Override
+            public String getFilename() {
+                return fileName;
+            }
+        };
+    }
+
     private byte[] createPDFContent() throws IOException {
         // Create a new PDF document
         try (PDDocument document = new PDDocument()) {
@@ -139,7 +206,7 @@ public class DocumentConversionControllerIntegrationTest extends BaseIT {
 
     private void validateDownloadResponse(ResponseEntity<byte[]> response) {
         assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
-        assertThat(response.getHeaders().getContentType()).isEqualTo(MediaType.APPLICATION_OCTET_STREAM);
+        assertThat(response.getHeaders().getContentType()).isEqualTo(MediaType.IMAGE_PNG);
         assertThat(response.getHeaders().getContentDisposition().getFilename()).isEqualTo("converted-document");
         assertThat(response.getBody()).isNotEmpty();
     }
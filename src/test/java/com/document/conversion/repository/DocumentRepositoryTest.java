@@ -0,0 +1,152 @@
+package com.document.conversion.repository;
+
+import com.document.conversion.model.Document;
+import com.document.conversion.model.DocumentFileView;
+import com.document.conversion.model.DocumentStatusView;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@DataJpaTest
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class DocumentRepositoryTest {
+
+    @Autowired
+    private DocumentRepository documentRepository;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @AfterEach
+    void tearDown() {
+        documentRepository.deleteAll();
+    }
+
+    @Test
+    void claim_shouldOnlyMoveADocumentOutOfTheExpectedStatusOnce() {
+        Document document = documentRepository.save(document(Document.ConversionStatus.PENDING, null));
+        LocalDateTime now = LocalDateTime.now();
+
+        assertThat(claim(document, "first", now)).isEqualTo(1);
+        assertThat(claim(document, "second", now)).isZero();
+
+        Document claimed = reload(document);
+        assertThat(claimed.getStatus()).isEqualTo(Document.ConversionStatus.IN_PROGRESS);
+        assertThat(claimed.getLeaseOwner()).isEqualTo("first");
+        assertThat(claimed.getAttempts()).isEqualTo(1);
+        assertThat(claimed.getVersion()).isEqualTo(document.getVersion() + 1);
+    }
+
+    @Test
+    void claim_shouldMakeAStaleWholeEntitySaveFail() {
+        Document stale = documentRepository.save(document(Document.ConversionStatus.PENDING, null));
+        claim(stale, "worker", LocalDateTime.now());
+
+        stale.setErrorMessage("overwritten");
+
+        assertThatThrownBy(() -> documentRepository.save(stale))
+                .isInstanceOf(ObjectOptimisticLockingFailureException.class);
+        assertThat(reload(stale).getStatus()).isEqualTo(Document.ConversionStatus.IN_PROGRESS);
+    }
+
+    @Test
+    void updateResult_shouldDiscardTheResultOfALeaseThatWasLost() {
+        Document document = documentRepository.save(document(Document.ConversionStatus.PENDING, null));
+        LocalDateTime now = LocalDateTime.now();
+        claim(document, "worker", now);
+
+        assertThat(documentRepository.updateResult(document.getId(), Document.ConversionStatus.IN_PROGRESS,
+                Document.ConversionStatus.COMPLETED, "other", "converted.png", 2048L, null, now)).isZero();
+        assertThat(documentRepository.updateResult(document.getId(), Document.ConversionStatus.IN_PROGRESS,
+                Document.ConversionStatus.COMPLETED, "worker", "converted.png", 2048L, null, now)).isEqualTo(1);
+        // A second result for the same conversion finds it no longer in progress
+        assertThat(documentRepository.updateResult(document.getId(), Document.ConversionStatus.IN_PROGRESS,
+                Document.ConversionStatus.FAILED, "worker", null, null, "late", now)).isZero();
+
+        Document completed = reload(document);
+        assertThat(completed.getStatus()).isEqualTo(Document.ConversionStatus.COMPLETED);
+        assertThat(completed.getConvertedFilePath()).isEqualTo("converted.png");
+        assertThat(completed.getLeaseOwner()).isNull();
+        assertThat(completed.getErrorMessage()).isNull();
+    }
+
+    @Test
+    void updateDuplicates_shouldUpdateAllDuplicatesExceptCancelledOnesInOneStatement() {
+        Document primary = documentRepository.save(document(Document.ConversionStatus.IN_PROGRESS, null));
+        Document waiting = documentRepository.save(document(Document.ConversionStatus.IN_PROGRESS, primary.getId()));
+        Document cancelled = documentRepository.save(document(Document.ConversionStatus.CANCELLED, primary.getId()));
+        Document unrelated = documentRepository.save(document(Document.ConversionStatus.IN_PROGRESS, null));
+
+        int updated = documentRepository.updateDuplicates(primary.getId(), Document.ConversionStatus.COMPLETED,
+                "converted.png", null, LocalDateTime.now(), Document.ConversionStatus.CANCELLED);
+
+        assertThat(updated).isEqualTo(1);
+        assertThat(reload(waiting).getStatus()).isEqualTo(Document.ConversionStatus.COMPLETED);
+        assertThat(reload(waiting).getConvertedFilePath()).isEqualTo("converted.png");
+        assertThat(reload(cancelled).getStatus()).isEqualTo(Document.ConversionStatus.CANCELLED);
+        assertThat(reload(unrelated).getStatus()).isEqualTo(Document.ConversionStatus.IN_PROGRESS);
+    }
+
+    @Test
+    void views_shouldExposeTheColumnsOfTheDocument() {
+        Document primary = documentRepository.save(document(Document.ConversionStatus.COMPLETED, null));
+        Document duplicate = document(Document.ConversionStatus.FAILED, primary.getId());
+        duplicate.setErrorMessage("broken");
+        duplicate.setPreviewFilePath("preview.png");
+        duplicate = documentRepository.save(duplicate);
+
+        DocumentStatusView status = documentRepository.findStatusViewById(duplicate.getId()).orElseThrow();
+        assertThat(status.getId()).isEqualTo(duplicate.getId());
+        assertThat(status.getStatus()).isEqualTo(Document.ConversionStatus.FAILED);
+        assertThat(status.getErrorMessage()).isEqualTo("broken");
+        assertThat(status.getPreviewFilePath()).isEqualTo("preview.png");
+        assertThat(status.getCreatedAt()).isNotNull();
+        DocumentFileView file = documentRepository.findFileViewById(duplicate.getId()).orElseThrow();
+        assertThat(file.getDuplicateOf()).isEqualTo(primary.getId());
+        assertThat(file.getConvertedFilePath()).isEqualTo(duplicate.getConvertedFilePath());
+        assertThat(documentRepository.findStatusViewById(UUID.randomUUID())).isEmpty();
+    }
+
+    @Test
+    void schema_shouldIndexTheColumnsStatusAndAgeQueriesFilterOn() {
+        assertThat(jdbcTemplate.queryForList("select index_name from information_schema.indexes "
+                + "where table_name = 'DOCUMENTS'", String.class))
+                .contains("IDX_DOCUMENTS_STATUS", "IDX_DOCUMENTS_CREATED_AT", "IDX_DOCUMENTS_LEASE",
+                        "IDX_DOCUMENTS_LAST_ACCESSED");
+    }
+
+    private int claim(Document document, String owner, LocalDateTime now) {
+        return documentRepository.claim(document.getId(), Document.ConversionStatus.PENDING,
+                Document.ConversionStatus.IN_PROGRESS, owner, now.plusMinutes(5), now);
+    }
+
+    private Document reload(Document document) {
+        return documentRepository.findById(document.getId()).orElseThrow();
+    }
+
+    private static Document document(Document.ConversionStatus status, UUID duplicateOf) {
+        String id = UUID.randomUUID().toString();
+        return Document.builder()
+                .originalFileName("test.pdf")
+                .originalFormat("pdf")
+                .targetFormat("png")
+                .status(status)
+                .duplicateOf(duplicateOf)
+                .originalFilePath("original-" + id + "-test.pdf")
+                .originalFileSize(1024L)
+                .convertedFilePath(status == Document.ConversionStatus.COMPLETED ? "converted-" + id + ".png" : null)
+                .contentHash("key")
+                .conversionKey("key")
+                .build();
+    }
+}
@@ -0,0 +1,81 @@
+package com.document.conversion.service;
+
+import com.document.conversion.exception.ServiceOverloadedException;
+import com.document.conversion.repository.OutboxMessageRepository;
+import com.document.conversion.service.queue.ConversionQueue;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class AdmissionControlServiceTest {
+
+    private static final long SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final ConversionQueue conversionQueue = mock(ConversionQueue.class);
+    private final OutboxMessageRepository outboxMessageRepository = mock(OutboxMessageRepository.class);
+    private final MetricsService metricsService = new MetricsService(registry);
+    private final AdmissionControlService service = new AdmissionControlService(conversionQueue,
+            outboxMessageRepository, metricsService, true, 100, 50, Duration.ofSeconds(1), Duration.ofMinutes(10));
+
+    @Test
+    void update_shouldShedBetweenTheWatermarks() {
+        service.update(99, SECOND);
+        service.checkAdmission();
+
+        service.update(100, 2 * SECOND);
+        assertThatThrownBy(service::checkAdmission).isInstanceOf(ServiceOverloadedException.class);
+        assertThat(registry.get("document_admission_state").gauge().value()).isEqualTo(1);
+
+        // Still above the low watermark
+        service.update(60, 3 * SECOND);
+        assertThat(service.getState()).isEqualTo(AdmissionControlService.State.SHEDDING);
+
+        service.update(50, 4 * SECOND);
+        service.checkAdmission();
+        assertThat(registry.get("document_admission_state").gauge().value()).isEqualTo(0);
+        assertThat(registry.get("document_admission_rejected_total").counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void refresh_shouldTakeTheBacklogFromTheQueue() {
+        when(conversionQueue.pendingCount()).thenReturn(100L);
+
+        service.refresh();
+
+        assertThat(service.getState()).isEqualTo(AdmissionControlService.State.SHEDDING);
+        assertThat(registry.get("document_admission_backlog").gauge().value()).isEqualTo(100);
+    }
+
+    @Test
+    void refresh_shouldCountRunningAndUnrelayedConversionsInTheBacklog() {
+        when(conversionQueue.pendingCount()).thenReturn(60L);
+        when(outboxMessageRepository.count()).thenReturn(30L);
+        for (int i = 0; i < 10; i++) {
+            metricsService.startConversion("pdf", "png");
+        }
+
+        service.refresh();
+
+        assertThat(service.getState()).isEqualTo(AdmissionControlService.State.SHEDDING);
+        assertThat(registry.get("document_admission_backlog").gauge().value()).isEqualTo(100);
+    }
+
+    @Test
+    void retryAfter_shouldEstimateTheTimeToDrainToTheLowWatermark() {
+        service.update(150, SECOND);
+        // No drain rate measured yet
+        assertThat(service.retryAfterSeconds()).isEqualTo(600);
+
+        // 10 conversions per second, 90 left above the low watermark
+        service.update(140, 2 * SECOND);
+        assertThat(service.retryAfterSeconds()).isBetween(9L, 11L);
+    }
+}
@@ -0,0 +1,224 @@
+package com.document.conversion.service;
+
+import com.document.conversion.model.Document;
+import com.document.conversion.repository.DocumentRepository;
+import com.document.conversion.repository.OutboxMessageRepository;
+import com.document.conversion.service.outbox.OutboxService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+@DataJpaTest(properties = "app.conversion.lease.heartbeat-interval-ms=50")
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Import({ConversionLeaseService.class, DocumentSubmissionService.class, OutboxService.class,
+        DocumentStatusCache.class, JpaServiceTestConfig.class})
+class ConversionLeaseServiceTest {
+
+    @Autowired
+    private ConversionLeaseService conversionLeaseService;
+    @Autowired
+    private DocumentSubmissionService documentSubmissionService;
+    @Autowired
+    private DocumentRepository documentRepository;
+    @Autowired
+    private OutboxMessageRepository outboxMessageRepository;
+
+    @AfterEach
+    void tearDown() {
+        outboxMessageRepository.deleteAll();
+        documentRepository.deleteAll();
+    }
+
+    @Test
+    void cancel_shouldHandConversionOverToTheOldestDuplicate() {
+        Document primary = documentSubmissionService.submit(upload("key"));
+        Document first = documentSubmissionService.submit(upload("key"));
+        Document second = documentSubmissionService.submit(upload("key"));
+        outboxMessageRepository.deleteAll();
+
+        assertThat(conversionLeaseService.cancel(reload(primary))).isTrue();
+
+        Document cancelled = reload(primary);
+        assertThat(cancelled.getStatus()).isEqualTo(Document.ConversionStatus.CANCELLED);
+        assertThat(cancelled.getOriginalFilePath()).isNull();
+        Document successor = reload(first);
+        assertThat(successor.getDuplicateOf()).isNull();
+        assertThat(successor.getStatus()).isEqualTo(Document.ConversionStatus.PENDING);
+        assertThat(successor.getOriginalFilePath()).isEqualTo(primary.getOriginalFilePath());
+        assertThat(reload(second).getDuplicateOf()).isEqualTo(first.getId());
+        assertThat(reload(second).getStatus()).isEqualTo(Document.ConversionStatus.PENDING);
+        assertThat(outboxMessageRepository.findAll())
+                .singleElement()
+                .satisfies(message -> assertThat(message.getDocumentId()).isEqualTo(first.getId()));
+    }
+
+    @Test
+    void cancel_shouldSkipDuplicatesThatWereCancelledThemselves() {
+        Document primary = documentSubmissionService.submit(upload("key"));
+        Document duplicate = documentSubmissionService.submit(upload("key"));
+        outboxMessageRepository.deleteAll();
+
+        assertThat(conversionLeaseService.cancel(reload(duplicate))).isTrue();
+        assertThat(reload(primary).getStatus()).isEqualTo(Document.ConversionStatus.PENDING);
+        assertThat(conversionLeaseService.cancel(reload(primary))).isTrue();
+
+        assertThat(reload(primary).getStatus()).isEqualTo(Document.ConversionStatus.CANCELLED);
+        assertThat(reload(primary).getOriginalFilePath()).isEqualTo(primary.getOriginalFilePath());
+        assertThat(reload(duplicate).getStatus()).isEqualTo(Document.ConversionStatus.CANCELLED);
+        assertThat(outboxMessageRepository.count()).isZero();
+        // A cancelled conversion is not reused either
+        assertThat(documentSubmissionService.submit(upload("key")).getDuplicateOf()).isNull();
+    }
+
+    @Test
+    void claim_shouldLeaseTheDocumentToASingleWorker() {
+        Document document = documentSubmissionService.submit(upload("key"));
+        Document redelivered = reload(document);
+
+        assertThat(conversionLeaseService.claim(document)).isTrue();
+        assertThat(conversionLeaseService.claim(redelivered)).isFalse();
+
+        Document stored = reload(document);
+        assertThat(stored.getStatus()).isEqualTo(Document.ConversionStatus.IN_PROGRESS);
+        assertThat(stored.getAttempts()).isEqualTo(1);
+        assertThat(document.getLeaseOwner()).isEqualTo(stored.getLeaseOwner());
+        assertThat(document.getLeaseExpiresAt()).isAfter(LocalDateTime.now())
+                .isCloseTo(stored.getLeaseExpiresAt(), within(1, ChronoUnit.MILLIS));
+    }
+
+    @Test
+    void startHeartbeat_shouldRenewTheLeaseWhileItIsHeld() throws Exception {
+        Document document = documentSubmissionService.submit(upload("key"));
+        conversionLeaseService.claim(document);
+        LocalDateTime claimedUntil = reload(document).getLeaseExpiresAt();
+
+        ScheduledFuture<?> heartbeat = conversionLeaseService.startHeartbeat(document.getId(), () -> {
+        });
+        try {
+            await(() -> reload(document).getLeaseExpiresAt().isAfter(claimedUntil));
+        } finally {
+            heartbeat.cancel(false);
+        }
+    }
+
+    @Test
+    void startHeartbeat_shouldReportALeaseLostDuringTheConversion() throws Exception {
+        Document document = documentSubmissionService.submit(upload("key"));
+        conversionLeaseService.claim(document);
+        CountDownLatch leaseLost = new CountDownLatch(1);
+        ScheduledFuture<?> heartbeat = conversionLeaseService.startHeartbeat(document.getId(), leaseLost::countDown);
+        try {
+            conversionLeaseService.cancel(reload(document));
+
+            assertThat(leaseLost.await(10, TimeUnit.SECONDS)).isTrue();
+        } finally {
+            heartbeat.cancel(false);
+        }
+        document.setStatus(Document.ConversionStatus.COMPLETED);
+        document.setConvertedFilePath("converted.png");
+        assertThat(conversionLeaseService.complete(document)).isFalse();
+        assertThat(reload(document).getStatus()).isEqualTo(Document.ConversionStatus.CANCELLED);
+    }
+
+    @Test
+    void complete_shouldStoreTheResultForTheDocumentAndItsDuplicates() {
+        Document document = documentSubmissionService.submit(upload("key"));
+        Document duplicate = documentSubmissionService.submit(upload("key"));
+        conversionLeaseService.claim(document);
+
+        document.setStatus(Document.ConversionStatus.COMPLETED);
+        document.setConvertedFilePath("converted.png");
+        document.setConvertedFileSize(2048L);
+        assertThat(conversionLeaseService.complete(document)).isTrue();
+
+        Document stored = reload(document);
+        assertThat(stored.getStatus()).isEqualTo(Document.ConversionStatus.COMPLETED);
+        assertThat(stored.getLeaseOwner()).isNull();
+        assertThat(stored.getLeaseExpiresAt()).isNull();
+        assertThat(document.getLeaseExpiresAt()).isNull();
+        assertThat(reload(duplicate).getStatus()).isEqualTo(Document.ConversionStatus.COMPLETED);
+        assertThat(reload(duplicate).getConvertedFilePath()).isEqualTo("converted.png");
+    }
+
+    @Test
+    void requeueExpiredLeases_shouldWinAgainstALateComplete() {
+        Document document = documentSubmissionService.submit(upload("key"));
+        outboxMessageRepository.deleteAll();
+        conversionLeaseService.claim(document);
+        expireLease(document);
+
+        new ConversionLeaseReaper(conversionLeaseService, 10).requeueExpiredLeases();
+        document.setStatus(Document.ConversionStatus.COMPLETED);
+        document.setConvertedFilePath("converted.png");
+
+        assertThat(conversionLeaseService.complete(document)).isFalse();
+        assertThat(reload(document).getStatus()).isEqualTo(Document.ConversionStatus.PENDING);
+        assertThat(outboxMessageRepository.findAll())
+                .singleElement()
+                .satisfies(message -> assertThat(message.getDocumentId()).isEqualTo(document.getId()));
+        assertThat(conversionLeaseService.claim(reload(document))).isTrue();
+        assertThat(reload(document).getAttempts()).isEqualTo(2);
+    }
+
+    @Test
+    void requeueExpiredLeases_shouldFailDocumentsThatUsedUpTheirAttempts() {
+        Document document = documentSubmissionService.submit(upload("key"));
+        ConversionLeaseReaper reaper = new ConversionLeaseReaper(conversionLeaseService, 10);
+        for (int attempt = 0; attempt < 3; attempt++) {
+            assertThat(conversionLeaseService.claim(reload(document))).isTrue();
+            expireLease(document);
+            reaper.requeueExpiredLeases();
+        }
+
+        Document failed = reload(document);
+        assertThat(failed.getStatus()).isEqualTo(Document.ConversionStatus.FAILED);
+        assertThat(failed.getErrorMessage()).isEqualTo("Conversion abandoned after 3 attempts");
+    }
+
+    private void expireLease(Document document) {
+        Document claimed = reload(document);
+        documentRepository.renewLease(claimed.getId(), Document.ConversionStatus.IN_PROGRESS, claimed.getLeaseOwner(),
+                LocalDateTime.now().minusSeconds(1));
+    }
+
+    private static void await(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (!condition.getAsBoolean()) {
+            assertThat(System.nanoTime()).as("condition met within 10s").isLessThan(deadline);
+            Thread.sleep(20);
+        }
+    }
+
+    private Document reload(Document document) {
+        return documentRepository.findById(document.getId()).orElseThrow();
+    }
+
+    private static Document upload(String conversionKey) {
+        return Document.builder()
+                .originalFileName("test.pdf")
+                .originalFormat("pdf")
+                .targetFormat("png")
+                .status(Document.ConversionStatus.PENDING)
+                .originalFilePath("original-" + UUID.randomUUID() + "-test.pdf")
+                .originalFileSize(1024L)
+                .originalUsedAt(LocalDateTime.now())
+                .contentHash(conversionKey)
+                .conversionKey(conversionKey)
+                .build();
+    }
+}
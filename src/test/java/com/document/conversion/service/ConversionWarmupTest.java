@@ -0,0 +1,76 @@
+package com.document.conversion.service;
+
+import com.document.conversion.model.RenderOptions;
+import com.document.conversion.service.converter.DocumentConvertFactory;
+import com.document.conversion.service.converter.PdfDocumentLoader;
+import com.document.conversion.service.converter.PdfToPngConverter;
+import com.document.conversion.service.converter.PdfToWordConverter;
+import com.document.conversion.service.converter.PngEncoder;
+import com.document.conversion.service.storage.InMemoryStorageBackend;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.DefaultApplicationArguments;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+class ConversionWarmupTest {
+
+    private final ThreadPoolExecutor renderExecutor =
+            new ThreadPoolExecutor(2, 2, 0L, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>());
+    private final ThreadPoolExecutor encodeExecutor =
+            new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>());
+
+    @AfterEach
+    void tearDown() {
+        renderExecutor.shutdownNow();
+        encodeExecutor.shutdownNow();
+    }
+
+    @Test
+    void run_shouldConvertTheSampleWithEveryConverterAndLeaveNothingBehind() throws Exception {
+        InMemoryStorageBackend storageBackend = new InMemoryStorageBackend();
+        PdfDocumentLoader loader = new PdfDocumentLoader(PdfDocumentLoader.Strategy.MEMORY, 0, 0, 1 << 20, "");
+        PngEncoder encoder = new PngEncoder(1, PngEncoder.Filter.NONE, 1 << 16, encodeExecutor);
+        PdfToPngConverter pngConverter = spy(new PdfToPngConverter(storageBackend, loader, renderExecutor, encoder,
+                36, RenderOptions.ImageType.RGB, 1_000_000));
+        PdfToWordConverter wordConverter = spy(new PdfToWordConverter(storageBackend, loader, renderExecutor));
+        ConversionWarmup warmup = new ConversionWarmup(storageBackend, new FileStorageService(storageBackend),
+                new DocumentConvertFactory(pngConverter, wordConverter), mock(ConfigurableApplicationContext.class),
+                2, false);
+
+        warmup.run(new DefaultApplicationArguments());
+
+        verify(pngConverter, times(2)).convert(any(), any());
+        verify(wordConverter, times(2)).convert(any(), any());
+        assertThat(storageBackend.keys()).isEmpty();
+    }
+
+    @Test
+    void warmUp_shouldReportFailureWhenAConverterFails() throws Exception {
+        InMemoryStorageBackend storageBackend = new InMemoryStorageBackend();
+        PdfDocumentLoader loader = new PdfDocumentLoader(PdfDocumentLoader.Strategy.MEMORY, 0, 0, 1 << 20, "");
+        PngEncoder encoder = new PngEncoder(1, PngEncoder.Filter.NONE, 1 << 16, encodeExecutor);
+        PdfToPngConverter pngConverter = new PdfToPngConverter(storageBackend, loader, renderExecutor, encoder,
+                36, RenderOptions.ImageType.RGB, 1_000_000);
+        PdfToWordConverter wordConverter = spy(new PdfToWordConverter(storageBackend, loader, renderExecutor));
+        doThrow(new IOException("broken")).when(wordConverter).convert(any(), any());
+        ConversionWarmup warmup = new ConversionWarmup(storageBackend, new FileStorageService(storageBackend),
+                new DocumentConvertFactory(pngConverter, wordConverter), mock(ConfigurableApplicationContext.class),
+                1, false);
+
+        assertThat(warmup.warmUp()).isFalse();
+        assertThat(storageBackend.keys()).isEmpty();
+    }
+}
@@ -0,0 +1,67 @@
+package com.document.conversion.service;
+
+import com.document.conversion.exception.ConversionCancelledException;
+import com.document.conversion.model.Document;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+
+import java.time.Duration;
+import java.util.UUID;
+import java.util.concurrent.ScheduledFuture;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ConversionWatchdogTest {
+
+    private final MetricsService metricsService = new MetricsService(new SimpleMeterRegistry());
+    private ThreadPoolTaskScheduler taskScheduler;
+
+    @BeforeEach
+    void setUp() {
+        taskScheduler = new ThreadPoolTaskScheduler();
+        taskScheduler.initialize();
+    }
+
+    @AfterEach
+    void tearDown() {
+        taskScheduler.shutdown();
+    }
+
+    @Test
+    void watch_shouldTimeOutConversionsPastTheirFormatDeadline() throws InterruptedException {
+        ConversionWatchdog watchdog = new ConversionWatchdog(taskScheduler, Duration.ofMillis(50), Duration.ofHours(1));
+        UUID documentId = UUID.randomUUID();
+        ConversionContext png = metricsService.startConversion("pdf", "png");
+        ConversionContext word = metricsService.startConversion("pdf", "word");
+        watchdog.watch(UUID.randomUUID(), word);
+
+        ScheduledFuture<?> deadline = watchdog.watch(documentId, png);
+        Thread.sleep(500);
+
+        assertThat(png.getCancelledAs()).isEqualTo(Document.ConversionStatus.TIMED_OUT);
+        assertThatThrownBy(png::checkCancelled)
+                .isInstanceOf(ConversionCancelledException.class)
+                .hasMessageContaining("deadline");
+        word.checkCancelled();
+        watchdog.unwatch(documentId, deadline);
+        assertThat(watchdog.cancel(documentId)).isFalse();
+    }
+
+    @Test
+    void cancel_shouldKeepTheFirstReason() {
+        ConversionWatchdog watchdog = new ConversionWatchdog(taskScheduler, Duration.ofHours(1), Duration.ofHours(1));
+        UUID documentId = UUID.randomUUID();
+        ConversionContext context = metricsService.startConversion("pdf", "png");
+        watchdog.watch(documentId, context);
+
+        assertThat(watchdog.cancel(documentId)).isTrue();
+        assertThat(context.cancel(Document.ConversionStatus.TIMED_OUT, "late")).isFalse();
+
+        assertThat(context.getCancelledAs()).isEqualTo(Document.ConversionStatus.CANCELLED);
+        assertThat(ConversionContext.untracked().cancel(Document.ConversionStatus.CANCELLED, "ignored")).isFalse();
+    }
+}
@@ -0,0 +1,155 @@
+package com.document.conversion.service;
+
+import com.document.conversion.config.CacheConfig;
+import com.document.conversion.model.BatchConversionRequest;
+import com.document.conversion.model.Document;
+import com.document.conversion.model.RenderOptions;
+import com.document.conversion.model.StoredFile;
+import com.document.conversion.model.StreamingConversionRequest;
+import com.document.conversion.repository.DocumentRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.transaction.CannotCreateTransactionException;
+import org.springframework.util.unit.DataSize;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class DocumentServiceTest {
+
+    private static final StoredFile UPLOAD = new StoredFile("original-upload.pdf", "hash", 1024);
+
+    private FileStorageService fileStorageService;
+    private DocumentSubmissionService documentSubmissionService;
+    private PreviewService previewService;
+    private DocumentService documentService;
+
+    @BeforeEach
+    void setUp() {
+        fileStorageService = mock(FileStorageService.class);
+        documentSubmissionService = mock(DocumentSubmissionService.class);
+        previewService = mock(PreviewService.class);
+        documentService = new DocumentService(mock(DocumentRepository.class), fileStorageService,
+                documentSubmissionService,
+                new DocumentStatusCache(new ConcurrentMapCacheManager(CacheConfig.DOCUMENT_STATUS_CACHE)), previewService,
+                mock(RetentionService.class), mock(ConversionLeaseService.class), mock(ConversionWatchdog.class),
+                DataSize.ofMegabytes(10));
+        when(documentSubmissionService.submit(any())).thenAnswer(invocation -> {
+            Document document = invocation.getArgument(0);
+            document.setId(UUID.randomUUID());
+            return document;
+        });
+    }
+
+    @Test
+    void submitStoredConversion_shouldRenderPreviewBeforeTheSubmission() {
+        when(previewService.generatePreview(any())).thenReturn(Optional.of("preview.png"));
+
+        documentService.submitStoredConversion(request(true), UPLOAD);
+
+        InOrder order = inOrder(previewService, documentSubmissionService);
+        order.verify(previewService).generatePreview(any());
+        order.verify(documentSubmissionService).submit(any());
+        verify(fileStorageService, never()).deleteFile(any());
+    }
+
+    @Test
+    void submitStoredConversion_shouldNotRenderPreviewForReusedConversion() {
+        when(documentSubmissionService.hasReusableConversion(any())).thenReturn(true);
+        doAnswer(invocation -> {
+            Document document = invocation.getArgument(0);
+            document.setId(UUID.randomUUID());
+            document.setOriginalFilePath("original-existing.pdf");
+            document.setPreviewFilePath("preview-existing.png");
+            return document;
+        }).when(documentSubmissionService).submit(any());
+
+        assertThat(documentService.submitStoredConversion(request(true), UPLOAD).isPreviewAvailable()).isTrue();
+
+        verify(previewService, never()).generatePreview(any());
+        // The identical upload is dropped for the stored original it reuses
+        verify(fileStorageService).deleteFile(UPLOAD.getFileName());
+    }
+
+    @Test
+    void submitStoredConversion_shouldDeleteStoredFilesWhenTheSubmissionFails() {
+        when(previewService.generatePreview(any())).thenReturn(Optional.of("preview.png"));
+        doThrow(new CannotCreateTransactionException("database down")).when(documentSubmissionService).submit(any());
+
+        assertThatThrownBy(() -> documentService.submitStoredConversion(request(true), UPLOAD))
+                .isInstanceOf(CannotCreateTransactionException.class);
+
+        verify(fileStorageService).deleteFile(UPLOAD.getFileName());
+        verify(fileStorageService).deleteFile("preview.png");
+    }
+
+    @Test
+    void submitBatchConversion_shouldDeleteStoredUploadsWhenTheSubmissionFails() {
+        when(fileStorageService.storeFile(any(), any()))
+                .thenReturn(new StoredFile("original-first.pdf", "first", 1024))
+                .thenReturn(new StoredFile("original-second.pdf", "second", 1024));
+        when(documentSubmissionService.submitBatch(any())).thenThrow(new CannotCreateTransactionException("database down"));
+        BatchConversionRequest request = new BatchConversionRequest();
+        request.setFiles(List.of(pdf("first.pdf"), pdf("second.pdf")));
+        request.setTargetFormat("png");
+
+        assertThatThrownBy(() -> documentService.submitBatchConversion(request))
+                .isInstanceOf(CannotCreateTransactionException.class);
+
+        verify(fileStorageService).deleteFile("original-first.pdf");
+        verify(fileStorageService).deleteFile("original-second.pdf");
+    }
+
+    @Test
+    void submitStoredConversion_shouldKeyConversionsByTheOptionsThatAffectTheOutput() {
+        ArgumentCaptor<Document> submitted = ArgumentCaptor.forClass(Document.class);
+        StreamingConversionRequest rendered = request(false);
+        rendered.setDpi(150);
+        rendered.setImageType(" Gray ");
+        rendered.setPageRange(" 2 - 5 ");
+        StreamingConversionRequest extracted = request(false);
+        extracted.setTargetFormat("word");
+        extracted.setDpi(150);
+        extracted.setPageRange("4-");
+
+        documentService.submitStoredConversion(request(false), UPLOAD);
+        documentService.submitStoredConversion(rendered, UPLOAD);
+        documentService.submitStoredConversion(extracted, UPLOAD);
+
+        verify(documentSubmissionService, times(3)).submit(submitted.capture());
+        assertThat(submitted.getAllValues()).extracting(Document::getConversionKey)
+                .containsExactly("hash:png", "hash:png:pages=2-5;dpi=150;type=GRAY", "hash:word:pages=4-");
+        assertThat(submitted.getAllValues().get(1).getRenderOptions())
+                .isEqualTo(RenderOptions.builder().dpi(150).pageRange("2-5").imageType(RenderOptions.ImageType.GRAY)
+                        .build());
+    }
+
+    private static MockMultipartFile pdf(String fileName) {
+        return new MockMultipartFile("files", fileName, "application/pdf", "%PDF".getBytes());
+    }
+
+    private static StreamingConversionRequest request(boolean preview) {
+        StreamingConversionRequest request = new StreamingConversionRequest();
+        request.setFileName("test.pdf");
+        request.setTargetFormat("png");
+        request.setPreview(preview);
+        return request;
+    }
+}
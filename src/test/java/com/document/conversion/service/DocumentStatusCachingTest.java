@@ -0,0 +1,102 @@
+package com.document.conversion.service;
+
+import com.document.conversion.config.CacheConfig;
+import com.document.conversion.model.Document;
+import com.document.conversion.repository.DocumentRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Import({DocumentService.class, DocumentStatusCache.class, JpaServiceTestConfig.class,
+        DocumentStatusCachingTest.Config.class})
+class DocumentStatusCachingTest {
+
+    @Autowired
+    private DocumentService documentService;
+    @Autowired
+    private DocumentRepository documentRepository;
+    @Autowired
+    private CacheManager cacheManager;
+    @MockBean
+    private FileStorageService fileStorageService;
+    @MockBean
+    private DocumentSubmissionService documentSubmissionService;
+    @MockBean
+    private PreviewService previewService;
+    @MockBean
+    private RetentionService retentionService;
+    @MockBean
+    private ConversionLeaseService conversionLeaseService;
+    @MockBean
+    private ConversionWatchdog conversionWatchdog;
+
+    @AfterEach
+    void tearDown() {
+        documentRepository.deleteAll();
+        cacheManager.getCache(CacheConfig.DOCUMENT_STATUS_CACHE).clear();
+    }
+
+    @Test
+    void getStatus_shouldNotCacheStatusesThatAreStillChanging() {
+        Document document = documentRepository.save(document(Document.ConversionStatus.IN_PROGRESS));
+
+        assertThat(documentService.getStatus(document.getId()).getStatus()).isEqualTo("IN_PROGRESS");
+        complete(document);
+
+        assertThat(cachedStatus(document)).isNull();
+        assertThat(documentService.getStatus(document.getId()).getStatus()).isEqualTo("COMPLETED");
+    }
+
+    @Test
+    void getStatus_shouldCacheFinishedStatuses() {
+        Document document = documentRepository.save(document(Document.ConversionStatus.COMPLETED));
+
+        documentService.getStatus(document.getId());
+
+        assertThat(cachedStatus(document)).isNotNull();
+    }
+
+    private void complete(Document document) {
+        documentRepository.updateResult(document.getId(), Document.ConversionStatus.IN_PROGRESS,
+                Document.ConversionStatus.COMPLETED, "worker", "converted.png", 2048L, null, LocalDateTime.now());
+    }
+
+    private Object cachedStatus(Document document) {
+        return cacheManager.getCache(CacheConfig.DOCUMENT_STATUS_CACHE).get(document.getId());
+    }
+
+    private static Document document(Document.ConversionStatus status) {
+        String id = UUID.randomUUID().toString();
+        return Document.builder()
+                .originalFileName("test.pdf")
+                .originalFormat("pdf")
+                .targetFormat("png")
+                .status(status)
+                .leaseOwner(status == Document.ConversionStatus.IN_PROGRESS ? "worker" : null)
+                .originalFilePath("original-" + id + "-test.pdf")
+                .convertedFilePath(status == Document.ConversionStatus.COMPLETED ? "converted-" + id + ".png" : null)
+                .contentHash("key")
+                .conversionKey("key")
+                .build();
+    }
+
+    @TestConfiguration
+    @EnableCaching
+    static class Config {
+    }
+}
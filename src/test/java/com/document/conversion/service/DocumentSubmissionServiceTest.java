@@ -0,0 +1,140 @@
+package com.document.conversion.service;
+
+import com.document.conversion.model.Document;
+import com.document.conversion.repository.DocumentRepository;
+import com.document.conversion.repository.OutboxMessageRepository;
+import com.document.conversion.service.converter.DocumentConvertFactory;
+import com.document.conversion.service.converter.DocumentConverter;
+import com.document.conversion.service.outbox.OutboxService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+@DataJpaTest
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Import({DocumentSubmissionService.class, OutboxService.class, ConversionLeaseService.class,
+        DocumentConversionService.class, DocumentStatusCache.class, JpaServiceTestConfig.class})
+class DocumentSubmissionServiceTest {
+
+    @Autowired
+    private DocumentSubmissionService documentSubmissionService;
+    @Autowired
+    private DocumentConversionService documentConversionService;
+    @Autowired
+    private DocumentRepository documentRepository;
+    @Autowired
+    private OutboxMessageRepository outboxMessageRepository;
+    @MockBean
+    private DocumentConvertFactory documentConvertFactory;
+    @MockBean
+    private ConversionWatchdog conversionWatchdog;
+    @MockBean
+    private FileStorageService fileStorageService;
+
+    @AfterEach
+    void tearDown() {
+        outboxMessageRepository.deleteAll();
+        documentRepository.deleteAll();
+    }
+
+    @Test
+    void submit_shouldReuseCompletedConversion() {
+        Document existing = documentRepository.save(document("key", Document.ConversionStatus.COMPLETED));
+
+        Document duplicate = documentSubmissionService.submit(document("key", Document.ConversionStatus.PENDING));
+
+        assertThat(duplicate.getDuplicateOf()).isEqualTo(existing.getId());
+        assertThat(duplicate.getStatus()).isEqualTo(Document.ConversionStatus.COMPLETED);
+        assertThat(duplicate.getOriginalFilePath()).isEqualTo(existing.getOriginalFilePath());
+        assertThat(duplicate.getConvertedFilePath()).isEqualTo(existing.getConvertedFilePath());
+        assertThat(outboxMessageRepository.count()).isZero();
+    }
+
+    @Test
+    void submit_shouldQueueUploadWithoutReusableConversion() {
+        documentRepository.save(document("key", Document.ConversionStatus.FAILED));
+        documentRepository.save(document("other", Document.ConversionStatus.COMPLETED));
+
+        Document document = documentSubmissionService.submit(document("key", Document.ConversionStatus.PENDING));
+
+        assertThat(document.getDuplicateOf()).isNull();
+        assertThat(outboxMessageRepository.findAll())
+                .singleElement()
+                .satisfies(message -> assertThat(message.getDocumentId()).isEqualTo(document.getId()));
+    }
+
+    @Test
+    void submitBatch_shouldQueueIdenticalUploadsOnce() {
+        Document first = document("key", Document.ConversionStatus.PENDING);
+        Document second = document("key", Document.ConversionStatus.PENDING);
+
+        documentSubmissionService.submitBatch(List.of(first, second));
+
+        assertThat(second.getDuplicateOf()).isEqualTo(first.getId());
+        assertThat(outboxMessageRepository.findAll())
+                .singleElement()
+                .satisfies(message -> assertThat(message.getDocumentId()).isEqualTo(first.getId()));
+    }
+
+    @Test
+    void submit_shouldNotWaitForRunningConversionOfTheSameUpload() throws Exception {
+        Document running = documentSubmissionService.submit(document("key", Document.ConversionStatus.PENDING));
+        CountDownLatch converting = new CountDownLatch(1);
+        CountDownLatch finish = new CountDownLatch(1);
+        DocumentConverter converter = mock(DocumentConverter.class);
+        when(documentConvertFactory.getConverter(any(), any())).thenReturn(converter);
+        when(converter.convert(any(), any())).thenAnswer(invocation -> {
+            converting.countDown();
+            finish.await();
+            return "converted-" + running.getId() + ".png";
+        });
+        CompletableFuture<Void> conversion =
+                CompletableFuture.runAsync(() -> documentConversionService.startConversion(running.getId()));
+        assertThat(converting.await(10, TimeUnit.SECONDS)).isTrue();
+
+        // The claim is committed before the conversion starts, so nothing holds the row lock
+        Document duplicate = assertTimeoutPreemptively(Duration.ofSeconds(5),
+                () -> documentSubmissionService.submit(document("key", Document.ConversionStatus.PENDING)));
+        finish.countDown();
+        conversion.get(10, TimeUnit.SECONDS);
+
+        assertThat(duplicate.getDuplicateOf()).isEqualTo(running.getId());
+        assertThat(duplicate.getStatus()).isEqualTo(Document.ConversionStatus.IN_PROGRESS);
+        assertThat(documentRepository.findById(duplicate.getId()).orElseThrow().getStatus())
+                .isEqualTo(Document.ConversionStatus.COMPLETED);
+    }
+
+    private static Document document(String conversionKey, Document.ConversionStatus status) {
+        String id = UUID.randomUUID().toString();
+        return Document.builder()
+                .originalFileName("test.pdf")
+                .originalFormat("pdf")
+                .targetFormat("png")
+                .status(status)
+                .originalFilePath("original-" + id + "-test.pdf")
+                .originalFileSize(1024L)
+                .convertedFilePath(status == Document.ConversionStatus.COMPLETED ? "converted-" + id + ".png" : null)
+                .convertedFileSize(status == Document.ConversionStatus.COMPLETED ? 2048L : null)
+                .contentHash(conversionKey)
+                .conversionKey(conversionKey)
+                .build();
+    }
+}
@@ -0,0 +1,113 @@
+package com.document.conversion.service;
+
+import com.document.conversion.exception.InvalidUploadException;
+import com.document.conversion.model.StoredFile;
+import com.document.conversion.service.storage.ShardedFileSystemStorageBackend;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class FileStorageServiceTest {
+
+    private static final byte[] HEADER = "%PDF".getBytes(StandardCharsets.US_ASCII);
+
+    @TempDir
+    Path storage;
+
+    private FileStorageService fileStorageService;
+
+    @BeforeEach
+    void setUp() {
+        fileStorageService = new FileStorageService(new ShardedFileSystemStorageBackend(storage.toString(), 2));
+    }
+
+    @Test
+    void storeStream_shouldWriteAndHashInOnePass() throws IOException, NoSuchAlgorithmException {
+        byte[] content = content(300_000);
+
+        StoredFile storedFile = fileStorageService.storeStream(new ByteArrayInputStream(content), "test.pdf",
+                "original", content.length, HEADER);
+
+        assertThat(storedFile.getSize()).isEqualTo(content.length);
+        assertThat(storedFile.getContentHash())
+                .isEqualTo(HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(content)));
+        try (InputStream in = fileStorageService.loadFileAsResource(storedFile.getFileName()).getInputStream()) {
+            assertThat(in.readAllBytes()).isEqualTo(content);
+        }
+    }
+
+    @Test
+    void storeStream_shouldRejectWrongHeaderWithoutReadingTheBody() throws IOException {
+        CountingInputStream in = new CountingInputStream(new ByteArrayInputStream(new byte[100_000]));
+
+        assertThatThrownBy(() -> fileStorageService.storeStream(in, "test.pdf", "original", Long.MAX_VALUE, HEADER))
+                .isInstanceOf(InvalidUploadException.class);
+        assertThat(in.read).isEqualTo(HEADER.length);
+        assertThat(storedFiles()).isZero();
+    }
+
+    @Test
+    void storeStream_shouldStopAtTheSizeLimitAndDeleteThePartialFile() throws IOException {
+        CountingInputStream in = new CountingInputStream(new ByteArrayInputStream(content(1_000_000)));
+
+        assertThatThrownBy(() -> fileStorageService.storeStream(in, "test.pdf", "original", 100_000, HEADER))
+                .isInstanceOf(InvalidUploadException.class);
+        assertThat(in.read).isLessThan(200_000);
+        assertThat(storedFiles()).isZero();
+    }
+
+    private long storedFiles() throws IOException {
+        // Includes the temp directory, where a discarded upload would be left behind
+        try (var files = Files.walk(storage)) {
+            return files.filter(Files::isRegularFile).count();
+        }
+    }
+
+    private static byte[] content(int size) {
+        byte[] content = new byte[size];
+        new Random(42).nextBytes(content);
+        System.arraycopy(HEADER, 0, content, 0, HEADER.length);
+        return content;
+    }
+
+    private static class CountingInputStream extends InputStream {
+        private final InputStream delegate;
+        private long read;
+
+        CountingInputStream(InputStream delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = delegate.read();
+            if (b != -1) {
+                read++;
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int n = delegate.read(b, off, len);
+            if (n > 0) {
+                read += n;
+            }
+            return n;
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package com.document.conversion.service;
+
+import com.document.conversion.config.CacheConfig;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.context.annotation.Bean;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+
+/**
+ * Infrastructure beans for service tests that run against the real repositories in a
+ * {@code @DataJpaTest} slice.
+ */
+@TestConfiguration
+class JpaServiceTestConfig {
+
+    @Bean
+    CacheManager cacheManager() {
+        return new ConcurrentMapCacheManager(CacheConfig.DOCUMENT_STATUS_CACHE);
+    }
+
+    @Bean
+    MetricsService metricsService() {
+        return new MetricsService(new SimpleMeterRegistry());
+    }
+
+    @Bean
+    ThreadPoolTaskScheduler taskScheduler() {
+        return new ThreadPoolTaskScheduler();
+    }
+}
@@ -0,0 +1,67 @@
+package com.document.conversion.service;
+
+import com.document.conversion.service.queue.InFlightDeliveryCounter;
+import com.document.conversion.service.queue.RabbitConversionQueue;
+import org.junit.jupiter.api.Test;
+import org.springframework.amqp.rabbit.listener.RabbitListenerEndpointRegistry;
+import org.springframework.amqp.rabbit.listener.SimpleMessageListenerContainer;
+import org.springframework.boot.autoconfigure.amqp.RabbitProperties;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class ListenerConcurrencyControllerTest {
+
+    private final RabbitListenerEndpointRegistry listenerRegistry = mock(RabbitListenerEndpointRegistry.class);
+    private final ListenerConcurrencyController controller = controller(2, 8);
+
+    @Test
+    void targetConsumers_shouldAddAConsumerWhileAllAreBusyAndResourcesAreSpare() {
+        assertThat(controller.targetConsumers(2, 0.30, 0.50, 2)).isEqualTo(3);
+        // The JVM cannot tell the CPU load
+        assertThat(controller.targetConsumers(2, -1.0, 0.50, 2)).isEqualTo(3);
+        assertThat(controller.targetConsumers(8, 0.30, 0.50, 8)).isEqualTo(8);
+    }
+
+    @Test
+    void targetConsumers_shouldHoldWhileConsumersAreIdleOrCpuIsBetweenTheWatermarks() {
+        assertThat(controller.targetConsumers(4, 0.30, 0.50, 3)).isEqualTo(4);
+        assertThat(controller.targetConsumers(4, 0.70, 0.50, 4)).isEqualTo(4);
+    }
+
+    @Test
+    void targetConsumers_shouldRemoveAConsumerUnderCpuOrHeapPressure() {
+        assertThat(controller.targetConsumers(4, 0.90, 0.50, 4)).isEqualTo(3);
+        assertThat(controller.targetConsumers(4, 0.30, 0.10, 4)).isEqualTo(3);
+        assertThat(controller.targetConsumers(2, 0.90, 0.10, 2)).isEqualTo(2);
+    }
+
+    @Test
+    void targetConsumers_shouldNotScaleWithoutMaxConcurrency() {
+        ListenerConcurrencyController fixed = controller(2, null);
+
+        assertThat(fixed.targetConsumers(2, 0.30, 0.50, 2)).isEqualTo(2);
+    }
+
+    @Test
+    void adjustConcurrency_shouldLeaveAStoppedContainerAlone() {
+        SimpleMessageListenerContainer container = mock(SimpleMessageListenerContainer.class);
+        when(listenerRegistry.getListenerContainer(RabbitConversionQueue.CONVERSION_LISTENER_ID)).thenReturn(container);
+
+        controller.adjustConcurrency();
+
+        verify(container, never()).setConcurrentConsumers(anyInt());
+    }
+
+    private ListenerConcurrencyController controller(int concurrency, Integer maxConcurrency) {
+        RabbitProperties rabbitProperties = new RabbitProperties();
+        rabbitProperties.getListener().getSimple().setConcurrency(concurrency);
+        rabbitProperties.getListener().getSimple().setMaxConcurrency(maxConcurrency);
+        return new ListenerConcurrencyController(listenerRegistry, new InFlightDeliveryCounter(), rabbitProperties,
+                0.85, 0.60, 0.20);
+    }
+}
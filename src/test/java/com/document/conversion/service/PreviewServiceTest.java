@@ -0,0 +1,126 @@
+package com.document.conversion.service;
+
+import com.document.conversion.model.Document;
+import com.document.conversion.service.converter.PdfDocumentLoader;
+import com.document.conversion.service.converter.PngEncoder;
+import com.document.conversion.service.storage.ShardedFileSystemStorageBackend;
+import com.document.conversion.service.storage.StorageBackend;
+import com.document.conversion.service.storage.StorageWrite;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.common.PDRectangle;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PreviewServiceTest {
+
+    private static final long MAX_PIXELS = 100_000;
+
+    @TempDir
+    Path storage;
+
+    private ThreadPoolExecutor encodeExecutor;
+    private ThreadPoolExecutor previewExecutor;
+    private StorageBackend storageBackend;
+
+    @BeforeEach
+    void setUp() {
+        encodeExecutor = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>());
+        previewExecutor = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS, new SynchronousQueue<>());
+        storageBackend = new ShardedFileSystemStorageBackend(storage.toString(), 2);
+    }
+
+    @AfterEach
+    void tearDown() {
+        encodeExecutor.shutdownNow();
+        previewExecutor.shutdownNow();
+    }
+
+    @Test
+    void generatePreview_shouldRenderFirstPageWithinPixelBudget() throws IOException {
+        Document document = storedPdf(PDRectangle.A2);
+
+        Optional<String> preview = previewService(10_000).generatePreview(document);
+
+        assertThat(preview).isPresent();
+        BufferedImage image;
+        try (InputStream in = storageBackend.openInputStream(preview.get())) {
+            image = ImageIO.read(in);
+        }
+        assertThat((long) image.getWidth() * image.getHeight()).isLessThanOrEqualTo(MAX_PIXELS);
+    }
+
+    @Test
+    void generatePreview_shouldSkipUploadsAboveSourceLimit() throws IOException {
+        Document document = storedPdf(PDRectangle.LETTER);
+        document.setOriginalFileSize(Long.MAX_VALUE);
+
+        assertThat(previewService(10_000).generatePreview(document)).isEmpty();
+    }
+
+    @Test
+    void generatePreview_shouldSkipWhenPreviewPoolIsBusy() throws Exception {
+        Document document = storedPdf(PDRectangle.LETTER);
+        CountDownLatch release = new CountDownLatch(1);
+        previewExecutor.submit(() -> {
+            release.await();
+            return null;
+        });
+        try {
+            assertThat(previewService(10_000).generatePreview(document)).isEmpty();
+        } finally {
+            release.countDown();
+        }
+    }
+
+    @Test
+    void generatePreview_shouldGiveUpAfterTimeout() throws IOException {
+        Document document = storedPdf(PDRectangle.LETTER);
+
+        assertThat(previewService(0).generatePreview(document)).isEmpty();
+        try (var files = Files.walk(storage)) {
+            assertThat(files.map(path -> path.getFileName().toString()))
+                    .noneMatch(name -> name.startsWith("preview-"));
+        }
+    }
+
+    private PreviewService previewService(long timeoutMs) {
+        PdfDocumentLoader loader = new PdfDocumentLoader(PdfDocumentLoader.Strategy.MEMORY, 0, 0, 1 << 20, "");
+        PngEncoder encoder = new PngEncoder(6, PngEncoder.Filter.NONE, 1 << 16, encodeExecutor);
+        return new PreviewService(storageBackend, loader, encoder, previewExecutor,
+                72, MAX_PIXELS, 1 << 20, timeoutMs);
+    }
+
+    private Document storedPdf(PDRectangle pageSize) throws IOException {
+        try (PDDocument pdf = new PDDocument();
+             StorageWrite write = storageBackend.create("original.pdf")) {
+            pdf.addPage(new PDPage(pageSize));
+            pdf.addPage(new PDPage(PDRectangle.LETTER));
+            pdf.save(write.outputStream());
+            write.commit();
+        }
+        return Document.builder()
+                .originalFileName("original.pdf")
+                .originalFormat("pdf")
+                .originalFilePath("original.pdf")
+                .originalFileSize(storageBackend.size("original.pdf"))
+                .build();
+    }
+}
@@ -0,0 +1,145 @@
+package com.document.conversion.service;
+
+import com.document.conversion.model.Document;
+import com.document.conversion.repository.DocumentRepository;
+import com.document.conversion.repository.OutboxMessageRepository;
+import com.document.conversion.service.outbox.OutboxService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.Limit;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Import({RetentionService.class, DocumentSubmissionService.class, OutboxService.class, ConversionLeaseService.class,
+        DocumentStatusCache.class, JpaServiceTestConfig.class})
+class RetentionServiceTest {
+
+    private static final LocalDateTime LONG_AGO = LocalDateTime.now().minusDays(30);
+
+    @Autowired
+    private RetentionService retentionService;
+    @Autowired
+    private DocumentSubmissionService documentSubmissionService;
+    @Autowired
+    private DocumentRepository documentRepository;
+    @Autowired
+    private OutboxMessageRepository outboxMessageRepository;
+
+    @AfterEach
+    void tearDown() {
+        outboxMessageRepository.deleteAll();
+        documentRepository.deleteAll();
+    }
+
+    @Test
+    void submit_shouldNotReuseConversionWhoseOriginalWasReleased() {
+        Document primary = documentRepository.save(completed("key"));
+        assertThat(retentionService.releaseOriginalFile(primary, LocalDateTime.now())).contains("original-key.pdf");
+
+        Document document = documentSubmissionService.submit(upload("key"));
+
+        assertThat(document.getDuplicateOf()).isNull();
+        assertThat(document.getOriginalFilePath()).isEqualTo("upload-key.pdf");
+        assertThat(outboxMessageRepository.findAll())
+                .singleElement()
+                .satisfies(message -> assertThat(message.getDocumentId()).isEqualTo(document.getId()));
+    }
+
+    @Test
+    void releaseOriginalFile_shouldKeepOriginalReusedAfterTheCutoff() {
+        documentRepository.save(completed("key"));
+        LocalDateTime usedBefore = LocalDateTime.now();
+        Document stale = documentRepository.findWithOriginalUnusedSince(List.of(Document.ConversionStatus.PENDING,
+                Document.ConversionStatus.IN_PROGRESS), usedBefore, Limit.of(10)).get(0);
+
+        Document duplicate = documentSubmissionService.submit(upload("key"));
+
+        assertThat(duplicate.getDuplicateOf()).isEqualTo(stale.getId());
+        assertThat(retentionService.releaseOriginalFile(stale, usedBefore)).isEmpty();
+        assertThat(documentRepository.findById(stale.getId()).orElseThrow().getOriginalFilePath())
+                .isEqualTo("original-key.pdf");
+    }
+
+    @Test
+    void evictConvertedFile_shouldKeepConversionReusedAfterTheCutoff() {
+        Document stale = documentRepository.save(completed("key"));
+        LocalDateTime accessedBefore = LocalDateTime.now();
+
+        documentSubmissionService.submit(upload("key"));
+
+        assertThat(retentionService.evictConvertedFile(stale, accessedBefore)).isFalse();
+        assertThat(documentRepository.findById(stale.getId()).orElseThrow().getStatus())
+                .isEqualTo(Document.ConversionStatus.COMPLETED);
+    }
+
+    @Test
+    void releaseOriginalFile_shouldExpireDuplicatesWithTheirEvictedConversion() {
+        Document primary = documentRepository.save(completed("key"));
+        Document duplicate = documentSubmissionService.submit(upload("key"));
+        Document evicted = documentRepository.findById(primary.getId()).orElseThrow();
+        assertThat(retentionService.evictConvertedFile(evicted, LocalDateTime.now().plusSeconds(1))).isTrue();
+
+        List<String> files = retentionService.releaseOriginalFile(evicted, LocalDateTime.now().plusSeconds(1));
+
+        assertThat(files).containsExactly("original-key.pdf");
+        Document expired = documentRepository.findById(duplicate.getId()).orElseThrow();
+        assertThat(expired.getStatus()).isEqualTo(Document.ConversionStatus.EXPIRED);
+        assertThat(expired.getOriginalFilePath()).isNull();
+        assertThat(retentionService.requestReconversion(duplicate.getId())).isFalse();
+        assertThat(outboxMessageRepository.count()).isZero();
+    }
+
+    @Test
+    void releaseOriginalFile_shouldLeaveNoReferenceToTheReleasedOriginal() {
+        Document primary = documentRepository.save(completed("key"));
+        documentSubmissionService.submit(upload("key"));
+
+        retentionService.releaseOriginalFile(documentRepository.findById(primary.getId()).orElseThrow(),
+                LocalDateTime.now().plusSeconds(1));
+
+        assertThat(documentRepository.findReferencedFilePaths(List.of("original-key.pdf", "upload-key.pdf",
+                primary.getConvertedFilePath()))).containsExactly(primary.getConvertedFilePath());
+    }
+
+    private static Document completed(String conversionKey) {
+        return Document.builder()
+                .originalFileName("test.pdf")
+                .originalFormat("pdf")
+                .targetFormat("png")
+                .status(Document.ConversionStatus.COMPLETED)
+                .originalFilePath("original-" + conversionKey + ".pdf")
+                .originalFileSize(1024L)
+                .originalUsedAt(LONG_AGO)
+                .convertedFilePath("converted-" + UUID.randomUUID() + ".png")
+                .convertedFileSize(2048L)
+                .lastAccessedAt(LONG_AGO)
+                .contentHash(conversionKey)
+                .conversionKey(conversionKey)
+                .build();
+    }
+
+    private static Document upload(String conversionKey) {
+        return Document.builder()
+                .originalFileName("test.pdf")
+                .originalFormat("pdf")
+                .targetFormat("png")
+                .status(Document.ConversionStatus.PENDING)
+                .originalFilePath("upload-" + conversionKey + ".pdf")
+                .originalFileSize(1024L)
+                .originalUsedAt(LocalDateTime.now())
+                .contentHash(conversionKey)
+                .conversionKey(conversionKey)
+                .build();
+    }
+}
@@ -0,0 +1,103 @@
+package com.document.conversion.service;
+
+import com.document.conversion.model.Document;
+import com.document.conversion.repository.DocumentRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class RetentionSweeperTest {
+
+    private DocumentRepository documentRepository;
+    private RetentionService retentionService;
+    private FileStorageService fileStorageService;
+    private SimpleMeterRegistry registry;
+
+    @BeforeEach
+    void setUp() {
+        documentRepository = mock(DocumentRepository.class);
+        retentionService = mock(RetentionService.class);
+        fileStorageService = mock(FileStorageService.class);
+        registry = new SimpleMeterRegistry();
+        when(retentionService.evictConvertedFile(any(), any())).thenReturn(true);
+    }
+
+    @Test
+    void sweep_shouldEvictLeastRecentlyAccessedUntilUnderQuota() {
+        Document oldest = converted(600);
+        Document older = converted(300);
+        Document recent = converted(300);
+        when(documentRepository.sumOriginalFileSize()).thenReturn(200L);
+        when(documentRepository.sumConvertedFileSize(Document.ConversionStatus.COMPLETED)).thenReturn(1200L);
+        when(documentRepository.findLeastRecentlyAccessed(eq(Document.ConversionStatus.COMPLETED), any(), any()))
+                .thenReturn(List.of(oldest, older, recent));
+
+        sweeper(DataSize.ofBytes(1000), Duration.ZERO).sweep();
+
+        verify(fileStorageService).deleteFile(oldest.getConvertedFilePath());
+        verify(fileStorageService, never()).deleteFile(older.getConvertedFilePath());
+        verify(fileStorageService, never()).deleteFile(recent.getConvertedFilePath());
+        assertThat(registry.get("document_storage_used_bytes").gauge().value()).isEqualTo(800);
+        assertThat(registry.get("document_retention_reclaimed_bytes_total").tag("reason", "quota").counter().count())
+                .isEqualTo(600);
+    }
+
+    @Test
+    void sweep_shouldKeepFileWhenTheEvictionLostTheRace() {
+        Document document = converted(500);
+        when(documentRepository.findLeastRecentlyAccessed(eq(Document.ConversionStatus.COMPLETED), any(), any()))
+                .thenReturn(List.of(document));
+        // Downloaded or converted again since it was selected
+        when(retentionService.evictConvertedFile(eq(document), any())).thenReturn(false);
+
+        sweeper(DataSize.ofBytes(0), Duration.ofDays(1)).sweep();
+
+        verify(fileStorageService, never()).deleteFile(any());
+    }
+
+    @Test
+    void sweepOrphans_shouldDeleteOnlyFilesNoDocumentReferences() {
+        when(fileStorageService.listFilesModifiedBefore(any()))
+                .thenReturn(Stream.of("original-kept.pdf", "converted-orphan.png", "preview-kept.png"));
+        when(documentRepository.findReferencedFilePaths(any()))
+                .thenReturn(List.of("original-kept.pdf", "preview-kept.png"));
+        when(fileStorageService.fileSize("converted-orphan.png")).thenReturn(700L);
+
+        sweeper(DataSize.ofBytes(0), Duration.ZERO).sweepOrphans();
+
+        verify(fileStorageService).deleteAbandonedWrites(any());
+        verify(fileStorageService).deleteFile("converted-orphan.png");
+        verify(fileStorageService, never()).deleteFile("original-kept.pdf");
+        verify(fileStorageService, never()).deleteFile("preview-kept.png");
+        assertThat(registry.get("document_retention_reclaimed_bytes_total").tag("kind", "orphan").counter().count())
+                .isEqualTo(700);
+    }
+
+    private RetentionSweeper sweeper(DataSize quota, Duration convertedTtl) {
+        return new RetentionSweeper(documentRepository, retentionService, fileStorageService,
+                new MetricsService(registry), true, Duration.ZERO, convertedTtl, quota, 10, Duration.ofHours(1));
+    }
+
+    private static Document converted(long size) {
+        Document document = new Document();
+        document.setId(UUID.randomUUID());
+        document.setStatus(Document.ConversionStatus.COMPLETED);
+        document.setConvertedFilePath("converted-" + document.getId() + ".png");
+        document.setConvertedFileSize(size);
+        return document;
+    }
+}
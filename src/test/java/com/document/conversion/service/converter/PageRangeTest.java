@@ -0,0 +1,36 @@
+package com.document.conversion.service.converter;
+
+import com.document.conversion.exception.ConversionException;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class PageRangeTest {
+
+    @Test
+    void parse_shouldAcceptSinglePagesClosedAndOpenRanges() {
+        assertThat(PageRange.parse("3")).hasToString("3");
+        assertThat(PageRange.parse(" 2 - 5 ")).hasToString("2-5");
+        assertThat(PageRange.parse("4-")).hasToString("4-");
+        assertThat(PageRange.parse("4-4")).hasToString("4");
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"", "0", "5-2", "-3", "a-b", "1-2-3"})
+    void parse_shouldRejectMalformedRanges(String range) {
+        assertThatThrownBy(() -> PageRange.parse(range)).isInstanceOf(ConversionException.class);
+    }
+
+    @Test
+    void indices_shouldBeClampedToTheDocument() {
+        PageRange range = PageRange.parse("2-10");
+
+        assertThat(range.startIndex(4)).isEqualTo(1);
+        assertThat(range.endIndex(4)).isEqualTo(3);
+        assertThat(PageRange.all().endIndex(4)).isEqualTo(3);
+        assertThatThrownBy(() -> PageRange.parse("5-").startIndex(4)).isInstanceOf(ConversionException.class);
+    }
+}
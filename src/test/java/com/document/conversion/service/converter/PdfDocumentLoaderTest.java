@@ -0,0 +1,97 @@
+package com.document.conversion.service.converter;
+
+import com.document.conversion.service.storage.InMemoryStorageBackend;
+import com.document.conversion.service.storage.StorageWrite;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.PDPageContentStream;
+import org.apache.pdfbox.pdmodel.font.PDType1Font;
+import org.apache.pdfbox.text.PDFTextStripper;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PdfDocumentLoaderTest {
+
+    private static final long KB = 1024;
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void selectStrategy_shouldPickTheStrategyFromTheFileSize() {
+        PdfDocumentLoader loader = loader(PdfDocumentLoader.Strategy.AUTO);
+
+        assertThat(loader.selectStrategy(KB)).isEqualTo(PdfDocumentLoader.Strategy.MEMORY);
+        assertThat(loader.selectStrategy(KB + 1)).isEqualTo(PdfDocumentLoader.Strategy.MAPPED);
+        assertThat(loader.selectStrategy(10 * KB)).isEqualTo(PdfDocumentLoader.Strategy.MAPPED);
+        assertThat(loader.selectStrategy(10 * KB + 1)).isEqualTo(PdfDocumentLoader.Strategy.RANDOM_ACCESS);
+    }
+
+    @Test
+    void selectStrategy_shouldKeepAConfiguredStrategyUnlessTheFileCannotBeMapped() {
+        assertThat(loader(PdfDocumentLoader.Strategy.MEMORY).selectStrategy(100 * KB))
+                .isEqualTo(PdfDocumentLoader.Strategy.MEMORY);
+        assertThat(loader(PdfDocumentLoader.Strategy.MAPPED).selectStrategy(KB))
+                .isEqualTo(PdfDocumentLoader.Strategy.MAPPED);
+        assertThat(loader(PdfDocumentLoader.Strategy.MAPPED).selectStrategy(Integer.MAX_VALUE + 1L))
+                .isEqualTo(PdfDocumentLoader.Strategy.RANDOM_ACCESS);
+    }
+
+    @ParameterizedTest
+    @EnumSource(PdfDocumentLoader.Strategy.class)
+    void load_shouldReadTheSameDocumentWithEveryStrategy(PdfDocumentLoader.Strategy strategy) throws IOException {
+        Path file = directory.resolve("test.pdf");
+        Files.write(file, samplePdf(3));
+
+        try (PDDocument document = loader(strategy).load(file)) {
+            assertThat(document.getNumberOfPages()).isEqualTo(3);
+            assertThat(new PDFTextStripper().getText(document)).contains("Page 1", "Page 2", "Page 3");
+        }
+    }
+
+    @Test
+    void load_shouldReadObjectsWithoutALocalFileIntoMemory() throws IOException {
+        InMemoryStorageBackend storageBackend = new InMemoryStorageBackend();
+        try (StorageWrite write = storageBackend.create("test.pdf")) {
+            write.channel().write(ByteBuffer.wrap(samplePdf(2)));
+            write.commit();
+        }
+
+        try (PDDocument document = loader(PdfDocumentLoader.Strategy.MAPPED).load(storageBackend, "test.pdf")) {
+            assertThat(document.getNumberOfPages()).isEqualTo(2);
+        }
+    }
+
+    private PdfDocumentLoader loader(PdfDocumentLoader.Strategy strategy) {
+        return new PdfDocumentLoader(strategy, KB, 10 * KB, 4 * KB, directory.toString());
+    }
+
+    private static byte[] samplePdf(int pages) throws IOException {
+        try (PDDocument pdf = new PDDocument()) {
+            for (int i = 1; i <= pages; i++) {
+                PDPage page = new PDPage();
+                pdf.addPage(page);
+                try (PDPageContentStream content = new PDPageContentStream(pdf, page)) {
+                    content.beginText();
+                    content.setFont(PDType1Font.HELVETICA, 12);
+                    content.newLineAtOffset(72, 720);
+                    content.showText("Page " + i);
+                    content.endText();
+                }
+            }
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            pdf.save(out);
+            return out.toByteArray();
+        }
+    }
+}
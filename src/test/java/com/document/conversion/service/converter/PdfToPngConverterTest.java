@@ -0,0 +1,188 @@
+package com.document.conversion.service.converter;
+
+import com.document.conversion.exception.ConversionException;
+import com.document.conversion.model.Document;
+import com.document.conversion.model.RenderOptions;
+import com.document.conversion.service.ConversionContext;
+import com.document.conversion.service.storage.InMemoryStorageBackend;
+import com.document.conversion.service.storage.StorageWrite;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.PDPageContentStream;
+import org.apache.pdfbox.pdmodel.common.PDRectangle;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import javax.imageio.ImageIO;
+import java.awt.Color;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class PdfToPngConverterTest {
+
+    // A 144 x 72 point page, 2 x 1 inches, with a red box in the middle
+    private static final PDRectangle PAGE_SIZE = new PDRectangle(144, 72);
+
+    private static ThreadPoolExecutor executor;
+
+    private final InMemoryStorageBackend storageBackend = new InMemoryStorageBackend();
+    private final PdfToPngConverter converter = new PdfToPngConverter(storageBackend,
+            new PdfDocumentLoader(PdfDocumentLoader.Strategy.MEMORY, 1024, 10 * 1024, 4096, ""), executor,
+            new PngEncoder(6, PngEncoder.Filter.ADAPTIVE, 4096, executor), 100, RenderOptions.ImageType.RGB, 1_000_000);
+
+    @BeforeAll
+    static void setUp() {
+        executor = new ThreadPoolExecutor(2, 2, 0L, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>());
+    }
+
+    @AfterAll
+    static void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void convert_shouldRenderWithTheConverterDefaultsWithoutOptions() throws IOException {
+        BufferedImage image = renderSinglePage(null);
+
+        assertThat(image.getWidth()).isEqualTo(200);
+        assertThat(image.getHeight()).isEqualTo(100);
+        assertThat(new Color(image.getRGB(100, 50))).isEqualTo(Color.RED);
+    }
+
+    @Test
+    void convert_shouldRenderAtTheRequestedDpiAndImageType() throws IOException {
+        BufferedImage image = renderSinglePage(RenderOptions.builder()
+                .dpi(36)
+                .imageType(RenderOptions.ImageType.GRAY)
+                .build());
+
+        assertThat(image.getWidth()).isEqualTo(72);
+        assertThat(image.getHeight()).isEqualTo(36);
+        Color red = new Color(image.getRGB(36, 18));
+        assertThat(red.getRed()).isEqualTo(red.getGreen()).isEqualTo(red.getBlue()).isLessThan(255);
+    }
+
+    @Test
+    void convert_shouldLowerTheDpiOfPagesAboveThePixelCap() throws IOException {
+        // 300 DPI would be 600 x 300 pixels
+        BufferedImage image = renderSinglePage(RenderOptions.builder()
+                .dpi(300)
+                .maxPixels(20_000L)
+                .build());
+
+        assertThat((long) image.getWidth() * image.getHeight()).isLessThanOrEqualTo(20_000L);
+        assertThat(image.getWidth()).isBetween(198, 200);
+    }
+
+    @Test
+    void convert_shouldOnlyRenderThePageRange() throws IOException {
+        String converted = converter.convert(document(5, RenderOptions.builder().pageRange("2-3").build()),
+                ConversionContext.untracked());
+
+        assertThat(converted).endsWith(".zip");
+        List<String> entries = new ArrayList<>();
+        try (ZipInputStream zip = new ZipInputStream(storageBackend.openInputStream(converted))) {
+            for (ZipEntry entry = zip.getNextEntry(); entry != null; entry = zip.getNextEntry()) {
+                entries.add(entry.getName());
+            }
+        }
+        assertThat(entries).containsExactly("page-2.png", "page-3.png");
+        assertThat(storageBackend.keys()).containsExactlyInAnyOrder("test.pdf", converted);
+    }
+
+    @Test
+    void convert_shouldRejectARangeStartingAfterTheLastPage() throws IOException {
+        Document document = document(2, RenderOptions.builder().pageRange("3-").build());
+
+        assertThatThrownBy(() -> converter.convert(document, ConversionContext.untracked()))
+                .isInstanceOf(ConversionException.class);
+        assertThat(storageBackend.keys()).containsExactly("test.pdf");
+    }
+
+    @Test
+    void convert_shouldWaitForEveryPageBeforeGivingUpOnAFailedOne() throws IOException {
+        AtomicInteger started = new AtomicInteger();
+        AtomicInteger finished = new AtomicInteger();
+        PngEncoder failingEncoder = new PngEncoder(6, PngEncoder.Filter.ADAPTIVE, 4096, executor) {
+            @Override
+            public void write(BufferedImage image, OutputStream out) throws IOException {
+                try {
+                    if (started.incrementAndGet() == 1) {
+                        throw new IOException("encoding failed");
+                    }
+                    // Still encoding when the failure comes in, and deaf to interrupts like the encoder
+                    long busyUntil = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(50);
+                    while (System.nanoTime() < busyUntil) {
+                        Thread.onSpinWait();
+                    }
+                    super.write(image, out);
+                } finally {
+                    finished.incrementAndGet();
+                }
+            }
+        };
+        PdfToPngConverter failing = new PdfToPngConverter(storageBackend,
+                new PdfDocumentLoader(PdfDocumentLoader.Strategy.MEMORY, 1024, 10 * 1024, 4096, ""), executor,
+                failingEncoder, 100, RenderOptions.ImageType.RGB, 1_000_000);
+        Document document = document(6, null);
+
+        assertThatThrownBy(() -> failing.convert(document, ConversionContext.untracked()))
+                .isInstanceOf(IOException.class);
+
+        // Every page task that started has finished, and none is left queued behind the failed one
+        assertThat(finished).hasValue(started.get());
+        assertThat(executor.getQueue()).isEmpty();
+        assertThat(storageBackend.keys()).containsExactly("test.pdf");
+    }
+
+    private BufferedImage renderSinglePage(RenderOptions options) throws IOException {
+        String converted = converter.convert(document(1, options), ConversionContext.untracked());
+
+        assertThat(converted).endsWith(".png");
+        try (InputStream in = storageBackend.openInputStream(converted)) {
+            return ImageIO.read(in);
+        }
+    }
+
+    private Document document(int pages, RenderOptions options) throws IOException {
+        try (PDDocument pdf = new PDDocument();
+             StorageWrite write = storageBackend.create("test.pdf")) {
+            for (int i = 0; i < pages; i++) {
+                PDPage page = new PDPage(PAGE_SIZE);
+                pdf.addPage(page);
+                try (PDPageContentStream content = new PDPageContentStream(pdf, page)) {
+                    content.setNonStrokingColor(Color.RED);
+                    content.addRect(36, 18, 72, 36);
+                    content.fill();
+                }
+            }
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            pdf.save(out);
+            write.channel().write(ByteBuffer.wrap(out.toByteArray()));
+            write.commit();
+        }
+        return Document.builder()
+                .originalFileName("test.pdf")
+                .originalFormat("pdf")
+                .targetFormat("png")
+                .originalFilePath("test.pdf")
+                .renderOptions(options)
+                .build();
+    }
+}
@@ -0,0 +1,205 @@
+package com.document.conversion.service.converter;
+
+import com.document.conversion.exception.ConversionException;
+import com.document.conversion.exception.FileStorageException;
+import com.document.conversion.model.Document;
+import com.document.conversion.model.RenderOptions;
+import com.document.conversion.service.ConversionContext;
+import com.document.conversion.service.storage.InMemoryStorageBackend;
+import com.document.conversion.service.storage.StorageBackend;
+import com.document.conversion.service.storage.StorageWrite;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.PDPageContentStream;
+import org.apache.pdfbox.pdmodel.font.PDType1Font;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.w3c.dom.NodeList;
+
+import javax.xml.parsers.DocumentBuilderFactory;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class PdfToWordConverterTest {
+
+    private static final String WORD_NAMESPACE = "http://schemas.openxmlformats.org/wordprocessingml/2006/main";
+
+    private static ThreadPoolExecutor executor;
+
+    private final InMemoryStorageBackend storageBackend = new InMemoryStorageBackend();
+    private final PdfToWordConverter converter = new PdfToWordConverter(storageBackend,
+            new PdfDocumentLoader(PdfDocumentLoader.Strategy.AUTO, 1024, 10 * 1024, 4096, ""), executor);
+
+    @BeforeAll
+    static void setUp() {
+        // Fewer workers than pages, so chunks span several pages
+        executor = new ThreadPoolExecutor(3, 3, 0L, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>());
+    }
+
+    @AfterAll
+    static void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void convert_shouldWriteOneParagraphPerLineInPageOrder() throws Exception {
+        Document document = document(samplePdf(7), null);
+
+        String converted = converter.convert(document, ConversionContext.untracked());
+
+        List<String> expected = new ArrayList<>();
+        for (int page = 1; page <= 7; page++) {
+            expected.add("Page " + page + " first line");
+            expected.add("Page " + page + " second line");
+        }
+        assertThat(paragraphs(converted)).containsExactlyElementsOf(expected);
+        // The temporary segments of the parallel chunks are gone
+        assertThat(storageBackend.keys()).containsExactlyInAnyOrder("test.pdf", converted);
+    }
+
+    @Test
+    void convert_shouldOnlyExtractThePageRange() throws Exception {
+        Document document = document(samplePdf(7), "3-4");
+
+        String converted = converter.convert(document, ConversionContext.untracked());
+
+        assertThat(paragraphs(converted)).containsExactly("Page 3 first line", "Page 3 second line",
+                "Page 4 first line", "Page 4 second line");
+    }
+
+    @Test
+    void convert_shouldWaitForEveryChunkBeforeDeletingTheSegments() throws Exception {
+        // The first pooled chunk fails while the second one is still writing its segment, and
+        // keeps writing it whether it is interrupted or not
+        InMemoryStorageBackend storage = new InMemoryStorageBackend() {
+            @Override
+            public StorageWrite create(String key) {
+                if (key.endsWith("-part-0")) {
+                    throw new FileStorageException("disk full");
+                }
+                if (key.endsWith("-part-1")) {
+                    sleepIgnoringInterrupts(200);
+                }
+                return super.create(key);
+            }
+        };
+        PdfToWordConverter slowConverter = new PdfToWordConverter(storage,
+                new PdfDocumentLoader(PdfDocumentLoader.Strategy.AUTO, 1024, 10 * 1024, 4096, ""), executor);
+        Document document = document(storage, samplePdf(7), null);
+
+        assertThatThrownBy(() -> slowConverter.convert(document, ConversionContext.untracked()))
+                .isInstanceOf(ConversionException.class);
+
+        // A segment committed after the cleanup would show up once the pool is idle
+        while (executor.getActiveCount() > 0) {
+            Thread.sleep(10);
+        }
+        assertThat(storage.keys()).containsExactly("test.pdf");
+    }
+
+    @Test
+    void addParagraph_shouldEscapeTextAndDropCharactersXmlCannotHold() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (DocxWriter docx = new DocxWriter(out)) {
+            docx.addParagraph("<a & b>");
+            docx.addParagraph("");
+            docx.addParagraph("bell\u0007 ringing");
+            docx.finish();
+        }
+        try (StorageWrite write = storageBackend.create("escaped.docx")) {
+            write.channel().write(ByteBuffer.wrap(out.toByteArray()));
+            write.commit();
+        }
+
+        assertThat(paragraphs("escaped.docx")).containsExactly("<a & b>", "", "bell ringing");
+    }
+
+    private static void sleepIgnoringInterrupts(long millis) {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(millis);
+        for (long left = millis; left > 0; left = TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime())) {
+            try {
+                Thread.sleep(left);
+            } catch (InterruptedException e) {
+                // Carries on like a write that does not check for interrupts
+            }
+        }
+    }
+
+    private Document document(byte[] pdf, String pageRange) throws IOException {
+        return document(storageBackend, pdf, pageRange);
+    }
+
+    private static Document document(StorageBackend storage, byte[] pdf, String pageRange) throws IOException {
+        try (StorageWrite write = storage.create("test.pdf")) {
+            write.channel().write(ByteBuffer.wrap(pdf));
+            write.commit();
+        }
+        return Document.builder()
+                .originalFileName("test.pdf")
+                .originalFormat("pdf")
+                .targetFormat("word")
+                .originalFilePath("test.pdf")
+                .renderOptions(pageRange != null ? RenderOptions.builder().pageRange(pageRange).build() : null)
+                .build();
+    }
+
+    private List<String> paragraphs(String key) throws Exception {
+        try (ZipInputStream zip = new ZipInputStream(storageBackend.openInputStream(key))) {
+            List<String> entries = new ArrayList<>();
+            for (ZipEntry entry = zip.getNextEntry(); entry != null; entry = zip.getNextEntry()) {
+                entries.add(entry.getName());
+                if (entry.getName().equals("word/document.xml")) {
+                    return paragraphs(zip);
+                }
+            }
+            throw new AssertionError("No document part in " + entries);
+        }
+    }
+
+    private static List<String> paragraphs(InputStream documentPart) throws Exception {
+        DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
+        factory.setNamespaceAware(true);
+        NodeList nodes = factory.newDocumentBuilder().parse(documentPart)
+                .getElementsByTagNameNS(WORD_NAMESPACE, "p");
+        List<String> paragraphs = new ArrayList<>();
+        for (int i = 0; i < nodes.getLength(); i++) {
+            paragraphs.add(nodes.item(i).getTextContent());
+        }
+        return paragraphs;
+    }
+
+    private static byte[] samplePdf(int pages) throws IOException {
+        try (PDDocument pdf = new PDDocument()) {
+            for (int i = 1; i <= pages; i++) {
+                PDPage page = new PDPage();
+                pdf.addPage(page);
+                try (PDPageContentStream content = new PDPageContentStream(pdf, page)) {
+                    content.beginText();
+                    content.setFont(PDType1Font.HELVETICA, 12);
+                    content.setLeading(14);
+                    content.newLineAtOffset(72, 720);
+                    content.showText("Page " + i + " first line");
+                    content.newLine();
+                    content.showText("Page " + i + " second line");
+                    content.endText();
+                }
+            }
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            pdf.save(out);
+            return out.toByteArray();
+        }
+    }
+}
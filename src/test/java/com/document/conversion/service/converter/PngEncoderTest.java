@@ -0,0 +1,171 @@
+package com.document.conversion.service.converter;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+import javax.imageio.ImageIO;
+import java.awt.Color;
+import java.awt.Font;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Random;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.Adler32;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PngEncoderTest {
+
+    // Small chunks so that every test image is split across several workers
+    private static final int CHUNK_BYTES = 4096;
+
+    private static ThreadPoolExecutor executor;
+
+    @BeforeAll
+    static void setUp() {
+        executor = new ThreadPoolExecutor(4, 4, 0L, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>());
+    }
+
+    @AfterAll
+    static void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @ParameterizedTest
+    @EnumSource(PngEncoder.Filter.class)
+    void write_shouldRoundTripRgbPages(PngEncoder.Filter filter) throws IOException {
+        BufferedImage image = new BufferedImage(301, 217, BufferedImage.TYPE_INT_RGB);
+        Random random = new Random(42);
+        for (int y = 0; y < image.getHeight(); y++) {
+            for (int x = 0; x < image.getWidth(); x++) {
+                image.setRGB(x, y, random.nextInt(0xFFFFFF));
+            }
+        }
+
+        byte[] png = encode(new PngEncoder(6, filter, CHUNK_BYTES, executor), image);
+
+        assertThat(colorType(png)).isEqualTo(2);
+        assertSamePixels(image, png);
+    }
+
+    @Test
+    void write_shouldUseOneBitGrayForBlackAndWhitePages() throws IOException {
+        BufferedImage image = page(false);
+
+        byte[] png = encode(encoder(), image);
+
+        assertThat(colorType(png)).isZero();
+        assertThat(bitDepth(png)).isEqualTo(1);
+        assertSamePixels(image, png);
+    }
+
+    @Test
+    void write_shouldUseEightBitGrayForAntialiasedPages() throws IOException {
+        BufferedImage image = page(true);
+
+        byte[] png = encode(encoder(), image);
+
+        assertThat(colorType(png)).isZero();
+        assertThat(bitDepth(png)).isEqualTo(8);
+        assertSamePixels(image, png);
+    }
+
+    @Test
+    void write_shouldUsePaletteForFewColours() throws IOException {
+        BufferedImage image = page(false);
+        Graphics2D graphics = image.createGraphics();
+        graphics.setColor(Color.RED);
+        graphics.fillRect(20, 20, 100, 40);
+        graphics.setColor(Color.BLUE);
+        graphics.fillRect(20, 80, 100, 40);
+        graphics.dispose();
+
+        byte[] png = encode(encoder(), image);
+
+        assertThat(colorType(png)).isEqualTo(3);
+        assertThat(bitDepth(png)).isEqualTo(2);
+        assertSamePixels(image, png);
+    }
+
+    @Test
+    void serial_shouldEncodeTheSameBytesWithoutThePool() throws IOException {
+        BufferedImage image = page(true);
+
+        assertThat(encode(encoder().serial(), image)).isEqualTo(encode(encoder(), image));
+    }
+
+    @Test
+    void adler32Combine_shouldMatchChecksumOfConcatenation() {
+        byte[] data = new byte[100_000];
+        new Random(7).nextBytes(data);
+        Adler32 whole = new Adler32();
+        whole.update(data);
+        Adler32 first = new Adler32();
+        first.update(data, 0, 40_000);
+        Adler32 second = new Adler32();
+        second.update(data, 40_000, 60_000);
+
+        assertThat(PngEncoder.adler32Combine(first.getValue(), second.getValue(), 60_000))
+                .isEqualTo(whole.getValue());
+    }
+
+    private PngEncoder encoder() {
+        return new PngEncoder(6, PngEncoder.Filter.ADAPTIVE, CHUNK_BYTES, executor);
+    }
+
+    private static BufferedImage page(boolean antialiased) {
+        BufferedImage image = new BufferedImage(613, 791, BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = image.createGraphics();
+        graphics.setColor(Color.WHITE);
+        graphics.fillRect(0, 0, image.getWidth(), image.getHeight());
+        graphics.setColor(Color.BLACK);
+        graphics.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, antialiased
+                ? RenderingHints.VALUE_TEXT_ANTIALIAS_ON : RenderingHints.VALUE_TEXT_ANTIALIAS_OFF);
+        graphics.setFont(new Font(Font.SERIF, Font.PLAIN, 14));
+        for (int line = 0; line < 40; line++) {
+            graphics.drawString("The party shall deliver the services by the effective date " + line, 30, 40 + line * 18);
+        }
+        graphics.dispose();
+        return image;
+    }
+
+    private static byte[] encode(PngEncoder encoder, BufferedImage image) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        encoder.write(image, out);
+        return out.toByteArray();
+    }
+
+    private static void assertSamePixels(BufferedImage expected, byte[] png) throws IOException {
+        BufferedImage decoded = ImageIO.read(new ByteArrayInputStream(png));
+        assertThat(decoded.getWidth()).isEqualTo(expected.getWidth());
+        assertThat(decoded.getHeight()).isEqualTo(expected.getHeight());
+        // ImageIO decodes 8-bit gray into a linear gray space, so compare the stored levels instead
+        boolean gray = decoded.getType() == BufferedImage.TYPE_BYTE_GRAY;
+        for (int y = 0; y < expected.getHeight(); y++) {
+            for (int x = 0; x < expected.getWidth(); x++) {
+                int actual = gray ? decoded.getRaster().getSample(x, y, 0) * 0x010101 : decoded.getRGB(x, y) & 0xFFFFFF;
+                if (actual != (expected.getRGB(x, y) & 0xFFFFFF)) {
+                    throw new AssertionError("Pixel mismatch at " + x + "," + y);
+                }
+            }
+        }
+    }
+
+    // IHDR starts right after the 8-byte signature and the chunk length and type
+    private static int bitDepth(byte[] png) {
+        return png[24];
+    }
+
+    private static int colorType(byte[] png) {
+        return png[25];
+    }
+}
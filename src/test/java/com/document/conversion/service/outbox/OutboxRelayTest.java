@@ -0,0 +1,59 @@
+package com.document.conversion.service.outbox;
+
+import com.document.conversion.service.MessageService;
+import org.junit.jupiter.api.Test;
+import org.springframework.amqp.AmqpConnectException;
+
+import java.net.ConnectException;
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class OutboxRelayTest {
+
+    private static final long MILLISECOND = TimeUnit.MILLISECONDS.toNanos(1);
+
+    private final OutboxService outboxService = mock(OutboxService.class);
+    private final OutboxRelay relay = new OutboxRelay(outboxService, mock(MessageService.class), 10, 100, 1000);
+
+    @Test
+    void relay_shouldBackOffWhileTheBrokerIsDown() {
+        when(outboxService.relayBatch(anyInt(), any()))
+                .thenThrow(new AmqpConnectException(new ConnectException("Connection refused")));
+
+        relay.relay(0);
+        relay.relay(199 * MILLISECOND);
+        verify(outboxService, times(1)).relayBatch(anyInt(), any());
+
+        // The backoff doubles with every failed attempt, up to the maximum
+        relay.relay(200 * MILLISECOND);
+        relay.relay(599 * MILLISECOND);
+        verify(outboxService, times(2)).relayBatch(anyInt(), any());
+        relay.relay(600 * MILLISECOND);
+        relay.relay(1400 * MILLISECOND);
+        relay.relay(2400 * MILLISECOND);
+        relay.relay(3399 * MILLISECOND);
+        verify(outboxService, times(5)).relayBatch(anyInt(), any());
+    }
+
+    @Test
+    void relay_shouldRunEveryIntervalAgainOnceTheBrokerIsBack() {
+        when(outboxService.relayBatch(anyInt(), any()))
+                .thenThrow(new AmqpConnectException(new ConnectException("Connection refused")))
+                .thenReturn(10, 3)
+                .thenReturn(0);
+
+        relay.relay(0);
+        relay.relay(200 * MILLISECOND);
+        // Drained in two batches
+        verify(outboxService, times(3)).relayBatch(anyInt(), any());
+
+        relay.relay(201 * MILLISECOND);
+        verify(outboxService, times(4)).relayBatch(anyInt(), any());
+    }
+}
@@ -0,0 +1,121 @@
+package com.document.conversion.service.outbox;
+
+import com.document.conversion.config.RabbitMQConfig;
+import com.document.conversion.model.Document;
+import com.document.conversion.model.OutboxMessage;
+import com.document.conversion.repository.OutboxMessageRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.amqp.AmqpTimeoutException;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.tuple;
+
+@DataJpaTest
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Import(OutboxService.class)
+class OutboxServiceTest {
+
+    @Autowired
+    private OutboxService outboxService;
+    @Autowired
+    private OutboxMessageRepository outboxMessageRepository;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @AfterEach
+    void tearDown() {
+        outboxMessageRepository.deleteAll();
+    }
+
+    @Test
+    void relayBatch_shouldPublishTheOldestMessagesOutsideATransaction() {
+        OutboxMessage first = save();
+        OutboxMessage second = save();
+        OutboxMessage third = save();
+        List<UUID> published = new ArrayList<>();
+
+        int relayed = outboxService.relayBatch(2, messages -> {
+            assertThat(TransactionSynchronizationManager.isActualTransactionActive()).isFalse();
+            messages.forEach(message -> published.add(message.getDocumentId()));
+        });
+
+        assertThat(relayed).isEqualTo(2);
+        assertThat(published).containsExactly(first.getDocumentId(), second.getDocumentId());
+        assertThat(outboxMessageRepository.findAll())
+                .singleElement()
+                .satisfies(message -> assertThat(message.getId()).isEqualTo(third.getId()));
+    }
+
+    @Test
+    void relayBatch_shouldKeepMessagesTheBrokerDidNotConfirmForTheNextRun() {
+        OutboxMessage message = save();
+
+        assertThatThrownBy(() -> outboxService.relayBatch(10, messages -> {
+            throw new AmqpTimeoutException("Timed out waiting for confirms");
+        })).isInstanceOf(AmqpTimeoutException.class);
+
+        assertThat(outboxMessageRepository.findById(message.getId()).orElseThrow().getClaimToken()).isNull();
+        List<UUID> published = new ArrayList<>();
+        assertThat(outboxService.relayBatch(10, messages ->
+                messages.forEach(relayed -> published.add(relayed.getDocumentId())))).isEqualTo(1);
+        assertThat(published).containsExactly(message.getDocumentId());
+        assertThat(outboxMessageRepository.count()).isZero();
+    }
+
+    @Test
+    void relayBatch_shouldSkipMessagesClaimedByAnotherRelay() {
+        save();
+        List<OutboxMessage> republished = new ArrayList<>();
+
+        outboxService.relayBatch(10, messages ->
+                assertThat(outboxService.relayBatch(10, republished::addAll)).isZero());
+
+        assertThat(republished).isEmpty();
+        assertThat(outboxMessageRepository.count()).isZero();
+    }
+
+    @Test
+    void enqueue_shouldRouteUploadsToTheirLaneBySize() {
+        Document small = upload(5 * 1024 * 1024 - 1L);
+        Document large = upload(5 * 1024 * 1024L);
+        Document unknown = upload(null);
+
+        new TransactionTemplate(transactionManager).executeWithoutResult(status ->
+                outboxService.enqueue(List.of(small, large, unknown)));
+
+        assertThat(outboxMessageRepository.findAll())
+                .extracting(OutboxMessage::getDocumentId, OutboxMessage::getRoutingKey)
+                .containsExactlyInAnyOrder(
+                        tuple(small.getId(), RabbitMQConfig.ROUTING_KEY_DOCUMENT_CONVERSION),
+                        tuple(large.getId(), RabbitMQConfig.ROUTING_KEY_DOCUMENT_CONVERSION_LARGE),
+                        tuple(unknown.getId(), RabbitMQConfig.ROUTING_KEY_DOCUMENT_CONVERSION));
+    }
+
+    private static Document upload(Long size) {
+        return Document.builder()
+                .id(UUID.randomUUID())
+                .originalFileSize(size)
+                .build();
+    }
+
+    private OutboxMessage save() {
+        return outboxMessageRepository.save(OutboxMessage.builder()
+                .documentId(UUID.randomUUID())
+                .routingKey(RabbitMQConfig.ROUTING_KEY_DOCUMENT_CONVERSION)
+                .build());
+    }
+}
@@ -0,0 +1,76 @@
+package com.document.conversion.service.queue;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ConversionJournalTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void reopen_shouldRecoverMessagesThatWereNotAcked() throws IOException {
+        Path file = directory.resolve("conversion.journal");
+        ConversionJournal.Entry first = entry(false);
+        ConversionJournal.Entry second = entry(true);
+        ConversionJournal.Entry third = entry(false);
+
+        // Never closed, like a process that crashed
+        ConversionJournal journal = new ConversionJournal(file, 4096, false);
+        journal.appendEnqueued(List.of(first, second, third));
+        journal.appendAcked(second.documentId());
+
+        assertThat(new ConversionJournal(file, 4096, false).pending()).containsExactly(first, third);
+    }
+
+    @Test
+    void append_shouldCompactWhenTheFileIsFull() throws IOException {
+        Path file = directory.resolve("conversion.journal");
+        int size = 10 * ConversionJournal.RECORD_BYTES;
+        List<ConversionJournal.Entry> pending = new ArrayList<>();
+        try (ConversionJournal journal = new ConversionJournal(file, size, true)) {
+            for (int i = 0; i < 50; i++) {
+                ConversionJournal.Entry entry = entry(i % 3 == 0);
+                journal.appendEnqueued(List.of(entry));
+                if (i % 2 == 0) {
+                    journal.appendAcked(entry.documentId());
+                } else {
+                    pending.add(entry);
+                }
+            }
+            assertThat(journal.pending()).isEqualTo(pending);
+        }
+
+        assertThat(new ConversionJournal(file, size, false).pending()).isEqualTo(pending);
+    }
+
+    @Test
+    void reopen_shouldStopAtATornRecord() throws IOException {
+        Path file = directory.resolve("conversion.journal");
+        ConversionJournal.Entry kept = entry(false);
+        try (ConversionJournal journal = new ConversionJournal(file, 4096, false)) {
+            journal.appendEnqueued(List.of(kept));
+        }
+        // Half a record without its type byte, as left by a crash in the middle of an append
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.wrap(new byte[]{0, 0, 7, 7, 7}), ConversionJournal.RECORD_BYTES);
+        }
+
+        assertThat(new ConversionJournal(file, 4096, false).pending()).containsExactly(kept);
+    }
+
+    private static ConversionJournal.Entry entry(boolean large) {
+        return new ConversionJournal.Entry(UUID.randomUUID(), large);
+    }
+}
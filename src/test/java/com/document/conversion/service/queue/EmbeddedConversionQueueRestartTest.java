@@ -0,0 +1,90 @@
+package com.document.conversion.service.queue;
+
+import com.document.conversion.DocumentConversionApplication;
+import com.document.conversion.model.ConversionResponse;
+import com.document.conversion.model.Document;
+import com.document.conversion.model.StoredFile;
+import com.document.conversion.model.StreamingConversionRequest;
+import com.document.conversion.repository.DocumentRepository;
+import com.document.conversion.repository.OutboxMessageRepository;
+import com.document.conversion.service.DocumentService;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.UUID;
+import java.util.function.BooleanSupplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class EmbeddedConversionQueueRestartTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void restart_shouldConvertDocumentsThatWerePendingAtShutdown() throws Exception {
+        UUID documentId;
+        // No small lane workers, so the conversion is journaled but not run before the shutdown
+        try (ConfigurableApplicationContext context = start("--app.messaging.embedded.small-workers=0")) {
+            DocumentService documentService = context.getBean(DocumentService.class);
+            byte[] pdf = samplePdf();
+            StoredFile upload = documentService.storeUpload("test.pdf", new ByteArrayInputStream(pdf), pdf.length);
+            StreamingConversionRequest request = new StreamingConversionRequest();
+            request.setFileName("test.pdf");
+            request.setTargetFormat("word");
+            ConversionResponse response = documentService.submitStoredConversion(request, upload);
+            documentId = response.getDocumentId();
+            OutboxMessageRepository outboxMessageRepository = context.getBean(OutboxMessageRepository.class);
+            await(() -> outboxMessageRepository.count() == 0);
+        }
+
+        try (ConfigurableApplicationContext context = start()) {
+            DocumentRepository documentRepository = context.getBean(DocumentRepository.class);
+            await(() -> documentRepository.findById(documentId).orElseThrow().getStatus()
+                    == Document.ConversionStatus.COMPLETED);
+        }
+    }
+
+    private ConfigurableApplicationContext start(String... args) {
+        return new SpringApplicationBuilder(DocumentConversionApplication.class)
+                .profiles("embedded")
+                .run(concat(args,
+                        "--server.port=0",
+                        "--spring.datasource.url=jdbc:h2:file:" + directory.resolve("db/docdb"),
+                        "--app.document.storage.location=" + directory.resolve("storage"),
+                        "--app.messaging.embedded.journal.path=" + directory.resolve("queue/conversion.journal")));
+    }
+
+    private static String[] concat(String[] first, String... second) {
+        String[] args = new String[first.length + second.length];
+        System.arraycopy(first, 0, args, 0, first.length);
+        System.arraycopy(second, 0, args, first.length, second.length);
+        return args;
+    }
+
+    private static void await(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + Duration.ofSeconds(30).toNanos();
+        while (!condition.getAsBoolean()) {
+            assertThat(System.nanoTime()).as("condition met within 30s").isLessThan(deadline);
+            Thread.sleep(50);
+        }
+    }
+
+    private static byte[] samplePdf() throws IOException {
+        try (PDDocument pdf = new PDDocument()) {
+            pdf.addPage(new PDPage());
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            pdf.save(out);
+            return out.toByteArray();
+        }
+    }
+}
@@ -0,0 +1,88 @@
+package com.document.conversion.service.queue;
+
+import com.document.conversion.config.RabbitMQConfig;
+import com.document.conversion.exception.ConversionException;
+import com.document.conversion.model.OutboxMessage;
+import com.document.conversion.service.DocumentConversionService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+
+class EmbeddedConversionQueueTest {
+
+    @TempDir
+    Path directory;
+
+    private final DocumentConversionService documentConversionService = mock(DocumentConversionService.class);
+    private EmbeddedConversionQueue queue;
+
+    @AfterEach
+    void tearDown() {
+        if (queue.isRunning()) {
+            queue.stop();
+        }
+    }
+
+    @Test
+    void publish_shouldNotQueueSmallConversionsBehindARunningLargeOne() throws Exception {
+        OutboxMessage large = message(RabbitMQConfig.ROUTING_KEY_DOCUMENT_CONVERSION_LARGE);
+        OutboxMessage small = message(RabbitMQConfig.ROUTING_KEY_DOCUMENT_CONVERSION);
+        CountDownLatch converting = new CountDownLatch(1);
+        CountDownLatch finish = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            converting.countDown();
+            finish.await();
+            return null;
+        }).when(documentConversionService).startConversion(large.getDocumentId());
+        queue = queue(10);
+        queue.start();
+
+        try {
+            queue.publish(List.of(large));
+            assertThat(converting.await(10, TimeUnit.SECONDS)).isTrue();
+            queue.publish(List.of(small));
+
+            verify(documentConversionService, timeout(10_000)).startConversion(small.getDocumentId());
+        } finally {
+            finish.countDown();
+        }
+    }
+
+    @Test
+    void publish_shouldBoundEachLaneOnItsOwn() {
+        queue = queue(1);
+
+        queue.publish(List.of(message(RabbitMQConfig.ROUTING_KEY_DOCUMENT_CONVERSION_LARGE)));
+        queue.publish(List.of(message(RabbitMQConfig.ROUTING_KEY_DOCUMENT_CONVERSION)));
+
+        assertThat(queue.pendingCount()).isEqualTo(2);
+        assertThatThrownBy(() -> queue.publish(List.of(message(RabbitMQConfig.ROUTING_KEY_DOCUMENT_CONVERSION_LARGE))))
+                .isInstanceOf(ConversionException.class);
+        assertThat(queue.pendingCount()).isEqualTo(2);
+    }
+
+    private EmbeddedConversionQueue queue(int capacity) {
+        return new EmbeddedConversionQueue(documentConversionService, capacity, 1, 1,
+                directory.resolve("conversion.journal").toString(), 4096, false);
+    }
+
+    private static OutboxMessage message(String routingKey) {
+        return OutboxMessage.builder()
+                .documentId(UUID.randomUUID())
+                .routingKey(routingKey)
+                .build();
+    }
+}
@@ -0,0 +1,32 @@
+package com.document.conversion.service.queue;
+
+import org.aopalliance.intercept.MethodInvocation;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class InFlightDeliveryCounterTest {
+
+    private final InFlightDeliveryCounter counter = new InFlightDeliveryCounter();
+
+    @Test
+    void invoke_shouldCountTheDeliveryUntilTheListenerReturns() throws Throwable {
+        MethodInvocation invocation = mock(MethodInvocation.class);
+        when(invocation.proceed()).thenAnswer(call -> counter.get());
+
+        assertThat(counter.invoke(invocation)).isEqualTo(1);
+        assertThat(counter.get()).isZero();
+    }
+
+    @Test
+    void invoke_shouldStopCountingAFailedDelivery() throws Throwable {
+        MethodInvocation invocation = mock(MethodInvocation.class);
+        when(invocation.proceed()).thenThrow(new IllegalStateException("conversion failed"));
+
+        assertThatThrownBy(() -> counter.invoke(invocation)).isInstanceOf(IllegalStateException.class);
+        assertThat(counter.get()).isZero();
+    }
+}
@@ -0,0 +1,114 @@
+package com.document.conversion.service.storage;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ShardedFileSystemStorageBackendTest {
+
+    @TempDir
+    Path root;
+
+    @Test
+    void commit_shouldPublishIntoHashedSubdirectories() throws IOException {
+        ShardedFileSystemStorageBackend backend = new ShardedFileSystemStorageBackend(root.toString(), 2);
+
+        write(backend, "converted-1.png", "page");
+
+        Path file = backend.localFile("converted-1.png").orElseThrow();
+        assertThat(root.relativize(file).getNameCount()).isEqualTo(3);
+        assertThat(file.getParent().getFileName().toString()).matches("[0-9a-f]{2}");
+        assertThat(read(backend, "converted-1.png")).isEqualTo("page");
+    }
+
+    @Test
+    void close_shouldDiscardUncommittedWrites() throws IOException {
+        ShardedFileSystemStorageBackend backend = new ShardedFileSystemStorageBackend(root.toString(), 2);
+
+        try (StorageWrite write = backend.create("original-1.pdf")) {
+            write.outputStream().write("partial".getBytes(StandardCharsets.UTF_8));
+            assertThat(backend.exists("original-1.pdf")).isFalse();
+        }
+
+        assertThat(backend.exists("original-1.pdf")).isFalse();
+        try (var files = Files.walk(root)) {
+            assertThat(files.filter(Files::isRegularFile)).isEmpty();
+        }
+    }
+
+    @Test
+    void resolve_shouldFindFilesStoredFlatBeforeSharding() throws IOException {
+        Files.writeString(root.resolve("original-legacy.pdf"), "legacy");
+        ShardedFileSystemStorageBackend backend = new ShardedFileSystemStorageBackend(root.toString(), 2);
+
+        assertThat(read(backend, "original-legacy.pdf")).isEqualTo("legacy");
+        backend.delete("original-legacy.pdf");
+        assertThat(backend.exists("original-legacy.pdf")).isFalse();
+    }
+
+    @Test
+    void keysModifiedBefore_shouldListOnlyStoredObjectsOlderThanTheInstant() throws IOException {
+        ShardedFileSystemStorageBackend backend = new ShardedFileSystemStorageBackend(root.toString(), 2);
+        write(backend, "converted-old.png", "page");
+        write(backend, "converted-new.png", "page");
+        Files.writeString(root.resolve("original-legacy.pdf"), "legacy");
+        Files.createDirectories(root.resolve("queue"));
+        Files.writeString(root.resolve("queue").resolve("conversion.journal"), "journal");
+        Instant cutoff = Instant.now().minus(Duration.ofHours(1));
+        for (String key : List.of("converted-old.png", "original-legacy.pdf")) {
+            Files.setLastModifiedTime(backend.localFile(key).orElseThrow(),
+                    FileTime.from(cutoff.minus(Duration.ofMinutes(1))));
+        }
+        Files.setLastModifiedTime(root.resolve("queue").resolve("conversion.journal"),
+                FileTime.from(cutoff.minus(Duration.ofMinutes(1))));
+
+        try (Stream<String> keys = backend.keysModifiedBefore(cutoff)) {
+            assertThat(keys).containsExactlyInAnyOrder("converted-old.png", "original-legacy.pdf");
+        }
+    }
+
+    @Test
+    void deleteAbandonedWrites_shouldDeleteOnlyStaleTempFiles() throws IOException {
+        ShardedFileSystemStorageBackend backend = new ShardedFileSystemStorageBackend(root.toString(), 2);
+        Path tempDirectory = root.resolve(ShardedFileSystemStorageBackend.TEMP_DIRECTORY);
+        Path stale = Files.writeString(tempDirectory.resolve("crashed.tmp"), "partial");
+        Instant cutoff = Instant.now().minus(Duration.ofHours(1));
+        Files.setLastModifiedTime(stale, FileTime.from(cutoff.minus(Duration.ofMinutes(1))));
+
+        try (StorageWrite write = backend.create("original-1.pdf")) {
+            write.outputStream().write("partial".getBytes(StandardCharsets.UTF_8));
+
+            assertThat(backend.deleteAbandonedWrites(cutoff)).isEqualTo(1);
+            assertThat(stale).doesNotExist();
+            write.commit();
+        }
+        assertThat(read(backend, "original-1.pdf")).isEqualTo("partial");
+    }
+
+    private static void write(StorageBackend backend, String key, String content) throws IOException {
+        try (StorageWrite write = backend.create(key)) {
+            OutputStream out = write.outputStream();
+            out.write(content.getBytes(StandardCharsets.UTF_8));
+            write.commit();
+        }
+    }
+
+    private static String read(StorageBackend backend, String key) throws IOException {
+        try (InputStream in = backend.openInputStream(key)) {
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+}